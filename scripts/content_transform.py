@@ -2,8 +2,9 @@
 # -*- coding: utf-8 -*-
 from pathlib import Path
 from playwright.sync_api import sync_playwright
-from jinja2 import Environment, FileSystemLoader
-import base64, sys, argparse
+import sys, argparse, time
+
+import render_assets
 
 # 确保控制台输出支持 UTF-8（Windows 兼容）
 if sys.platform == 'win32':
@@ -31,11 +32,6 @@ for f in (FONT_CONFIG["font_b"], FONT_CONFIG["font_r"]):
         sys.exit(1)
 
 
-# ④ 把字体转 base64
-def to_b64(path):
-    return "data:font/truetype;base64," + base64.b64encode(path.read_bytes()).decode()
-
-
 def parse_markdown_to_html(text: str) -> str:
     """
     将 Markdown 语法转换为 HTML
@@ -78,9 +74,8 @@ def parse_markdown_to_html(text: str) -> str:
     return text
 
 
-def build_html(content="内容文本", decor_emoji=None, decor_position="bottom-right"):
-    """构建HTML，用于显示内容文本，处理\n\n作为段落分隔，支持 Markdown 语法"""
-    # 将\n\n分割成段落，过滤空段落
+def to_paragraphs(content):
+    """将\n\n分割成段落，过滤空段落，应用 Markdown 解析"""
     # 段落内的单个\n需要转换为<br>标签以便在HTML中换行
     paragraphs = []
     for p in content.split('\n\n'):
@@ -94,18 +89,12 @@ def build_html(content="内容文本", decor_emoji=None, decor_position="bottom-
             # 将临时标记转换回 <br> 标签
             p = p.replace('___BR_TAG___', '<br>')
             paragraphs.append(p)
+    return paragraphs
 
-    env = Environment(loader=FileSystemLoader(SCRIPT_DIR))
-    tpl = env.get_template("content_template.html")
-    cfg = {
-        "font_b": to_b64(FONT_CONFIG["font_b"]),
-        "font_r": to_b64(FONT_CONFIG["font_r"]),
-        "title": "内容图片",
-        "paragraphs": paragraphs,
-        "decor_emoji": decor_emoji,
-        "decor_position": decor_position
-    }
-    return tpl.render(**cfg)
+
+def build_html(content="内容文本", decor_emoji=None, decor_position="bottom-right"):
+    """构建HTML，用于显示内容文本，处理\n\n作为段落分隔，支持 Markdown 语法"""
+    return build_html_from_paragraphs(to_paragraphs(content), decor_emoji, decor_position)
 
 
 def measure_content_height(page, html, width=1080, height=1440):
@@ -201,12 +190,10 @@ def split_content_to_fit(page, paragraphs, max_height=1240):
 
 
 def build_html_from_paragraphs(paragraphs, decor_emoji=None, decor_position="bottom-right"):
-    """从段落列表构建HTML"""
-    env = Environment(loader=FileSystemLoader(SCRIPT_DIR))
-    tpl = env.get_template("content_template.html")
+    """从段落列表构建HTML，字体按段落用到的字符子集化后以地址引用"""
+    tpl = render_assets.get_template("content_template.html")
     cfg = {
-        "font_b": to_b64(FONT_CONFIG["font_b"]),
-        "font_r": to_b64(FONT_CONFIG["font_r"]),
+        **render_assets.font_urls(render_assets.visible_text("".join(paragraphs))),
         "title": "内容图片",
         "paragraphs": paragraphs,
         "decor_emoji": decor_emoji,
@@ -217,22 +204,30 @@ def build_html_from_paragraphs(paragraphs, decor_emoji=None, decor_position="bot
 
 def html_to_pic(page, html, save_path, width=1080, height=1440):
     """使用已存在的page对象生成图片"""
+    started = time.perf_counter()
     page.set_content(html)
     page.wait_for_load_state("networkidle")
     # 固定尺寸截图，保持小红书封面格式 3:4 宽高比（1080 × 1440）
     page.screenshot(path=save_path)
+    render_assets.report(Path(save_path).name, html, started)
 
 
 if __name__ == "__main__":
     parser = argparse.ArgumentParser(description="生成内容图片工具")
-    parser.add_argument("--content", required=True,
+    parser.add_argument("--content", default="",
                         help="内容文本")
+    parser.add_argument("--pages", default=None,
+                        help="已分页的内容（JSON，每一页为段落 HTML 列表），指定后不再测量分页")
+    parser.add_argument("--start-page", type=int, default=1,
+                        help="--pages 中第一页的页码，用于分批渲染时的文件命名（默认：1）")
     parser.add_argument("--name", required=True,
                         help="输出文件名（不包含扩展名）")
     parser.add_argument("--out", default=str(OUT_DIR),
                         help="输出目录，支持相对路径与绝对路径（默认：项目 out 目录）")
 
     args = parser.parse_args()
+    if not args.content and args.pages is None:
+        parser.error("必须指定 --content 或 --pages")
 
     # 处理转义字符：将字符串中的 \n 转换为真正的换行符
     # 将字面字符串 \n 替换为真正的换行符
@@ -245,17 +240,7 @@ if __name__ == "__main__":
     out_dir.mkdir(parents=True, exist_ok=True)
 
     # 将内容转换为段落列表（应用 Markdown 解析）
-    paragraphs = []
-    for p in content.split('\n\n'):
-        p = p.strip()
-        if p:
-            # 先将段落内的单个\n转换为临时标记，避免被 Markdown 解析影响
-            p = p.replace('\n', '___BR_TAG___')
-            # 应用 Markdown 解析
-            p = parse_markdown_to_html(p)
-            # 将临时标记转换回 <br> 标签
-            p = p.replace('___BR_TAG___', '<br>')
-            paragraphs.append(p)
+    paragraphs = to_paragraphs(content)
 
     # 可用高度：图片高度1440 - 上下padding 200 = 1240
     MAX_CONTENT_HEIGHT = 1240
@@ -264,6 +249,19 @@ if __name__ == "__main__":
     with sync_playwright() as p:
         browser = p.chromium.launch(headless=True)
         page = browser.new_page(viewport={"width": 1080, "height": 1440})
+        render_assets.route_assets(page)
+
+        if args.pages is not None:
+            # 分页已由调用方完成，每一页只加载一次
+            import json
+            pages = json.loads(args.pages)
+            for page_num, current_paragraphs in enumerate(pages, start=args.start_page):
+                out_file = out_dir / (f"{args.name}.png" if page_num == 1 else f"{args.name}_{page_num}.png")
+                html_to_pic(page, build_html_from_paragraphs(current_paragraphs), out_file)
+                print(f"✅ 内容图片已生成：{out_file} (1080 × 1440) - 第 {page_num} 页")
+            browser.close()
+            print(f"✅ 共生成 {len(pages)} 张图片")
+            sys.exit(0)
         
         # 生成多张图片
         page_num = 1
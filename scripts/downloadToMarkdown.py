@@ -158,6 +158,20 @@ def url_to_markdown(url: str, timeout: int = 20) -> dict:
     if not html:
         raise RuntimeError("下载失败：空响应")
 
+    return html_to_markdown(html, url)
+
+
+def html_to_markdown(html: str, url: str) -> dict:
+    """
+    从已下载的 HTML 中抽取正文，与 Java 抽取引擎的对比测试直接调用
+
+    Args:
+        html: 页面 HTML
+        url: 页面地址，用于 Front Matter 和缺少标题时的域名
+
+    Returns:
+        包含 title 和 markdown 的字典
+    """
     # 抽取正文为 Markdown
     md = trafilatura.extract(
         html,
@@ -0,0 +1,207 @@
+# script/render_assets.py
+# -*- coding: utf-8 -*-
+"""
+渲染资源
+- 模板：进程内共享一个 Jinja Environment，模板只编译一次
+- 字体：按页面实际用到的字符子集化（需要 fontTools，未安装时使用完整字体），
+  子集按内容哈希缓存到 out/.fonts，HTML 中只引用地址，由页面的路由拦截后从缓存目录返回，
+  不再把几 MB 的字体 base64 内联到每个页面
+
+单独运行时对比内联字体与引用子集字体的 HTML 大小及渲染耗时：
+python render_assets.py --title "标题" --content "内容"
+"""
+import base64
+import hashlib
+import re
+import sys
+import threading
+import time
+from pathlib import Path
+
+from jinja2 import Environment, FileSystemLoader
+
+SCRIPT_DIR = Path(__file__).resolve().parent
+ROOT_DIR = SCRIPT_DIR.parent
+FONT_DIR = ROOT_DIR / "fonts"
+CACHE_DIR = ROOT_DIR / "out" / ".fonts"
+
+FONT_FILES = {
+    "font_b": FONT_DIR / "HarmonyOS_Sans_SC_Bold.ttf",
+    "font_r": FONT_DIR / "HarmonyOS_Sans_SC_Regular.ttf",
+}
+
+# 页面通过这个地址引用字体，请求由 route_assets 拦截，不会访问网络
+ASSET_ORIGIN = "https://render-assets.local"
+ASSET_PATTERN = ASSET_ORIGIN + "/**"
+
+_TAG_PATTERN = re.compile(r"<[^>]+>")
+_ENTITIES = {"&amp;": "&", "&lt;": "<", "&gt;": ">"}
+
+_env = Environment(loader=FileSystemLoader(SCRIPT_DIR), auto_reload=False)
+_lock = threading.Lock()
+_font_digests = {}
+_subsets = {}
+
+try:
+    from fontTools import subset as _ft_subset
+except ImportError:
+    _ft_subset = None
+
+
+def get_template(name):
+    """获取编译后的模板，同一进程内只加载一次"""
+    return _env.get_template(name)
+
+
+def _font_digest(path):
+    """字体文件内容的哈希，按路径、大小及修改时间缓存"""
+    stat = path.stat()
+    key = (str(path), stat.st_size, stat.st_mtime_ns)
+    digest = _font_digests.get(key)
+    if digest is None:
+        digest = hashlib.sha256(path.read_bytes()).hexdigest()
+        _font_digests[key] = digest
+    return digest
+
+
+def visible_text(html):
+    """提取 HTML 片段中会被渲染的字符"""
+    text = _TAG_PATTERN.sub("", html)
+    for entity, char in _ENTITIES.items():
+        text = text.replace(entity, char)
+    return text
+
+
+def _subset(font_key, chars):
+    """生成字体子集，返回缓存目录中的文件名"""
+    source = FONT_FILES[font_key]
+    digest = _font_digest(source)
+    text = "".join(sorted(chars))
+    if _ft_subset is None:
+        # 没有 fontTools 时引用完整字体，同样按内容哈希缓存
+        name = f"{digest[:20]}.ttf"
+    else:
+        name = hashlib.sha256((digest + "\0" + text).encode("utf-8")).hexdigest()[:20] + ".ttf"
+    with _lock:
+        if name in _subsets:
+            return name
+        target = CACHE_DIR / name
+        if not target.exists():
+            CACHE_DIR.mkdir(parents=True, exist_ok=True)
+            temp = target.with_suffix(f".{threading.get_ident()}.tmp")
+            if _ft_subset is None:
+                temp.write_bytes(source.read_bytes())
+            else:
+                options = _ft_subset.Options()
+                options.layout_features = ["*"]
+                options.notdef_outline = True
+                font = _ft_subset.load_font(str(source), options)
+                subsetter = _ft_subset.Subsetter(options)
+                subsetter.populate(text=text)
+                subsetter.subset(font)
+                _ft_subset.save_font(font, str(temp), options)
+            temp.replace(target)
+        _subsets[name] = target
+        return name
+
+
+def font_urls(text):
+    """
+    返回模板中 font_b、font_r 使用的字体地址，字体只包含 text 中出现的字符
+    :param text: 页面中会被渲染的文本
+    """
+    chars = set(text) | {" "}
+    chars.discard("\n")
+    return {key: f"{ASSET_ORIGIN}/fonts/{_subset(key, chars)}" for key in FONT_FILES}
+
+
+def inline_font_urls():
+    """内联完整字体的 data url，仅用于对比"""
+    return {key: "data:font/truetype;base64," + base64.b64encode(path.read_bytes()).decode()
+            for key, path in FONT_FILES.items()}
+
+
+def _asset_path(url):
+    name = url.rsplit("/", 1)[-1]
+    path = (CACHE_DIR / name).resolve()
+    if path.parent != CACHE_DIR.resolve() or not path.exists():
+        return None
+    return path
+
+
+def _fulfill_kwargs(path):
+    return {"path": str(path), "content_type": "font/ttf",
+            "headers": {"Cache-Control": "public, max-age=31536000, immutable"}}
+
+
+def route_assets(page):
+    """为同步 API 的页面注册字体路由"""
+
+    def handler(route):
+        path = _asset_path(route.request.url)
+        if path is None:
+            route.fulfill(status=404)
+        else:
+            route.fulfill(**_fulfill_kwargs(path))
+
+    page.route(ASSET_PATTERN, handler)
+
+
+async def route_assets_async(page):
+    """为异步 API 的页面注册字体路由"""
+
+    async def handler(route):
+        path = _asset_path(route.request.url)
+        if path is None:
+            await route.fulfill(status=404)
+        else:
+            await route.fulfill(**_fulfill_kwargs(path))
+
+    await page.route(ASSET_PATTERN, handler)
+
+
+def report(label, html, started):
+    """输出页面 HTML 大小及渲染耗时"""
+    print(f"[render] {label} html={len(html.encode('utf-8')) / 1024:.1f}KB "
+          f"time={(time.perf_counter() - started) * 1000:.0f}ms", file=sys.stderr)
+
+
+if __name__ == "__main__":
+    import argparse
+
+    from playwright.sync_api import sync_playwright
+
+    import content_transform
+    import textTransformToPng
+
+    parser = argparse.ArgumentParser(description="对比内联字体与子集字体的 HTML 大小及渲染耗时")
+    parser.add_argument("--title", default="小红书封面")
+    parser.add_argument("--content", default="内容文本")
+    parser.add_argument("--rounds", type=int, default=3, help="每种方式渲染次数（默认：3）")
+    args = parser.parse_args()
+
+    paragraphs = content_transform.to_paragraphs(args.content)
+    cover_chars = textTransformToPng.build_title_chars(args.title, None)
+    inline = inline_font_urls()
+    cases = {
+        "cover/inline": get_template("template.html").render(title_chars=cover_chars, **inline),
+        "cover/subset": get_template("template.html").render(title_chars=cover_chars, **font_urls(args.title)),
+        "content/inline": get_template("content_template.html").render(title="内容图片", paragraphs=paragraphs, **inline),
+        "content/subset": get_template("content_template.html").render(
+            title="内容图片", paragraphs=paragraphs, **font_urls(visible_text("".join(paragraphs)))),
+    }
+    with sync_playwright() as p:
+        browser = p.chromium.launch(headless=True)
+        page = browser.new_page(viewport={"width": 1080, "height": 1440})
+        route_assets(page)
+        for label, html in cases.items():
+            timings = []
+            for _ in range(max(1, args.rounds)):
+                started = time.perf_counter()
+                page.set_content(html)
+                page.wait_for_load_state("networkidle")
+                page.screenshot()
+                timings.append((time.perf_counter() - started) * 1000)
+            print(f"{label:16} html={len(html.encode('utf-8')) / 1024:10.1f}KB "
+                  f"avg={sum(timings) / len(timings):7.0f}ms min={min(timings):7.0f}ms")
+        browser.close()
@@ -0,0 +1,28 @@
+# -*- coding: utf-8 -*-
+"""
+生成封面对比测试的参考图片
+按 src/test/resources/render/golden/covers.json 中的用例，用与线上相同的模板及浏览器渲染封面，
+输出到同一目录，供 CoverRendererGoldenTest 与 Java2D 渲染的结果对比。
+模板、字体或浏览器版本变化后重新运行并提交生成的图片
+"""
+import json
+import sys
+from pathlib import Path
+
+from textTransformToPng import ROOT_DIR, build_html, html_to_pic
+
+GOLDEN_DIR = ROOT_DIR / "src" / "test" / "resources" / "render" / "golden"
+
+
+def main():
+    cases = json.loads((GOLDEN_DIR / "covers.json").read_text(encoding="utf-8"))
+    for case in cases:
+        underline = case.get("underline")
+        indices = list(range(underline[0], underline[1] + 1)) if underline else None
+        out_file = GOLDEN_DIR / f"{case['name']}.png"
+        html_to_pic(build_html(title=case["title"], underline_indices=indices), str(out_file))
+        print(f"✅ 参考图片已生成：{out_file}")
+
+
+if __name__ == "__main__":
+    sys.exit(main())
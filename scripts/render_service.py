@@ -0,0 +1,304 @@
+# script/render_service.py
+# -*- coding: utf-8 -*-
+"""
+常驻渲染服务
+启动一个无头 Chromium 并维护可复用的页面池，通过 stdin/stdout 的 JSON Lines 协议接收渲染任务，
+多个任务并发渲染，页面使用指定次数后关闭并重新创建
+
+请求：{"id": 1, "type": "cover", "name": "...", "out": "...", "title": "...", "underline": null,
+      "decorEmoji": null, "decorPosition": "bottom-left"}
+     {"id": 2, "type": "content", "name": "...", "out": "...", "content": "..."}
+     {"id": 2, "type": "content", "name": "...", "out": "...", "pages": [["<段落HTML>", ...], ...], "start": 1}
+     {"id": 3, "op": "ping"}
+响应：{"id": 1, "ok": true, "files": ["..."]}
+     {"id": 1, "ok": false, "error": "..."}
+"""
+import argparse
+import asyncio
+import json
+import os
+import sys
+import time
+import traceback
+from pathlib import Path
+
+from playwright.async_api import async_playwright
+
+SCRIPT_DIR = Path(__file__).resolve().parent
+sys.path.insert(0, str(SCRIPT_DIR))
+
+# 复用脚本中的模板渲染逻辑，导入时会校验字体是否存在
+import content_transform  # noqa: E402
+import render_assets  # noqa: E402
+import textTransformToPng  # noqa: E402
+
+WIDTH, HEIGHT = 1080, 1440
+# 可用高度：图片高度1440 - 上下padding 200 = 1240
+MAX_CONTENT_HEIGHT = 1240
+MAX_CONTENT_PAGES = 100
+
+
+class PagePool:
+    """浏览器页面池，浏览器断开后按需重新启动"""
+
+    def __init__(self, playwright, size, max_uses):
+        self.playwright = playwright
+        self.size = size
+        self.max_uses = max_uses
+        self.browser = None
+        self.idle = asyncio.Queue()
+        self.created = 0
+        self.uses = {}
+        self.browser_lock = asyncio.Lock()
+
+    async def _ensure_browser(self):
+        async with self.browser_lock:
+            if self.browser is None or not self.browser.is_connected():
+                self.browser = await self.playwright.chromium.launch(headless=True)
+            return self.browser
+
+    async def _new_page(self):
+        browser = await self._ensure_browser()
+        page = await browser.new_page(viewport={"width": WIDTH, "height": HEIGHT})
+        await render_assets.route_assets_async(page)
+        self.uses[page] = 0
+        return page
+
+    async def acquire(self):
+        if self.idle.empty() and self.created < self.size:
+            self.created += 1
+            try:
+                return await self._new_page()
+            except Exception:
+                self.created -= 1
+                raise
+        page = await self.idle.get()
+        if page.is_closed():
+            self.uses.pop(page, None)
+            try:
+                return await self._new_page()
+            except Exception:
+                self.created -= 1
+                raise
+        return page
+
+    async def release(self, page, healthy=True):
+        uses = self.uses.get(page, 0) + 1
+        self.uses[page] = uses
+        if healthy and uses < self.max_uses and not page.is_closed():
+            self.idle.put_nowait(page)
+            return
+        # 异常或达到使用次数上限的页面关闭后重新创建
+        self.uses.pop(page, None)
+        try:
+            await page.close()
+        except Exception:
+            pass
+        try:
+            self.idle.put_nowait(await self._new_page())
+        except Exception:
+            self.created -= 1
+
+    async def close(self):
+        if self.browser is not None and self.browser.is_connected():
+            await self.browser.close()
+
+
+def resolve_out_dir(out):
+    out_dir = Path(out)
+    if not out_dir.is_absolute():
+        out_dir = textTransformToPng.ROOT_DIR / out_dir
+    out_dir.mkdir(parents=True, exist_ok=True)
+    return out_dir
+
+
+async def screenshot(page, html, save_path):
+    started = time.perf_counter()
+    await page.set_content(html)
+    await page.wait_for_load_state("networkidle")
+    await page.screenshot(path=str(save_path))
+    render_assets.report(Path(save_path).name, html, started)
+
+
+async def render_cover(pool, request):
+    underline_indices = textTransformToPng.parse_underline_range(request.get("underline"))
+    html = textTransformToPng.build_html(title=request.get("title") or "小红书封面",
+                                         underline_indices=underline_indices,
+                                         decor_emoji=request.get("decorEmoji"),
+                                         decor_position=request.get("decorPosition") or "bottom-left")
+    out_file = resolve_out_dir(request["out"]) / f"{request['name']}.png"
+    page = await pool.acquire()
+    healthy = False
+    try:
+        await screenshot(page, html, out_file)
+        healthy = True
+    finally:
+        await pool.release(page, healthy)
+    return [str(out_file)]
+
+
+async def measure_height(page, paragraphs):
+    await page.set_content(content_transform.build_html_from_paragraphs(paragraphs))
+    await page.wait_for_load_state("networkidle")
+    return await page.evaluate("""
+        () => {
+            const content = document.querySelector('.main-content');
+            if (!content) return 0;
+            return content.offsetHeight;
+        }
+    """)
+
+
+async def split_content_to_fit(page, paragraphs, max_height=MAX_CONTENT_HEIGHT):
+    """content_transform.split_content_to_fit 的异步版本，返回 (当前页段落列表, 剩余段落列表)"""
+    if not paragraphs:
+        return [], []
+
+    left, right, best = 0, len(paragraphs), 0
+    while left <= right:
+        mid = (left + right) // 2
+        if mid == 0:
+            left = mid + 1
+            continue
+        if await measure_height(page, paragraphs[:mid]) <= max_height:
+            best = mid
+            left = mid + 1
+        else:
+            right = mid - 1
+    if best > 0:
+        return [p for p in paragraphs[:best] if p.strip()], [p for p in paragraphs[best:] if p.strip()]
+
+    # 首段过长时先按行拆分
+    first = paragraphs[0]
+    if '<br>' in first:
+        parts = [p for p in first.split('<br>') if p.strip()]
+        l, r, best_lines = 1, len(parts), 0
+        while l <= r:
+            m = (l + r) // 2
+            if await measure_height(page, ['<br>'.join(parts[:m])]) <= max_height:
+                best_lines = m
+                l = m + 1
+            else:
+                r = m - 1
+        if best_lines > 0:
+            remaining_first = '<br>'.join(parts[best_lines:])
+            return (['<br>'.join(parts[:best_lines])],
+                    ([remaining_first] if remaining_first.strip() else []) + paragraphs[1:])
+
+    # 否则按字符拆分，至少拿出一部分，避免死循环
+    l, r, best_chars = 1, max(1, len(first) // 2), 0
+    while l <= r:
+        m = (l + r) // 2
+        if await measure_height(page, [first[:m]]) <= max_height:
+            best_chars = m
+            l = m + 1
+        else:
+            r = m - 1
+    if best_chars == 0:
+        best_chars = max(1, len(first) // 3)
+    remaining_first = first[best_chars:]
+    return [first[:best_chars]], ([remaining_first] if remaining_first.strip() else []) + paragraphs[1:]
+
+
+async def render_pages(page, pages, out_dir, name, start=1):
+    """渲染已分页的内容，每一页只需要一次页面加载，start 为第一页的页码"""
+    files = []
+    for page_num, paragraphs in enumerate(pages[:MAX_CONTENT_PAGES], start=start):
+        file_name = name if page_num == 1 else f"{name}_{page_num}"
+        out_file = out_dir / f"{file_name}.png"
+        await screenshot(page, content_transform.build_html_from_paragraphs(paragraphs), out_file)
+        files.append(str(out_file))
+    return files
+
+
+async def render_content(pool, request):
+    out_dir = resolve_out_dir(request["out"])
+    if request.get("pages") is not None:
+        page = await pool.acquire()
+        healthy = False
+        try:
+            files = await render_pages(page, request["pages"], out_dir, request["name"], request.get("start") or 1)
+            healthy = True
+        finally:
+            await pool.release(page, healthy)
+        return files
+
+    remaining = content_transform.to_paragraphs((request.get("content") or "").replace('\\n', '\n'))
+    files = []
+    page = await pool.acquire()
+    healthy = False
+    try:
+        page_num = 1
+        while remaining and page_num <= MAX_CONTENT_PAGES:
+            current, rest = await split_content_to_fit(page, remaining)
+            if not current:
+                # 连一个段落都放不下时强制放入当前页，避免死循环
+                current, rest = [remaining[0]], remaining[1:]
+            remaining = rest
+            name = request["name"] if page_num == 1 else f"{request['name']}_{page_num}"
+            out_file = out_dir / f"{name}.png"
+            await screenshot(page, content_transform.build_html_from_paragraphs(current), out_file)
+            files.append(str(out_file))
+            page_num += 1
+        healthy = True
+    finally:
+        await pool.release(page, healthy)
+    return files
+
+
+RENDERERS = {"cover": render_cover, "content": render_content}
+
+
+async def handle(pool, request, proto):
+    request_id = request.get("id")
+    try:
+        if request.get("op") == "ping":
+            response = {"id": request_id, "ok": True, "files": []}
+        else:
+            renderer = RENDERERS.get(request.get("type"))
+            if renderer is None:
+                raise ValueError(f"未知的渲染类型：{request.get('type')}")
+            response = {"id": request_id, "ok": True, "files": await renderer(pool, request)}
+    except Exception as e:
+        traceback.print_exc()
+        response = {"id": request_id, "ok": False, "error": f"{type(e).__name__}: {e}"}
+    proto.write(json.dumps(response, ensure_ascii=False) + "\n")
+    proto.flush()
+
+
+async def main():
+    parser = argparse.ArgumentParser(description="常驻渲染服务")
+    parser.add_argument("--pages", type=int, default=4, help="页面池大小（默认：4）")
+    parser.add_argument("--max-uses", type=int, default=50, help="单个页面最多渲染次数（默认：50）")
+    args = parser.parse_args()
+
+    # 协议只使用原始 stdout，其他输出全部转到 stderr
+    proto = os.fdopen(os.dup(1), "w", encoding="utf-8", newline="\n")
+    os.dup2(2, 1)
+
+    loop = asyncio.get_running_loop()
+    tasks = set()
+    async with async_playwright() as playwright:
+        pool = PagePool(playwright, max(1, args.pages), max(1, args.max_uses))
+        while True:
+            line = await loop.run_in_executor(None, sys.stdin.buffer.readline)
+            if not line:
+                break
+            line = line.decode("utf-8").strip()
+            if not line:
+                continue
+            try:
+                request = json.loads(line)
+            except ValueError:
+                print(f"无法解析的请求：{line}", file=sys.stderr)
+                continue
+            task = asyncio.create_task(handle(pool, request, proto))
+            tasks.add(task)
+            task.add_done_callback(tasks.discard)
+        if tasks:
+            await asyncio.gather(*tasks, return_exceptions=True)
+        await pool.close()
+
+
+if __name__ == "__main__":
+    asyncio.run(main())
@@ -2,8 +2,9 @@
 # -*- coding: utf-8 -*-
 from pathlib import Path
 from playwright.sync_api import sync_playwright
-from jinja2 import Environment, FileSystemLoader
-import base64, sys, argparse
+import sys, argparse, time
+
+import render_assets
 
 # 确保控制台输出支持 UTF-8（Windows 兼容）
 if sys.platform == 'win32':
@@ -31,11 +32,6 @@ for f in (FONT_CONFIG["font_b"], FONT_CONFIG["font_r"]):
         sys.exit(1)
 
 
-# ④ 把字体转 base64
-def to_b64(path):
-    return "data:font/truetype;base64," + base64.b64encode(path.read_bytes()).decode()
-
-
 def parse_underline_range(range_str):
     """解析下划线范围，格式：[start,end] 或 start,end"""
     if not range_str:
@@ -54,8 +50,8 @@ def parse_underline_range(range_str):
         return None
 
 
-def build_html(title="小红书封面", underline_indices=None, decor_emoji=None, decor_position="bottom-right"):
-    """构建HTML，预处理标题字符以支持波浪线下划线和换行"""
+def build_title_chars(title, underline_indices=None):
+    """预处理标题字符，标记需要波浪线下划线和换行的位置"""
     # 定义需要换行的符号
     linebreak_symbols = "！？|"
 
@@ -82,13 +78,15 @@ def build_html(title="小红书封面", underline_indices=None, decor_emoji=None
             "underline": i in underline_set,
             "linebreak": need_linebreak
         })
+    return title_chars
+
 
-    env = Environment(loader=FileSystemLoader(SCRIPT_DIR))
-    tpl = env.get_template("template.html")
+def build_html(title="小红书封面", underline_indices=None, decor_emoji=None, decor_position="bottom-right"):
+    """构建HTML，字体按标题用到的字符子集化后以地址引用"""
+    tpl = render_assets.get_template("template.html")
     cfg = {
-        "font_b": to_b64(FONT_CONFIG["font_b"]),
-        "font_r": to_b64(FONT_CONFIG["font_r"]),
-        "title_chars": title_chars,
+        **render_assets.font_urls(title),
+        "title_chars": build_title_chars(title, underline_indices),
         "decor_emoji": decor_emoji,
         "decor_position": decor_position
     }
@@ -99,10 +97,13 @@ def html_to_pic(html, save_path, width=1080, height=1440):
     with sync_playwright() as p:
         browser = p.chromium.launch(headless=True)
         page = browser.new_page(viewport={"width": width, "height": height})
+        render_assets.route_assets(page)
+        started = time.perf_counter()
         page.set_content(html)
         page.wait_for_load_state("networkidle")
         # 固定尺寸截图，保持小红书封面格式 3:4 宽高比（1080 × 1440）
         page.screenshot(path=save_path)
+        render_assets.report(Path(save_path).name, html, started)
         browser.close()
 
 
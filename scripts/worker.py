@@ -0,0 +1,140 @@
+# script/worker.py
+# -*- coding: utf-8 -*-
+"""
+常驻 Python 工作进程
+通过 stdin/stdout 以 JSON Lines 协议接收脚本执行请求，在同一个解释器内执行脚本，
+trafilatura、playwright、jinja2 等模块只在第一次使用时导入
+
+请求：{"id": 1, "script": "downloadToMarkdown.py", "args": ["..."]}
+     {"id": 2, "op": "ping"}
+响应：脚本执行期间每输出一行发送一条 {"id": 1, "output": "...\n"}，结束时发送 {"id": 1, "exitCode": 0}
+     {"id": 2, "exitCode": 0, "output": "pong"}
+"""
+import io
+import json
+import os
+import runpy
+import sys
+import threading
+import traceback
+from pathlib import Path
+
+SCRIPT_DIR = Path(__file__).resolve().parent
+
+# 没有换行的输出累积到该长度时也发送，工作进程只保留一行以内的输出
+MAX_CHUNK_BYTES = 64 * 1024
+
+
+class Protocol:
+    """协议输出，脚本的输出线程与主线程共用，按行写入"""
+
+    def __init__(self, stream):
+        self._stream = stream
+        self._lock = threading.Lock()
+
+    def send(self, message):
+        line = json.dumps(message, ensure_ascii=False) + "\n"
+        with self._lock:
+            self._stream.write(line)
+            self._stream.flush()
+
+
+class _Forward(io.RawIOBase):
+    """把脚本输出按行转发为协议消息，不在内存中累积完整输出。
+    脚本可能重新包装 sys.stdout（如 Windows 下的 UTF-8 处理），包装对象被回收时不关闭"""
+
+    def __init__(self, proto, request_id):
+        super().__init__()
+        self._proto = proto
+        self._id = request_id
+        self._pending = bytearray()
+        self._lock = threading.Lock()
+
+    def writable(self):
+        return True
+
+    def write(self, data):
+        with self._lock:
+            self._pending += data
+            end = self._pending.rfind(b"\n") + 1
+            if end == 0 and len(self._pending) >= MAX_CHUNK_BYTES:
+                # 不在多字节字符中间截断
+                end = len(self._pending)
+                while end > 0 and self._pending[end - 1] & 0xC0 == 0x80:
+                    end -= 1
+                if end > 0 and self._pending[end - 1] >= 0xC0:
+                    end -= 1
+            if end:
+                self._send(bytes(self._pending[:end]))
+                del self._pending[:end]
+        return len(data)
+
+    def flush(self):
+        with self._lock:
+            if self._pending:
+                self._send(bytes(self._pending))
+                self._pending.clear()
+
+    def _send(self, chunk):
+        self._proto.send({"id": self._id, "output": chunk.decode("utf-8", errors="replace")})
+
+    def close(self):
+        pass
+
+
+def run_script(proto, request_id, script, args):
+    """在当前解释器中以 __main__ 方式执行脚本，输出边执行边发送，返回退出码"""
+    path = (SCRIPT_DIR / script).resolve()
+    if path.parent != SCRIPT_DIR or not path.exists():
+        proto.send({"id": request_id, "output": f"Script not found: {script}\n"})
+        return 2
+
+    forward = _Forward(proto, request_id)
+    stream = io.TextIOWrapper(forward, encoding="utf-8", errors="replace", write_through=True)
+    saved = sys.stdout, sys.stderr, sys.argv
+    sys.stdout = sys.stderr = stream
+    sys.argv = [str(path)] + list(args)
+    exit_code = 0
+    try:
+        runpy.run_path(str(path), run_name="__main__")
+    except SystemExit as e:
+        if isinstance(e.code, int):
+            exit_code = e.code
+        elif e.code is not None:
+            print(e.code)
+            exit_code = 1
+    except BaseException:
+        traceback.print_exc()
+        exit_code = 1
+    finally:
+        try:
+            sys.stdout.flush()
+        except Exception:
+            pass
+        sys.stdout, sys.stderr, sys.argv = saved
+        stream.flush()
+        forward.flush()
+    return exit_code
+
+
+def main():
+    # 协议只使用原始 stdout，脚本及其子进程（如 Chromium）写到 fd 1 的内容全部转到 stderr
+    proto = Protocol(os.fdopen(os.dup(1), "w", encoding="utf-8", newline="\n"))
+    os.dup2(2, 1)
+    stdin = io.TextIOWrapper(sys.stdin.buffer, encoding="utf-8")
+
+    for line in stdin:
+        line = line.strip()
+        if not line:
+            continue
+        request = json.loads(line)
+        if request.get("op") == "ping":
+            response = {"id": request.get("id"), "exitCode": 0, "output": "pong"}
+        else:
+            exit_code = run_script(proto, request.get("id"), request["script"], request.get("args", []))
+            response = {"id": request.get("id"), "exitCode": exit_code}
+        proto.send(response)
+
+
+if __name__ == "__main__":
+    main()
@@ -1,15 +1,26 @@
 package com.postagent;
 
+import com.postagent.config.CollectorProperties;
+import com.postagent.config.DownloadProperties;
+import com.postagent.config.LlmConcurrencyProperties;
+import com.postagent.config.LlmRouterProperties;
 import com.postagent.config.PythonProperties;
+import com.postagent.config.RenderProperties;
+import com.postagent.config.SummaryProperties;
+import com.postagent.config.WorkspaceProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.retry.annotation.EnableRetry;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableAsync
-@EnableConfigurationProperties(PythonProperties.class)
+@EnableScheduling
+@EnableConfigurationProperties({PythonProperties.class, CollectorProperties.class, DownloadProperties.class,
+		WorkspaceProperties.class, RenderProperties.class, SummaryProperties.class,
+		LlmRouterProperties.class, LlmConcurrencyProperties.class})
 public class PostAgentApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,89 @@
+package com.postagent.collector;
+
+import com.postagent.model.HotPost;
+import com.postagent.service.CandidateQueue;
+import com.postagent.service.CollectedPostIndex;
+import com.postagent.service.HackerNewsClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Hacker News 数据源 (https://news.ycombinator.com/)
+ */
+@Slf4j
+@Component
+public class HackerNewsSourceAdapter implements SourceAdapter {
+
+    public static final String ORIGIN = "HackerNews";
+
+    private final HackerNewsClient hackerNewsClient;
+    private final CandidateQueue candidateQueue;
+    private final CollectedPostIndex collectedPostIndex;
+    private final HotPostScanner hotPostScanner;
+
+    public HackerNewsSourceAdapter(HackerNewsClient hackerNewsClient, CandidateQueue candidateQueue,
+                                   CollectedPostIndex collectedPostIndex, SourceClientFactory sourceClientFactory) {
+        this.hackerNewsClient = hackerNewsClient;
+        this.candidateQueue = candidateQueue;
+        this.collectedPostIndex = collectedPostIndex;
+        this.hotPostScanner = sourceClientFactory.getClient(ORIGIN).getScanner();
+    }
+
+    @Override
+    public String origin() {
+        return ORIGIN;
+    }
+
+    @Override
+    public Optional<HotPost> collect() {
+        log.info("开始获取热门帖子🔎...");
+
+        // 优先从预先筛选好的队列中取出帖子；队列为空时在后台根据快照补充，本次直接在线扫描，不等待刷新
+        Optional<HotPost> queued = candidateQueue.poll();
+        if (queued.isPresent()) {
+            return queued;
+        }
+        candidateQueue.refreshAsync();
+        return scanOnline();
+    }
+
+    /**
+     * 在线获取热门帖子列表，并发获取帖子详情
+     * @return 排名最靠前且分数达标的帖子，没有分数达标的帖子时为最后一个有外链的未采集帖子
+     */
+    private Optional<HotPost> scanOnline() {
+        // 获取热门帖子id列表（500条）
+        List<Long> hotPostIdList = hackerNewsClient.getTopStories();
+        if (CollectionUtils.isEmpty(hotPostIdList)) {
+            throw new NullPointerException("收集数据节点获取热门帖子id列表失败，返回结果为空");
+        }
+
+        // 批量排除已被采集的帖子
+        List<Long> candidateIds = collectedPostIndex.filterUncollected(hotPostIdList);
+        log.info("热门帖子共 {} 条，未被采集 {} 条", hotPostIdList.size(), candidateIds.size());
+
+        // 并发获取帖子详情，取排名最靠前且分数达标的帖子，同时预留该帖子避免被其他工作流重复采集
+        // 没有分数达标的帖子时，与原先一样使用扫描到的最后一个帖子；分数达标但已被其他工作流预留的帖子不能作为兜底
+        Optional<HotPost> hotPost = hotPostScanner.scan(candidateIds, this::fetchPost,
+                post -> candidateQueue.isQualified(post) && candidateQueue.tryReserve(post.id()),
+                post -> !candidateQueue.isQualified(post) && StringUtils.hasText(post.url()));
+        if (hotPost.isPresent() && !candidateQueue.isQualified(hotPost.get())) {
+            log.warn("没有分数达标的帖子，使用最后一个未采集的帖子：{}（{} 分）", hotPost.get().title(), hotPost.get().score());
+            if (!candidateQueue.tryReserve(hotPost.get().id())) {
+                return Optional.empty();
+            }
+        }
+        return hotPost;
+    }
+
+    private HotPost fetchPost(Long postId) {
+        return Optional.ofNullable(hackerNewsClient.getItem(postId))
+                .map(item -> HotPost.of(0, item))
+                .orElse(null);
+    }
+}
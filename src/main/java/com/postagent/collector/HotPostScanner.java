@@ -0,0 +1,139 @@
+package com.postagent.collector;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 热门帖子并发扫描器
+ * 按排名顺序以有限并发预取帖子详情，返回排名最靠前且满足条件的帖子，命中后取消其余未完成的请求。
+ * 每个数据源持有独立的扫描器，避免一个数据源变慢时占满其他数据源的线程
+ */
+@Slf4j
+public class HotPostScanner {
+
+    private final int parallelism;
+    private final ExecutorService executor;
+
+    public HotPostScanner(String name, int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(name + "-scanner-");
+        threadFactory.setDaemon(true);
+        this.executor = Executors.newFixedThreadPool(this.parallelism, threadFactory);
+    }
+
+    /**
+     * 按顺序扫描候选id，返回第一个满足条件的帖子
+     * @param ids 按排名排序的候选id
+     * @param fetcher 获取帖子详情，返回null表示跳过该帖子
+     * @param accept 帖子是否满足条件
+     * @return 第一个满足条件的帖子
+     */
+    public <T> Optional<T> scan(List<Long> ids, Function<Long, T> fetcher, Predicate<T> accept) {
+        return scan(ids, fetcher, accept, item -> false);
+    }
+
+    /**
+     * 按顺序扫描候选id，返回第一个满足条件的帖子，都不满足时返回最后一个满足兜底条件的帖子
+     * （与逐个扫描时取最后一个已获取的帖子的行为一致）
+     * @param ids 按排名排序的候选id
+     * @param fetcher 获取帖子详情，返回null表示跳过该帖子
+     * @param accept 帖子是否满足条件
+     * @param fallback 帖子是否可以作为兜底
+     * @return 第一个满足条件的帖子，或者最后一个满足兜底条件的帖子
+     */
+    public <T> Optional<T> scan(List<Long> ids, Function<Long, T> fetcher, Predicate<T> accept, Predicate<T> fallback) {
+        Deque<Future<T>> window = new ArrayDeque<>(parallelism);
+        Iterator<Long> iterator = ids.iterator();
+        RuntimeException lastFailure = null;
+        T lastFallback = null;
+        try {
+            while (true) {
+                // 保持窗口内始终有 parallelism 个请求在执行
+                while (window.size() < parallelism && iterator.hasNext()) {
+                    Long id = iterator.next();
+                    window.addLast(executor.submit(() -> fetcher.apply(id)));
+                }
+                Future<T> head = window.pollFirst();
+                if (head == null) {
+                    break;
+                }
+                // 按提交顺序等待结果，保证返回的是排名最靠前的帖子
+                try {
+                    T item = head.get();
+                    if (item != null && accept.test(item)) {
+                        return Optional.of(item);
+                    }
+                    if (item != null && fallback.test(item)) {
+                        lastFallback = item;
+                    }
+                } catch (ExecutionException e) {
+                    log.warn("获取帖子详情失败，跳过：{}", e.getCause().getMessage());
+                    lastFailure = e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("扫描热门帖子时被中断", e);
+        } finally {
+            // 已找到结果或扫描结束，取消仍在执行的请求
+            window.forEach(future -> future.cancel(true));
+        }
+
+        if (lastFallback != null) {
+            return Optional.of(lastFallback);
+        }
+        // 全部候选都未命中且存在请求失败时，抛出最后一次失败原因，便于排查网络问题
+        if (lastFailure != null) {
+            throw lastFailure;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 并发获取所有id对应的详情，单个请求失败时跳过
+     * @param ids 待获取的id
+     * @param fetcher 获取详情，返回null表示跳过
+     * @return id与详情的映射
+     */
+    public <T> Map<Long, T> fetchAll(List<Long> ids, Function<Long, T> fetcher) {
+        List<Future<T>> futures = new ArrayList<>(ids.size());
+        ids.forEach(id -> futures.add(executor.submit(() -> fetcher.apply(id))));
+        Map<Long, T> result = new HashMap<>(ids.size());
+        try {
+            for (int i = 0; i < ids.size(); i++) {
+                try {
+                    T item = futures.get(i).get();
+                    if (item != null) {
+                        result.put(ids.get(i), item);
+                    }
+                } catch (ExecutionException e) {
+                    log.warn("获取id= {} 的详情失败，跳过：{}", ids.get(i), e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("批量获取详情时被中断", e);
+        }
+        return result;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
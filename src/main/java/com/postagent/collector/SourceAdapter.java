@@ -0,0 +1,22 @@
+package com.postagent.collector;
+
+import com.postagent.model.HotPost;
+
+import java.util.Optional;
+
+/**
+ * 数据源适配器，每个适配器对应一个 {@code target_origin}
+ */
+public interface SourceAdapter {
+
+    /**
+     * 数据源名称，与 {@code PostTask.targetOrigin} 对应，不区分大小写
+     */
+    String origin();
+
+    /**
+     * 获取一个待采集的帖子，返回的帖子不会再分配给其他工作流
+     * @return 待采集的帖子，没有符合条件的帖子时为空
+     */
+    Optional<HotPost> collect();
+}
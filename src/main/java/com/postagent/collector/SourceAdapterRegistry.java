@@ -0,0 +1,54 @@
+package com.postagent.collector;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 数据源适配器注册表，按 {@code target_origin} 查找适配器
+ */
+@Slf4j
+@Component
+public class SourceAdapterRegistry {
+
+    public static final String DEFAULT_ORIGIN = HackerNewsSourceAdapter.ORIGIN;
+
+    private final Map<String, SourceAdapter> adapters = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    public SourceAdapterRegistry(List<SourceAdapter> sourceAdapters) {
+        for (SourceAdapter adapter : sourceAdapters) {
+            SourceAdapter previous = adapters.put(adapter.origin(), adapter);
+            if (previous != null) {
+                throw new IllegalStateException("数据源适配器重复：" + adapter.origin());
+            }
+        }
+        log.info("已注册的数据源：{}", adapters.keySet());
+    }
+
+    /**
+     * 获取数据源适配器
+     * @param origin 数据源名称，为空时使用默认数据源
+     * @return 数据源适配器
+     */
+    public SourceAdapter getAdapter(String origin) {
+        String key = resolveOrigin(origin);
+        SourceAdapter adapter = adapters.get(key);
+        if (adapter == null) {
+            throw new IllegalArgumentException("不支持的数据源：" + origin + "，可选值：" + adapters.keySet());
+        }
+        return adapter;
+    }
+
+    /**
+     * 解析数据源名称，按数据源区分的其他配置也应先用它解析
+     * @param origin 数据源名称，为空时使用默认数据源
+     * @return 去掉首尾空白的数据源名称
+     */
+    public static String resolveOrigin(String origin) {
+        return StringUtils.hasText(origin) ? origin.trim() : DEFAULT_ORIGIN;
+    }
+}
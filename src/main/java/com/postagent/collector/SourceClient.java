@@ -0,0 +1,89 @@
+package com.postagent.collector;
+
+import com.postagent.config.CollectorProperties;
+import lombok.Getter;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * 数据源专用的请求客户端
+ * 每个数据源拥有独立的连接池、并发上限、令牌桶限流器和扫描线程，互不影响；
+ * 在线扫描和后台同步使用各自的扫描线程
+ */
+public class SourceClient {
+
+    @Getter
+    private final String origin;
+    @Getter
+    private final HotPostScanner scanner;
+    /**
+     * 后台同步专用的扫描器，与在线扫描使用不同的线程池，同步时不会占满在线扫描的线程
+     */
+    @Getter
+    private final HotPostScanner syncScanner;
+    private final RestClient restClient;
+    private final ExecutorService httpExecutor;
+    private final Semaphore concurrency;
+    private final TokenBucketRateLimiter rateLimiter;
+
+    public SourceClient(String origin, CollectorProperties.Source source) {
+        this.origin = origin;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(origin + "-http-");
+        threadFactory.setDaemon(true);
+        this.httpExecutor = Executors.newFixedThreadPool(Math.max(1, source.getMaxConnections()), threadFactory);
+
+        HttpClient.Builder httpClient = HttpClient.newBuilder()
+                .executor(httpExecutor)
+                .connectTimeout(source.getConnectTimeout());
+        if (StringUtils.hasText(source.getProxyHost())) {
+            httpClient.proxy(ProxySelector.of(new InetSocketAddress(source.getProxyHost(), source.getProxyPort())));
+        }
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient.build());
+        requestFactory.setReadTimeout(source.getReadTimeout());
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        this.concurrency = new Semaphore(Math.max(1, source.getMaxConcurrency()), true);
+        this.rateLimiter = new TokenBucketRateLimiter(source.getPermitsPerSecond(), source.getBurst());
+        this.scanner = new HotPostScanner(origin, source.getMaxConcurrency());
+        this.syncScanner = new HotPostScanner(origin + "-sync", Math.min(source.getSyncConcurrency(), source.getMaxConcurrency()));
+    }
+
+    /**
+     * 在并发上限和限流约束下执行请求
+     * @param call 请求逻辑
+     * @return 请求结果
+     */
+    public <T> T execute(Function<RestClient, T> call) {
+        try {
+            concurrency.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待数据源 " + origin + " 的并发许可时被中断", e);
+        }
+        try {
+            rateLimiter.acquire();
+            return call.apply(restClient);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待数据源 " + origin + " 的限流令牌时被中断", e);
+        } finally {
+            concurrency.release();
+        }
+    }
+
+    public void close() {
+        scanner.shutdown();
+        syncScanner.shutdown();
+        httpExecutor.shutdownNow();
+    }
+}
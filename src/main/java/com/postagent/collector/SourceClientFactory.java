@@ -0,0 +1,42 @@
+package com.postagent.collector;
+
+import com.postagent.config.CollectorProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 数据源客户端工厂，按数据源名称创建并缓存 {@link SourceClient}
+ */
+@Slf4j
+@Component
+public class SourceClientFactory {
+
+    private final CollectorProperties collectorProperties;
+    private final Map<String, SourceClient> clients = new ConcurrentHashMap<>();
+
+    public SourceClientFactory(CollectorProperties collectorProperties) {
+        this.collectorProperties = collectorProperties;
+    }
+
+    /**
+     * 获取数据源客户端，未配置的数据源使用默认配置
+     * @param origin 数据源名称
+     * @return 数据源客户端
+     */
+    public SourceClient getClient(String origin) {
+        return clients.computeIfAbsent(origin, key -> {
+            CollectorProperties.Source source = collectorProperties.getSource(key);
+            log.info("创建数据源客户端：{}，最大并发 {}，限流 {}/s", key, source.getMaxConcurrency(), source.getPermitsPerSecond());
+            return new SourceClient(key, source);
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        clients.values().forEach(SourceClient::close);
+    }
+}
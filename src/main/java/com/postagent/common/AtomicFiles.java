@@ -0,0 +1,31 @@
+package com.postagent.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 原子写文件：先写入同目录下的临时文件，再重命名为目标文件，读取方不会看到写了一半的文件
+ */
+public class AtomicFiles {
+
+    private AtomicFiles() {
+    }
+
+    public static Path writeString(Path target, String content) throws IOException {
+        return write(target, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Path write(Path target, byte[] content) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, content);
+            return Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+}
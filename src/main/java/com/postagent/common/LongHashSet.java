@@ -0,0 +1,77 @@
+package com.postagent.common;
+
+import java.util.Arrays;
+
+/**
+ * 基于开放寻址的 long 集合，避免装箱，非线程安全
+ */
+public class LongHashSet {
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] table;
+    private int size;
+    private boolean containsEmptyKey;
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        this.table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+    }
+
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            boolean added = !containsEmptyKey;
+            containsEmptyKey = true;
+            return added;
+        }
+        int index = indexOf(table, value);
+        if (table[index] == value) {
+            return false;
+        }
+        table[index] = value;
+        if (++size > table.length * LOAD_FACTOR) {
+            resize();
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmptyKey;
+        }
+        return table[indexOf(table, value)] == value;
+    }
+
+    public int size() {
+        return containsEmptyKey ? size + 1 : size;
+    }
+
+    /**
+     * 线性探测查找 value 所在槽位，不存在时返回第一个空槽位
+     */
+    private static int indexOf(long[] table, long value) {
+        int mask = table.length - 1;
+        int index = mix(value) & mask;
+        while (table[index] != EMPTY && table[index] != value) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private static int mix(long value) {
+        long h = value * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void resize() {
+        long[] newTable = new long[table.length << 1];
+        Arrays.fill(newTable, EMPTY);
+        for (long value : table) {
+            if (value != EMPTY) {
+                newTable[indexOf(newTable, value)] = value;
+            }
+        }
+        table = newTable;
+    }
+}
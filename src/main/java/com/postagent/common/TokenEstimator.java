@@ -0,0 +1,42 @@
+package com.postagent.common;
+
+/**
+ * 粗略估算文本的 token 数，用于分段和预算判断，不需要精确值
+ * 中日韩字符约 1 个 token，其余字符约 4 个一个 token，结果偏大以留出余量
+ */
+public class TokenEstimator {
+
+    private static final int LATIN_CHARS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int wide = 0;
+        int other = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isHighSurrogate(c) || isWide(c)) {
+                wide++;
+            } else if (!Character.isLowSurrogate(c)) {
+                other++;
+            }
+        }
+        return wide + (other + LATIN_CHARS_PER_TOKEN - 1) / LATIN_CHARS_PER_TOKEN;
+    }
+
+    private static boolean isWide(char c) {
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
+        return block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A
+                || block == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS
+                || block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS
+                || block == Character.UnicodeBlock.HIRAGANA
+                || block == Character.UnicodeBlock.KATAKANA
+                || block == Character.UnicodeBlock.HANGUL_SYLLABLES;
+    }
+}
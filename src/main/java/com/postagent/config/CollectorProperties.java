@@ -0,0 +1,117 @@
+package com.postagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 数据收集配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.collector")
+public class CollectorProperties {
+    /**
+     * 帖子最低分数，分数高于该值才会被采集
+     */
+    private int minScore = 60;
+
+    /**
+     * 热门帖子id列表缓存时间
+     */
+    private Duration topStoriesTtl = Duration.ofSeconds(30);
+
+    /**
+     * 帖子详情缓存时间
+     */
+    private Duration itemTtl = Duration.ofMinutes(2);
+
+    /**
+     * 帖子详情最大缓存条数
+     */
+    private long itemCacheSize = 2000;
+
+    /**
+     * 是否在后台增量同步热门帖子
+     */
+    private boolean syncEnabled = true;
+
+    /**
+     * 同步快照保留的热门帖子数量
+     */
+    private int snapshotSize = 500;
+
+    /**
+     * 重新拉取热门帖子排名的间隔，两次排名之间只根据 updates 接口刷新发生变化的帖子
+     */
+    private Duration rankingRefreshInterval = Duration.ofMinutes(5);
+
+    /**
+     * 待采集帖子队列容量
+     */
+    private int queueCapacity = 20;
+
+    /**
+     * 帖子分配给工作流后的预留时间，超时未采集完成的帖子可以重新分配
+     */
+    private Duration reservationTtl = Duration.ofMinutes(30);
+
+    /**
+     * 各数据源的连接及限流配置，key 为 target_origin
+     */
+    private Map<String, Source> sources = new HashMap<>();
+
+    /**
+     * 获取数据源配置，key 不区分大小写，未配置时使用默认值
+     * @param origin 数据源名称
+     * @return 数据源配置
+     */
+    public Source getSource(String origin) {
+        return sources.entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(origin))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseGet(Source::new);
+    }
+
+    @Data
+    public static class Source {
+        /**
+         * 连接池线程数
+         */
+        private int maxConnections = 8;
+
+        /**
+         * 同时进行的最大请求数
+         */
+        private int maxConcurrency = 8;
+
+        /**
+         * 后台同步的最大并发数，小于 maxConcurrency 时为在线扫描留出并发许可
+         */
+        private int syncConcurrency = 2;
+
+        /**
+         * 令牌桶每秒生成的令牌数
+         */
+        private double permitsPerSecond = 20;
+
+        /**
+         * 令牌桶容量，即允许的突发请求数
+         */
+        private int burst = 20;
+
+        private Duration connectTimeout = Duration.ofSeconds(10);
+
+        private Duration readTimeout = Duration.ofSeconds(60);
+
+        /**
+         * 代理地址，为空时直连
+         */
+        private String proxyHost;
+
+        private int proxyPort;
+    }
+}
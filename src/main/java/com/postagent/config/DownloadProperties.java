@@ -0,0 +1,84 @@
+package com.postagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文章下载配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.download")
+public class DownloadProperties {
+    /**
+     * 默认的正文抽取引擎
+     */
+    private Engine defaultEngine = Engine.PYTHON;
+
+    /**
+     * 按数据源配置的正文抽取引擎，key 为 target_origin
+     */
+    private Map<String, Engine> engines = new HashMap<>();
+
+    /**
+     * Java 引擎抽取出的正文少于该字符数时视为抽取失败，退回 Python 脚本
+     */
+    private int minContentLength = 200;
+
+    /**
+     * Java 引擎下载页面的连接及读取超时，与 python 脚本的默认值相同
+     */
+    private Duration timeout = Duration.ofSeconds(20);
+
+    /**
+     * 文章缓存配置
+     */
+    private Store store = new Store();
+
+    /**
+     * 获取数据源使用的抽取引擎，key 不区分大小写，未配置时使用默认引擎
+     * @param origin 数据源名称
+     * @return 抽取引擎
+     */
+    public Engine getEngine(String origin) {
+        return engines.entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(origin))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(defaultEngine);
+    }
+
+    /**
+     * 按 url 缓存抽取结果，再次下载同一篇文章时通过条件请求校验是否变化
+     */
+    @Data
+    public static class Store {
+        private boolean enabled = true;
+
+        /**
+         * 缓存目录
+         */
+        private Path dir = Path.of(System.getProperty("user.dir"), "out", ".articles");
+
+        /**
+         * 缓存占用的磁盘上限，超过后淘汰最久未使用的文章
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(512);
+    }
+
+    public enum Engine {
+        /**
+         * 在 JVM 内抽取正文
+         */
+        JAVA,
+        /**
+         * 调用 downloadToMarkdown.py 抽取正文
+         */
+        PYTHON
+    }
+}
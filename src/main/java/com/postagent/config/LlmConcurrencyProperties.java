@@ -0,0 +1,63 @@
+package com.postagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 模型调用并发配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.llm.concurrency")
+public class LlmConcurrencyProperties {
+    private boolean enabled = true;
+
+    /**
+     * 被限流（429）、服务端错误（5xx）或超时后并发上限乘以该比例
+     */
+    private double backoffRatio = 0.5;
+
+    /**
+     * 延迟超过平均延迟的该倍数时视为后端过载，并发上限小幅下降
+     */
+    private double latencyTolerance = 2.0;
+
+    /**
+     * 默认的并发限制
+     */
+    private Limits defaults = new Limits();
+
+    /**
+     * 按模型配置的并发限制，key 为 writing、ollama、cheap、image
+     */
+    private Map<String, Limits> models = new HashMap<>();
+
+    public Limits getLimits(String model) {
+        return models.getOrDefault(model, defaults);
+    }
+
+    @Data
+    public static class Limits {
+        /**
+         * 初始并发上限
+         */
+        private int initialLimit = 4;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 32;
+
+        /**
+         * 等待队列容量，队列满时直接拒绝
+         */
+        private int queueCapacity = 50;
+
+        /**
+         * 在队列中的最长等待时间
+         */
+        private Duration maxWait = Duration.ofMinutes(2);
+    }
+}
@@ -0,0 +1,62 @@
+package com.postagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 模型路由配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.llm.router")
+public class LlmRouterProperties {
+    /**
+     * 首选的模型后端
+     */
+    private String primary = "dashscope";
+
+    /**
+     * 首选后端超过延迟目标仍未返回时，是否向另一个后端发送相同的请求
+     */
+    private boolean hedgeEnabled = true;
+
+    /**
+     * 统计延迟及错误率的最近请求数
+     */
+    private int windowSize = 100;
+
+    /**
+     * 样本数达到该值后才根据统计结果切换后端
+     */
+    private int minSamples = 10;
+
+    /**
+     * 错误率超过该值的后端视为不可用
+     */
+    private double maxErrorRate = 0.5;
+
+    /**
+     * 各后端的延迟目标，key 为后端名称（dashscope、ollama）
+     */
+    private Map<String, Backend> backends = new LinkedHashMap<>();
+
+    public Backend getBackend(String name) {
+        return backends.getOrDefault(name, new Backend());
+    }
+
+    @Data
+    public static class Backend {
+        /**
+         * 普通调用的延迟目标
+         */
+        private Duration slo = Duration.ofSeconds(60);
+
+        /**
+         * 流式调用返回第一个片段的延迟目标
+         */
+        private Duration firstChunkSlo = Duration.ofSeconds(10);
+    }
+}
@@ -3,12 +3,20 @@ package com.postagent.config;
 import com.alibaba.cloud.ai.dashscope.api.DashScopeApi;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatModel;
 import com.alibaba.cloud.ai.dashscope.chat.DashScopeChatOptions;
+import com.postagent.llm.ConcurrencyLimitedChatModel;
+import com.postagent.llm.RoutingChatModel;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.Resource;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.ollama.OllamaChatModel;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @Configuration
 public class MultiLLMConfig {
 
@@ -23,6 +31,12 @@ public class MultiLLMConfig {
     // Token限制常量
     private static final int WRITING_MAX_TOKENS = 30000;
 
+    @Resource
+    private LlmConcurrencyProperties llmConcurrencyProperties;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
     /**
      * 文案助手专用模型 - 擅长文案创作和编辑
      */
@@ -55,13 +69,37 @@ public class MultiLLMConfig {
     }
 
 
+    /**
+     * 文案模型的并发限制，文案、路由ChatClient共用
+     */
+    @Bean("limitedWritingChatModel")
+    public ConcurrencyLimitedChatModel limitedWritingChatModel(@Qualifier("writingChatModel") DashScopeChatModel writingChatModel) {
+        return concurrencyLimited("writing", writingChatModel);
+    }
+
+    /**
+     * 本地模型的并发限制，本地、路由及便宜模型ChatClient共用
+     */
+    @Bean("limitedOllamaChatModel")
+    public ConcurrencyLimitedChatModel limitedOllamaChatModel(@Qualifier("ollamaChatModel") OllamaChatModel ollamaChatModel) {
+        return concurrencyLimited("ollama", ollamaChatModel);
+    }
+
+    /**
+     * 图片编辑模型的并发限制
+     */
+    @Bean("limitedImageChatModel")
+    public ConcurrencyLimitedChatModel limitedImageChatModel(@Qualifier("imageChatModel") DashScopeChatModel imageChatModel) {
+        return concurrencyLimited("image", imageChatModel);
+    }
+
     /**
      * 本地模型
      * @param ollamaChatModel 本地模型
      * @return 本地模型的ChatClient
      */
     @Bean
-    public ChatClient ollamachatClient(@Qualifier("ollamaChatModel") OllamaChatModel ollamaChatModel) {
+    public ChatClient ollamachatClient(@Qualifier("limitedOllamaChatModel") ChatModel ollamaChatModel) {
         return ChatClient.builder(ollamaChatModel).defaultAdvisors(new TokenLoggerAdvisor()).build();
     }
 
@@ -69,15 +107,77 @@ public class MultiLLMConfig {
      * 文案助手专用ChatClient
      */
     @Bean("writingChatClient")
-    public ChatClient writingChatClient(@Qualifier("writingChatModel") DashScopeChatModel writingChatModel) {
+    public ChatClient writingChatClient(@Qualifier("limitedWritingChatModel") ChatModel writingChatModel) {
         return ChatClient.builder(writingChatModel).defaultAdvisors(new TokenLoggerAdvisor()).build();
     }
 
+    /**
+     * 文案路由模型 - 百炼为首选后端、本地模型为备用后端，按延迟及错误率切换并发送备用请求
+     * 每个后端使用各自模型的并发限制，429 及延迟计入实际产生它们的后端
+     */
+    @Bean("routingChatModel")
+    public RoutingChatModel routingChatModel(@Qualifier("limitedWritingChatModel") ChatModel writingChatModel,
+                                             @Qualifier("limitedOllamaChatModel") ChatModel ollamaChatModel,
+                                             LlmRouterProperties llmRouterProperties) {
+        Map<String, ChatModel> models = new LinkedHashMap<>();
+        models.put("dashscope", writingChatModel);
+        models.put("ollama", ollamaChatModel);
+        return new RoutingChatModel(models, llmRouterProperties, meterRegistry);
+    }
+
+    /**
+     * 文案路由ChatClient
+     */
+    @Bean("routingChatClient")
+    public ChatClient routingChatClient(@Qualifier("routingChatModel") RoutingChatModel routingChatModel) {
+        return ChatClient.builder(routingChatModel).defaultAdvisors(new TokenLoggerAdvisor()).build();
+    }
+
+    /**
+     * 便宜模型 - 分级生成中输出很短的子任务（封面标题、装饰表情）使用，按配置选择百炼小模型或本地模型
+     * 使用本地模型时与其他本地模型调用共用并发限制
+     */
+    @Bean("cheapChatModel")
+    public ChatModel cheapChatModel(DashScopeApi dashScopeApi,
+                                    @Qualifier("limitedOllamaChatModel") ConcurrencyLimitedChatModel ollamaChatModel,
+                                    SummaryProperties summaryProperties) {
+        SummaryProperties.Cascade cascade = summaryProperties.getCascade();
+        if (cascade.getCheapBackend() == SummaryProperties.CheapBackend.OLLAMA) {
+            return ollamaChatModel;
+        }
+        return concurrencyLimited("cheap", DashScopeChatModel.builder()
+                .dashScopeApi(dashScopeApi)
+                .defaultOptions(DashScopeChatOptions.builder()
+                        .withModel(cascade.getCheapModel())
+                        .withTemperature(WRITING_TEMPERATURE)
+                        .withMaxToken(cascade.getCheapMaxTokens())
+                        .withEnableThinking(false)
+                        .withEnableSearch(false)
+                        .build())
+                .build());
+    }
+
+    /**
+     * 便宜模型ChatClient
+     */
+    @Bean("cheapChatClient")
+    public ChatClient cheapChatClient(@Qualifier("cheapChatModel") ChatModel cheapChatModel) {
+        return ChatClient.builder(cheapChatModel).defaultAdvisors(new TokenLoggerAdvisor()).build();
+    }
+
     /**
      * 图片编辑助手专用ChatClient
      */
     @Bean("imageChatClient")
-    public ChatClient imageChatClient(@Qualifier("imageChatModel") DashScopeChatModel imageChatModel) {
+    public ChatClient imageChatClient(@Qualifier("limitedImageChatModel") ChatModel imageChatModel) {
         return ChatClient.builder(imageChatModel).defaultAdvisors(new TokenLoggerAdvisor()).build();
     }
+
+    /**
+     * 每个模型单独的自适应并发限制，同一个模型只能包装一次
+     * @param model 模型名称，对应 app.llm.concurrency.models 的 key
+     */
+    private ConcurrencyLimitedChatModel concurrencyLimited(String model, ChatModel chatModel) {
+        return new ConcurrencyLimitedChatModel(model, chatModel, llmConcurrencyProperties, meterRegistry);
+    }
 }
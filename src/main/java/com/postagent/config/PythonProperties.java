@@ -9,13 +9,27 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 @Data
 @ConfigurationProperties(prefix = "app.python")
 public class PythonProperties {
     private Path interpreter;
     private Path scriptDir;
+    private Pool pool = new Pool();
+
+    /**
+     * 脚本默认执行超时时间
+     */
+    private Duration defaultTimeout = Duration.ofMinutes(5);
+
+    /**
+     * 按脚本名称配置的执行超时时间，key 为脚本文件名
+     */
+    private Map<String, Duration> timeouts = new HashMap<>();
 
     @PostConstruct
     public void init() throws IOException {
@@ -28,6 +42,13 @@ public class PythonProperties {
         Files.createDirectories(scriptDir);
     }
 
+    /**
+     * 获取脚本的执行超时时间，未单独配置时使用默认超时时间
+     */
+    public Duration getTimeout(String scriptName) {
+        return timeouts.getOrDefault(scriptName, defaultTimeout);
+    }
+
     private static Path findSystemPython() {
         return Arrays.stream(System.getenv("PATH").split(File.pathSeparator))
                      .map(Paths::get)
@@ -36,4 +57,35 @@ public class PythonProperties {
                      .findFirst()
                      .orElseThrow(() -> new IllegalStateException("python not in PATH"));
     }
-}
\ No newline at end of file
+
+    /**
+     * 常驻 Python 工作进程池配置
+     */
+    @Data
+    public static class Pool {
+        /**
+         * 是否启用进程池，关闭时每次调用都启动新的解释器
+         */
+        private boolean enabled = true;
+
+        /**
+         * 工作进程数量
+         */
+        private int size = 2;
+
+        /**
+         * 单个工作进程最多处理的请求数，超过后回收并重启，避免内存持续增长
+         */
+        private int maxRequestsPerWorker = 50;
+
+        /**
+         * 等待空闲工作进程的最长时间，超时后退回单次执行模式
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+
+        /**
+         * 健康检查超时时间
+         */
+        private Duration healthCheckTimeout = Duration.ofSeconds(5);
+    }
+}
@@ -0,0 +1,116 @@
+package com.postagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 常驻渲染服务配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.render")
+public class RenderProperties {
+    /**
+     * 是否启用渲染服务，关闭或服务不可用时每次调用脚本启动新的浏览器
+     */
+    private boolean enabled = true;
+
+    /**
+     * 浏览器页面池大小，即同时渲染的任务数
+     */
+    private int pages = 4;
+
+    /**
+     * 单个页面最多渲染的次数，超过后关闭并重新创建
+     */
+    private int maxPageUses = 50;
+
+    /**
+     * 单个渲染任务的超时时间
+     */
+    private Duration jobTimeout = Duration.ofMinutes(2);
+
+    /**
+     * 是否在 JVM 内用 Java2D 绘制封面，不支持的情况仍由浏览器渲染
+     */
+    private boolean nativeCover = true;
+
+    /**
+     * 封面标题下划线的字符范围，格式 [start,end]，与 textTransformToPng.py 的 --underline 参数相同；为空时不加下划线
+     */
+    private String coverUnderline;
+
+    /**
+     * 字体目录
+     */
+    private Path fontDir = Path.of(System.getProperty("user.dir"), "fonts");
+
+    /**
+     * 是否在 JVM 内计算内容图片的分页，浏览器只渲染分好的页面
+     */
+    private boolean nativePagination = true;
+
+    /**
+     * 段落排版缓存目录，缓存文件按模板及字体区分
+     */
+    private Path layoutCacheDir = Path.of(System.getProperty("user.dir"), "out", ".layout");
+
+    /**
+     * 段落排版缓存的最大条目数
+     */
+    private long layoutCacheSize = 20_000;
+
+    /**
+     * 图片生成线程池大小，封面、内容分批及脚本兜底任务共用
+     */
+    private int threads = 4;
+
+    /**
+     * 图片生成线程池的队列长度，队列满时由提交任务的线程执行
+     */
+    private int queueCapacity = 32;
+
+    /**
+     * 内容图片每批渲染的页数，多批并行渲染
+     */
+    private int chunkPages = 2;
+
+    /**
+     * 图片输出配置
+     */
+    private Output output = new Output();
+
+    /**
+     * 生成图片的输出格式、质量及缩略图尺寸
+     */
+    @Data
+    public static class Output {
+        /**
+         * 输出格式，WEBP 需要运行环境提供 ImageIO 的 webp 编码器，否则使用 PNG
+         */
+        private ImageFormat format = ImageFormat.PNG;
+
+        /**
+         * JPEG/WEBP 的压缩质量，0~1
+         */
+        private float quality = 0.85f;
+
+        /**
+         * 是否以最高压缩级别重新编码 PNG，仅在文件变小时替换
+         */
+        private boolean optimizePng = true;
+
+        /**
+         * 额外生成的图片宽度，文件名为 原文件名@宽度w
+         */
+        private List<Integer> variants = new ArrayList<>();
+    }
+
+    public enum ImageFormat {
+        PNG, JPEG, WEBP
+    }
+}
@@ -0,0 +1,191 @@
+package com.postagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 文案生成配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.summary")
+public class SummaryProperties {
+
+    /**
+     * 文案缓存配置
+     */
+    private Cache cache = new Cache();
+
+    /**
+     * 长文分段总结配置
+     */
+    private Chunk chunk = new Chunk();
+
+    /**
+     * 正文预处理配置
+     */
+    private Compact compact = new Compact();
+
+    /**
+     * 分级生成配置
+     */
+    private Cascade cascade = new Cascade();
+
+    /**
+     * 按 (正文, 提示词, 模型参数) 缓存生成的文案：内存中按条数淘汰，数据库中按保留时间清理
+     */
+    @Data
+    public static class Cache {
+        private boolean enabled = true;
+
+        /**
+         * 内存缓存的最大条数
+         */
+        private int size = 500;
+
+        /**
+         * 数据库中文案的保留时间，超过后视为未命中并被清理
+         */
+        private Duration ttl = Duration.ofDays(30);
+
+        /**
+         * 清理过期文案的间隔
+         */
+        private Duration cleanupInterval = Duration.ofHours(6);
+    }
+
+    /**
+     * 正文超过 directTokens 时按标题和段落分段，各段并发提炼要点后再生成文案
+     */
+    @Data
+    public static class Chunk {
+        /**
+         * 正文不超过该 token 数时直接生成文案
+         */
+        private int directTokens = 24000;
+
+        /**
+         * 每段的 token 上限
+         */
+        private int chunkTokens = 6000;
+
+        /**
+         * 同时提炼的分段数
+         */
+        private int concurrency = 4;
+    }
+
+    /**
+     * 调用模型前去掉正文中价值较低的内容，并按模型限制输入的 token 数
+     */
+    @Data
+    public static class Compact {
+        private boolean enabled = true;
+
+        /**
+         * 代码块最多保留的行数
+         */
+        private int maxCodeLines = 15;
+
+        /**
+         * 表格最多保留的数据行数
+         */
+        private int maxTableRows = 8;
+
+        /**
+         * 未单独配置的模型的输入预算（token）
+         */
+        private int defaultBudget = 100000;
+
+        /**
+         * 按模型配置的输入预算，key 为模型名称
+         */
+        private Map<String, Integer> budgets = new HashMap<>();
+
+        /**
+         * 获取模型的输入预算，key 不区分大小写，未配置时使用默认预算
+         * @param model 模型名称
+         * @return 输入预算
+         */
+        public int getBudget(String model) {
+            return budgets.entrySet().stream()
+                    .filter(entry -> entry.getKey().equalsIgnoreCase(model))
+                    .map(Map.Entry::getValue)
+                    .findFirst()
+                    .orElse(defaultBudget);
+        }
+    }
+
+    /**
+     * 分级生成：封面标题、装饰表情等输出很短的子任务交给便宜的模型，质量检查不通过时再用文案模型重新生成；
+     * 正文文案仍由文案模型生成。每个提示词使用的模型级别在 prompts 中配置
+     */
+    @Data
+    public static class Cascade {
+        private boolean enabled = false;
+
+        /**
+         * 便宜模型的后端
+         */
+        private CheapBackend cheapBackend = CheapBackend.DASHSCOPE;
+
+        /**
+         * 后端为 dashscope 时使用的模型
+         */
+        private String cheapModel = "qwen-turbo";
+
+        /**
+         * 便宜模型最多生成的 token 数
+         */
+        private int cheapMaxTokens = 512;
+
+        /**
+         * 交给便宜模型的正文 token 上限，超过时截取开头部分
+         */
+        private int cheapInputTokens = 4000;
+
+        /**
+         * 提示词使用的模型级别，key 为提示词名称，未配置时使用文案模型
+         */
+        private Map<String, ModelTier> prompts = new HashMap<>();
+
+        /**
+         * 各级别模型每千 token 的价格，用于估算每个阶段的费用
+         */
+        private Map<ModelTier, Price> prices = new HashMap<>();
+
+        public ModelTier getTier(String promptName) {
+            return prompts.getOrDefault(promptName, ModelTier.EXPENSIVE);
+        }
+
+        public Price getPrice(ModelTier tier) {
+            return prices.getOrDefault(tier, new Price());
+        }
+    }
+
+    @Data
+    public static class Price {
+        private double input;
+
+        private double output;
+    }
+
+    public enum ModelTier {
+        /**
+         * 便宜模型（小模型或本地模型）
+         */
+        CHEAP,
+        /**
+         * 文案模型
+         */
+        EXPENSIVE
+    }
+
+    public enum CheapBackend {
+        DASHSCOPE,
+        OLLAMA
+    }
+}
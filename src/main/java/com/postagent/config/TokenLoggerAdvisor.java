@@ -1,6 +1,7 @@
 package com.postagent.config;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClientMessageAggregator;
 import org.springframework.ai.chat.client.ChatClientRequest;
 import org.springframework.ai.chat.client.ChatClientResponse;
 import org.springframework.ai.chat.client.advisor.api.CallAdvisor;
@@ -12,22 +13,47 @@ import org.springframework.ai.chat.metadata.Usage;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 @Slf4j
 @Component
 public class TokenLoggerAdvisor implements CallAdvisor, StreamAdvisor {
 
+    /**
+     * advisor 参数：正文预处理节省的 prompt token 估算，与 usage 一起记录
+     */
+    public static final String SAVED_PROMPT_TOKENS = "saved_prompt_tokens";
+
     @Override
     public ChatClientResponse adviseCall(ChatClientRequest chatClientRequest, CallAdvisorChain callAdvisorChain) {
         ChatClientResponse advisedResponse = callAdvisorChain.nextCall(chatClientRequest);
         ChatResponseMetadata metadata = advisedResponse.chatResponse().getMetadata();
         Usage usage = metadata.getUsage();
-        log.info("本次模型调用 usage: {}", usage);
+        log.info("本次模型调用 usage: {}{}", usage, savedTokens(chatClientRequest));
         return advisedResponse;
     }
 
+    /**
+     * 流式调用：片段原样向下游传递，结束后汇总为完整响应记录 usage 及首个片段的耗时
+     */
     @Override
     public Flux<ChatClientResponse> adviseStream(ChatClientRequest chatClientRequest, StreamAdvisorChain streamAdvisorChain) {
-        return null;
+        long start = System.nanoTime();
+        AtomicLong firstTokenNanos = new AtomicLong(-1);
+        Flux<ChatClientResponse> responses = streamAdvisorChain.nextStream(chatClientRequest)
+                .doOnNext(response -> firstTokenNanos.compareAndSet(-1, System.nanoTime() - start));
+        return new ChatClientMessageAggregator().aggregateChatClientResponse(responses, aggregated -> {
+            Usage usage = aggregated.chatResponse() == null ? null : aggregated.chatResponse().getMetadata().getUsage();
+            log.info("本次模型流式调用 usage: {}{}，首个片段 {} ms，总耗时 {} ms", usage, savedTokens(chatClientRequest),
+                    TimeUnit.NANOSECONDS.toMillis(firstTokenNanos.get()),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        });
+    }
+
+    private static String savedTokens(ChatClientRequest request) {
+        Object saved = request.context().get(SAVED_PROMPT_TOKENS);
+        return saved == null ? "" : "，预处理节省 prompt tokens 约 " + saved;
     }
 
     @Override
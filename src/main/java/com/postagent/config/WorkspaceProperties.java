@@ -0,0 +1,29 @@
+package com.postagent.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * 工作流产物目录配置
+ */
+@Data
+@ConfigurationProperties(prefix = "app.workspace")
+public class WorkspaceProperties {
+    /**
+     * 产物根目录
+     */
+    private Path root = Path.of(System.getProperty("user.dir"), "out");
+
+    /**
+     * 哈希前缀目录层数，每层 256 个子目录
+     */
+    private int shardLevels = 2;
+
+    /**
+     * 未提交的运行目录保留时间，超过后视为中断的运行并清理
+     */
+    private Duration partialRetention = Duration.ofHours(6);
+}
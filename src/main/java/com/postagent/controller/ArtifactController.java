@@ -0,0 +1,290 @@
+package com.postagent.controller;
+
+import com.postagent.entity.PostTaskResult;
+import com.postagent.service.ArtifactWorkspace;
+import com.postagent.service.PostTaskResultService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 任务产物控制器
+ * 按任务结果id下载运行目录中的文件：支持 ETag/Last-Modified 缓存校验及单个 Range 请求，
+ * Tomcat 支持时通过 sendfile 发送，否则用 FileChannel.transferTo 写入响应；整个运行目录以 ZIP 流式下载，不生成临时文件
+ */
+@Slf4j
+@RestController
+@RequestMapping("/artifact")
+public class ArtifactController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    /**
+     * 已压缩的格式在 ZIP 中不再压缩
+     */
+    private static final Set<String> STORED_EXTENSIONS = Set.of("png", "jpg", "jpeg", "webp", "gif", "zip");
+
+    @Autowired
+    private PostTaskResultService postTaskResultService;
+
+    @Autowired
+    private ArtifactWorkspace artifactWorkspace;
+
+    /**
+     * 列出任务结果的文件
+     * @param resultId 任务结果id
+     * @return 文件名、大小及修改时间
+     */
+    @GetMapping("/{resultId}")
+    public ResponseEntity<?> listFiles(@PathVariable("resultId") Long resultId) throws IOException {
+        Optional<Path> runDir = findRun(resultId);
+        if (runDir.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        List<Map<String, Object>> files = artifactWorkspace.listFiles(runDir.get()).stream().map(file -> {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("name", file.getFileName().toString());
+            try {
+                item.put("size", Files.size(file));
+                item.put("lastModified", Files.getLastModifiedTime(file).toMillis());
+            } catch (IOException e) {
+                log.debug("读取文件信息失败：{}，{}", file, e.getMessage());
+            }
+            return item;
+        }).toList();
+        return ResponseEntity.ok(files);
+    }
+
+    /**
+     * 下载单个文件
+     * @param resultId 任务结果id
+     * @param name 文件名
+     */
+    @GetMapping("/{resultId}/files/{name}")
+    public void download(@PathVariable("resultId") Long resultId, @PathVariable("name") String name,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<Path> runDir = findRun(resultId);
+        Optional<Path> found = runDir.isPresent() ? artifactWorkspace.resolveFile(runDir.get(), name) : Optional.empty();
+        if (found.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        Path file = found.get();
+        long length = Files.size(file);
+        long lastModified = Files.getLastModifiedTime(file).toMillis();
+        // 产物提交后不再修改，大小和修改时间足以作为强校验值
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setContentType(MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.inline().filename(name, StandardCharsets.UTF_8).build().toString());
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        if (range != null && ifRangeMatches(request.getHeader(HttpHeaders.IF_RANGE), etag, lastModified)) {
+            long[] parsed = parseRange(range, length);
+            if (parsed != null && parsed.length == 0) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+            if (parsed != null) {
+                start = parsed[0];
+                end = parsed[1];
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 由 Tomcat 在响应头之后直接调用 sendfile，结束位置不包含
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    /**
+     * 以 ZIP 流式下载整个运行目录
+     * @param resultId 任务结果id
+     */
+    @GetMapping("/{resultId}/zip")
+    public ResponseEntity<StreamingResponseBody> downloadZip(@PathVariable("resultId") Long resultId) throws IOException {
+        Optional<Path> runDir = findRun(resultId);
+        if (runDir.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        List<Path> files = artifactWorkspace.listFiles(runDir.get());
+        String zipName = runDir.get().getFileName() + ".zip";
+        StreamingResponseBody body = outputStream -> writeZip(files, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(zipName, StandardCharsets.UTF_8).build().toString())
+                .body(body);
+    }
+
+    /**
+     * 写入 ZIP：已压缩的格式以 STORED 方式原样写入，需要先计算 CRC，其他文件按默认级别压缩
+     */
+    static void writeZip(List<Path> files, OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream, StandardCharsets.UTF_8);
+        for (Path file : files) {
+            String fileName = file.getFileName().toString();
+            ZipEntry entry = new ZipEntry(fileName);
+            entry.setLastModifiedTime(Files.getLastModifiedTime(file));
+            if (STORED_EXTENSIONS.contains(extension(fileName))) {
+                entry.setMethod(ZipEntry.STORED);
+                entry.setSize(Files.size(file));
+                entry.setCompressedSize(entry.getSize());
+                entry.setCrc(crc32(file));
+            }
+            zip.putNextEntry(entry);
+            Files.copy(file, zip);
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+
+    private static long crc32(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private Optional<Path> findRun(Long resultId) {
+        return postTaskResultService.findById(resultId)
+                .map(PostTaskResult::getOutputDirectory)
+                .flatMap(artifactWorkspace::resolveRun);
+    }
+
+    /**
+     * If-Range 与当前的 ETag 或修改时间一致时才按 Range 返回，否则返回完整文件
+     */
+    static boolean ifRangeMatches(String ifRange, String etag, long lastModified) {
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            // HTTP 日期精确到秒
+            return ZonedDateTime.parse(ifRange, DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond() == lastModified / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 解析单个字节范围，多个范围时返回完整文件。
+     * 结束位置小于起始位置的范围不合法，按 RFC 9110 忽略 Range 头返回完整文件
+     * @return [start, end]，格式不支持或不合法时为 null，范围无法满足时为空数组
+     */
+    static long[] parseRange(String range, long length) {
+        if (!range.startsWith("bytes=") || range.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = range.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                // bytes=-N 表示最后 N 个字节
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) {
+                    return new long[0];
+                }
+                return new long[]{Math.max(0, length - suffix), length - 1};
+            }
+            long start = Long.parseLong(first);
+            if (start < 0 || (!last.isEmpty() && Long.parseLong(last) < start)) {
+                return null;
+            }
+            if (start >= length) {
+                return new long[0];
+            }
+            long end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String extension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+}
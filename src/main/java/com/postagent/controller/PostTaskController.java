@@ -2,10 +2,15 @@ package com.postagent.controller;
 
 import com.postagent.entity.PostTask;
 import com.postagent.service.PostTaskService;
+import com.postagent.service.SummaryStreamHub;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
 
 /**
  * 帖子任务控制器
@@ -14,9 +19,14 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/post-task")
 public class PostTaskController {
 
+    private static final Duration SUMMARY_STREAM_TIMEOUT = Duration.ofMinutes(10);
+
     @Autowired
     private PostTaskService postTaskService;
 
+    @Autowired
+    private SummaryStreamHub summaryStreamHub;
+
     /**
      * 添加一个新的任务
      * @param postTask 任务对象
@@ -49,4 +59,18 @@ public class PostTaskController {
         return ResponseEntity.ok().build();
     }
 
+    /**
+     * 订阅任务文案的生成过程（SSE）
+     * 事件：delta 新生成的片段，done 完整文案，error 生成失败
+     * @param taskId 任务ID
+     * @return 事件流，任务不存在时返回 404，不创建订阅
+     */
+    @GetMapping(value = "/summary/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamSummary(@RequestParam("id") Long taskId) {
+        if (!postTaskService.existsPostTask(taskId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(summaryStreamHub.subscribe(String.valueOf(taskId), SUMMARY_STREAM_TIMEOUT));
+    }
+
 }
\ No newline at end of file
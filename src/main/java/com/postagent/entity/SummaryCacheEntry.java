@@ -0,0 +1,27 @@
+package com.postagent.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Date;
+
+@Getter
+@Setter
+@Entity
+@Table(name = "summary_cache", schema = "post_agent")
+public class SummaryCacheEntry {
+    @Id
+    @Column(name = "cache_key", nullable = false, length = 64)
+    private String cacheKey;
+
+    @Column(name = "model")
+    private String model;
+
+    @Column(name = "summary", columnDefinition = "mediumtext")
+    private String summary;
+
+    @Column(name = "create_time")
+    private Date createTime;
+
+}
@@ -0,0 +1,270 @@
+package com.postagent.extractor;
+
+import com.postagent.config.DownloadProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ProxySelector;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.Charset;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * 文章正文抽取
+ * 在 JVM 内完成下载、正文识别和 Markdown 转换，输出格式与 downloadToMarkdown.py 一致：
+ * Front Matter + 一级标题 + 去掉图片、视频和链接的正文
+ */
+@Slf4j
+@Component
+public class ArticleExtractor {
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) "
+            + "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0.0.0 Safari/537.36";
+
+    private static final DateTimeFormatter SAVED_AT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssxxx");
+
+    private static final List<DateTimeFormatter> OFFSET_FORMATTERS = List.of(
+            DateTimeFormatter.ISO_OFFSET_DATE_TIME,
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssxx"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss[xxx][xx]"));
+
+    private static final List<DateTimeFormatter> LOCAL_FORMATTERS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE_TIME,
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+
+    private static final List<String> DATE_SELECTORS = List.of(
+            "meta[property=article:published_time]",
+            "meta[name=pubdate]",
+            "meta[name=publishdate]",
+            "meta[name=date]",
+            "meta[itemprop=datePublished]",
+            "time[datetime]");
+
+    private final RestClient restClient;
+    private final DownloadProperties downloadProperties;
+
+    public ArticleExtractor(DownloadProperties downloadProperties) {
+        this.restClient = RestClient.builder().requestFactory(requestFactory(downloadProperties)).build();
+        this.downloadProperties = downloadProperties;
+    }
+
+    /**
+     * 文章下载单独使用的客户端：与 python 脚本一样跟随重定向（http→https、结尾斜杠、跳转链接等），
+     * 代理使用 JVM 的默认设置（http.proxyHost 等系统属性）
+     */
+    private static JdkClientHttpRequestFactory requestFactory(DownloadProperties downloadProperties) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .proxy(ProxySelector.getDefault())
+                .connectTimeout(downloadProperties.getTimeout())
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(downloadProperties.getTimeout());
+        return requestFactory;
+    }
+
+    /**
+     * 下载并抽取文章正文
+     * @param url 文章地址
+     * @return 抽取结果
+     * @throws IOException 下载失败或未识别到可用正文
+     */
+    public ExtractedArticle extract(String url) throws IOException {
+        return extract(download(url, null, null), url);
+    }
+
+    /**
+     * 下载页面，传入缓存的 ETag/Last-Modified 时发起条件请求
+     * @param url 页面地址
+     * @param etag 缓存的 ETag，可以为空
+     * @param lastModified 缓存的 Last-Modified，可以为空
+     * @return 下载的页面，页面没有变化时 {@link FetchedPage#notModified()} 为 true
+     * @throws IOException 下载失败
+     */
+    public FetchedPage download(String url, String etag, String lastModified) throws IOException {
+        ResponseEntity<byte[]> response;
+        try {
+            response = restClient.get()
+                    .uri(url)
+                    .header(HttpHeaders.USER_AGENT, USER_AGENT)
+                    .header(HttpHeaders.ACCEPT, "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8")
+                    .header(HttpHeaders.ACCEPT_LANGUAGE, "zh-CN,zh;q=0.9,en;q=0.8")
+                    .headers(headers -> {
+                        if (StringUtils.hasText(etag)) {
+                            headers.set(HttpHeaders.IF_NONE_MATCH, etag);
+                        }
+                        if (StringUtils.hasText(lastModified)) {
+                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+                        }
+                    })
+                    .retrieve()
+                    .toEntity(byte[].class);
+        } catch (RestClientException e) {
+            throw new IOException("下载失败：" + e.getMessage(), e);
+        }
+        HttpHeaders headers = response.getHeaders();
+        if (response.getStatusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+            return new FetchedPage(true, null, null, etag, lastModified);
+        }
+        MediaType contentType = headers.getContentType();
+        Charset charset = contentType != null ? contentType.getCharset() : null;
+        return new FetchedPage(false, response.getBody(), charset != null ? charset.name() : null,
+                headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED));
+    }
+
+    /**
+     * 只获取页面的 ETag/Last-Modified，不下载正文，用于缓存 python 脚本下载的页面
+     * @param url 页面地址
+     * @return 只包含校验信息的页面
+     * @throws IOException 请求失败
+     */
+    public FetchedPage fetchValidators(String url) throws IOException {
+        ResponseEntity<Void> response;
+        try {
+            response = restClient.head()
+                    .uri(url)
+                    .header(HttpHeaders.USER_AGENT, USER_AGENT)
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (RestClientException e) {
+            throw new IOException("获取页面校验信息失败：" + e.getMessage(), e);
+        }
+        HttpHeaders headers = response.getHeaders();
+        return new FetchedPage(false, null, null, headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED));
+    }
+
+    /**
+     * 从下载的页面中抽取文章正文
+     * @param page 下载的页面
+     * @param url 文章地址
+     * @return 抽取结果
+     * @throws IOException 空响应或未识别到可用正文
+     */
+    public ExtractedArticle extract(FetchedPage page, String url) throws IOException {
+        byte[] body = page.body();
+        if (body == null || body.length == 0) {
+            throw new IOException("下载失败：空响应");
+        }
+        return extract(Jsoup.parse(new ByteArrayInputStream(body), page.charset(), url), url);
+    }
+
+    /**
+     * 从已解析的页面中抽取文章正文
+     * @param document 页面文档，会被就地清理
+     * @param url 文章地址
+     * @return 抽取结果
+     * @throws IOException 未识别到可用正文
+     */
+    public ExtractedArticle extract(Document document, String url) throws IOException {
+        // 标题和日期需要在清理页面之前读取
+        String title = parseTitle(document, url);
+        OffsetDateTime publishedAt = parsePublishedAt(document);
+
+        Element content = ContentDetector.detect(document);
+        String markdown = MarkdownConverter.convert(content);
+        if (markdown.length() < downloadProperties.getMinContentLength()) {
+            throw new IOException("正文抽取失败：未识别到可用正文");
+        }
+
+        if (!markdown.stripLeading().startsWith("# ")) {
+            markdown = "# " + title + "\n\n" + markdown;
+        }
+        String frontMatter = buildFrontMatter(title, url, publishedAt);
+        return new ExtractedArticle(title, frontMatter + markdown.strip() + "\n");
+    }
+
+    private static String buildFrontMatter(String title, String url, OffsetDateTime publishedAt) {
+        String savedAt = publishedAt.atZoneSameInstant(ZoneId.systemDefault())
+                .truncatedTo(ChronoUnit.SECONDS)
+                .format(SAVED_AT_FORMATTER);
+        return "---\n"
+                + "title: \"" + title + "\"\n"
+                + "source: \"" + url + "\"\n"
+                + "saved_at: \"" + savedAt + "\"\n"
+                + "---\n\n";
+    }
+
+    /**
+     * 标题：优先 title 标签，其次 og:title，最后使用域名
+     */
+    private static String parseTitle(Document document, String url) {
+        String title = document.title().strip();
+        if (!StringUtils.hasText(title)) {
+            Element ogTitle = document.selectFirst("meta[property=og:title]");
+            if (ogTitle != null) {
+                title = ogTitle.attr("content").strip();
+            }
+        }
+        if (!StringUtils.hasText(title)) {
+            String host = URI.create(url).getHost();
+            title = host != null ? host : url;
+        }
+        return title;
+    }
+
+    /**
+     * 发布时间：从常见的 meta 或 time 标签中解析，失败时使用当前时间
+     */
+    private static OffsetDateTime parsePublishedAt(Document document) {
+        for (String selector : DATE_SELECTORS) {
+            Element element = document.selectFirst(selector);
+            if (element == null) {
+                continue;
+            }
+            String value = element.hasAttr("datetime") ? element.attr("datetime") : element.attr("content");
+            if (StringUtils.hasText(value)) {
+                OffsetDateTime parsed = parseDate(value.strip().replace("Z", "+00:00"));
+                if (parsed != null) {
+                    return parsed;
+                }
+                break;
+            }
+        }
+        return OffsetDateTime.now(ZoneOffset.UTC);
+    }
+
+    private static OffsetDateTime parseDate(String value) {
+        for (DateTimeFormatter formatter : OFFSET_FORMATTERS) {
+            try {
+                return OffsetDateTime.parse(value, formatter);
+            } catch (DateTimeParseException ignored) {
+                // 尝试下一种格式
+            }
+        }
+        for (DateTimeFormatter formatter : LOCAL_FORMATTERS) {
+            try {
+                return LocalDateTime.parse(value, formatter).atOffset(ZoneOffset.UTC);
+            } catch (DateTimeParseException ignored) {
+                // 尝试下一种格式
+            }
+        }
+        try {
+            return LocalDate.parse(value).atStartOfDay().atOffset(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            log.debug("无法解析发布时间：{}", value);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.postagent.extractor;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.postagent.common.AtomicFiles;
+import com.postagent.config.DownloadProperties;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 文章缓存
+ * 以规范化 url 的 SHA-256 作为 key，保存抽取出的 Markdown 以及下载时的 ETag/Last-Modified，
+ * 供下载节点发起条件请求。缓存按最近使用时间淘汰，总大小不超过配置的磁盘上限
+ */
+@Slf4j
+@Component
+public class ArticleStore {
+
+    private static final String MARKDOWN_SUFFIX = ".md";
+    private static final String META_SUFFIX = ".json";
+
+    private final DownloadProperties.Store props;
+    /**
+     * key 与占用字节数，按访问顺序排列
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    public ArticleStore(DownloadProperties downloadProperties) {
+        this.props = downloadProperties.getStore();
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    /**
+     * 启动时扫描缓存目录，按文件修改时间恢复使用顺序
+     */
+    @PostConstruct
+    public void load() throws IOException {
+        if (!props.isEnabled()) {
+            return;
+        }
+        Files.createDirectories(props.getDir());
+        List<Path> metaFiles;
+        try (Stream<Path> files = Files.walk(props.getDir(), 2)) {
+            metaFiles = files.filter(path -> path.getFileName().toString().endsWith(META_SUFFIX)).collect(Collectors.toList());
+        }
+        metaFiles.sort(Comparator.comparing(ArticleStore::lastModifiedTime));
+        synchronized (entries) {
+            for (Path metaFile : metaFiles) {
+                String key = metaFile.getFileName().toString().replace(META_SUFFIX, "");
+                Path markdownFile = metaFile.resolveSibling(key + MARKDOWN_SUFFIX);
+                if (!Files.exists(markdownFile)) {
+                    Files.deleteIfExists(metaFile);
+                    continue;
+                }
+                long bytes = Files.size(metaFile) + Files.size(markdownFile);
+                entries.put(key, bytes);
+                totalBytes += bytes;
+            }
+            evict();
+        }
+        log.info("文章缓存已加载 {} 篇，占用 {} KB", entries.size(), totalBytes / 1024);
+    }
+
+    /**
+     * 查询缓存的文章
+     * @param url 文章地址
+     * @return 缓存的文章，不存在或读取失败时为空
+     */
+    public Optional<StoredArticle> get(String url) {
+        if (!props.isEnabled()) {
+            return Optional.empty();
+        }
+        String key = key(url);
+        synchronized (entries) {
+            if (entries.get(key) == null) {
+                return Optional.empty();
+            }
+        }
+        Path metaFile = path(key, META_SUFFIX);
+        try {
+            JSONObject meta = JSON.parseObject(Files.readString(metaFile, StandardCharsets.UTF_8));
+            String markdown = Files.readString(path(key, MARKDOWN_SUFFIX), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(metaFile, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(new StoredArticle(meta.getString("url"), meta.getString("title"), markdown,
+                    meta.getString("etag"), meta.getString("lastModified")));
+        } catch (IOException | RuntimeException e) {
+            log.warn("读取文章缓存失败，丢弃缓存：{}，{}", url, e.getMessage());
+            remove(key);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 保存文章
+     * @param url 文章地址
+     * @param article 抽取出的文章
+     * @param etag 响应头 ETag
+     * @param lastModified 响应头 Last-Modified
+     */
+    public void put(String url, ExtractedArticle article, String etag, String lastModified) {
+        // 没有校验信息的页面无法发起条件请求，缓存没有意义
+        if (!props.isEnabled() || (!StringUtils.hasText(etag) && !StringUtils.hasText(lastModified))) {
+            return;
+        }
+        String key = key(url);
+        JSONObject meta = new JSONObject();
+        meta.put("url", url);
+        meta.put("title", article.title());
+        meta.put("etag", etag);
+        meta.put("lastModified", lastModified);
+        try {
+            Path markdownFile = path(key, MARKDOWN_SUFFIX);
+            Path metaFile = path(key, META_SUFFIX);
+            Files.createDirectories(markdownFile.getParent());
+            // 先写 Markdown 再写元数据，元数据存在即表示缓存完整
+            AtomicFiles.writeString(markdownFile, article.markdown());
+            AtomicFiles.writeString(metaFile, meta.toJSONString());
+            long bytes = Files.size(markdownFile) + Files.size(metaFile);
+            synchronized (entries) {
+                Long previous = entries.put(key, bytes);
+                totalBytes += bytes - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException e) {
+            log.warn("保存文章缓存失败：{}，{}", url, e.getMessage());
+        }
+    }
+
+    /**
+     * 规范化 url：scheme 和 host 转小写，去掉默认端口、fragment、utm 跟踪参数及末尾的斜杠，查询参数排序
+     */
+    static String normalizeUrl(String url) {
+        try {
+            URI uri = new URI(url.strip());
+            String scheme = uri.getScheme() == null ? "http" : uri.getScheme().toLowerCase(Locale.ROOT);
+            String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+            int port = uri.getPort();
+            if (("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443)) {
+                port = -1;
+            }
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            if (path.length() > 1 && path.endsWith("/")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            String query = uri.getRawQuery() == null ? "" : Arrays.stream(uri.getRawQuery().split("&"))
+                    .filter(param -> !param.isEmpty() && !param.toLowerCase(Locale.ROOT).startsWith("utm_"))
+                    .sorted()
+                    .collect(Collectors.joining("&"));
+            return scheme + "://" + host + (port == -1 ? "" : ":" + port) + path + (query.isEmpty() ? "" : "?" + query);
+        } catch (URISyntaxException e) {
+            return url.strip();
+        }
+    }
+
+    private static String key(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalizeUrl(url).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 按 key 前两位分目录存放，避免单个目录文件过多
+     */
+    private Path path(String key, String suffix) {
+        return props.getDir().resolve(key.substring(0, 2)).resolve(key + suffix);
+    }
+
+    /**
+     * 淘汰最久未使用的文章，调用方需持有 entries 锁
+     */
+    private void evict() {
+        long maxBytes = props.getMaxSize().toBytes();
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            totalBytes -= eldest.getValue();
+            evicted.add(eldest.getKey());
+            iterator.remove();
+        }
+        for (String key : evicted) {
+            deleteFiles(key);
+        }
+        if (!evicted.isEmpty()) {
+            log.info("文章缓存超过 {}，淘汰 {} 篇", props.getMaxSize(), evicted.size());
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (entries) {
+            Long bytes = entries.remove(key);
+            if (bytes != null) {
+                totalBytes -= bytes;
+            }
+        }
+        deleteFiles(key);
+    }
+
+    private void deleteFiles(String key) {
+        try {
+            Files.deleteIfExists(path(key, META_SUFFIX));
+            Files.deleteIfExists(path(key, MARKDOWN_SUFFIX));
+        } catch (IOException e) {
+            log.warn("删除文章缓存失败：{}，{}", key, e.getMessage());
+        }
+    }
+
+    private static FileTime lastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
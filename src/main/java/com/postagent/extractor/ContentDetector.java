@@ -0,0 +1,193 @@
+package com.postagent.extractor;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 正文区域识别
+ * 参考 Readability 的打分方式：先去掉脚本、导航、评论等样板内容，再按段落的文本长度和逗号数量给父节点打分，
+ * 按链接密度修正后取得分最高的节点，并合并得分接近的相邻节点
+ */
+final class ContentDetector {
+
+    private static final String BOILERPLATE_TAGS = "script, style, noscript, template, iframe, form, nav, aside, footer, "
+            + "svg, canvas, button, input, select, textarea, object, embed, img, picture, video, audio, source, figure, link, meta";
+
+    private static final Pattern UNLIKELY = Pattern.compile(
+            "-ad-|ad-break|agegate|banner|breadcrumb|combx|comment|community|cookie|disqus|extra|footer|gdpr|header|"
+                    + "legends|menu|newsletter|pager|pagination|popup|related|remark|replies|rss|share|shoutbox|"
+                    + "sidebar|skyscraper|social|sponsor|subscribe|supplemental", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern MAYBE_CANDIDATE = Pattern.compile(
+            "and|article|body|column|content|main|shadow", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern POSITIVE = Pattern.compile(
+            "article|body|content|entry|hentry|h-entry|main|page|post|text|blog|story", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern NEGATIVE = Pattern.compile(
+            "-ad-|hidden|banner|combx|comment|com-|contact|foot|footnote|gdpr|masthead|media|meta|outbrain|promo|"
+                    + "related|scroll|share|shoutbox|sidebar|skyscraper|sponsor|shopping|tags|tool|widget", Pattern.CASE_INSENSITIVE);
+
+    private static final Set<String> PARAGRAPH_TAGS = Set.of("p", "pre", "td", "blockquote");
+
+    private static final Set<String> BLOCK_TAGS = Set.of("p", "div", "section", "article", "main", "table", "ul", "ol",
+            "dl", "pre", "blockquote", "h1", "h2", "h3", "h4", "h5", "h6");
+
+    private static final Set<String> PROTECTED_TAGS = Set.of("html", "body", "article", "main");
+
+    private ContentDetector() {
+    }
+
+    /**
+     * 识别正文区域
+     * @param document 页面文档，会被就地清理
+     * @return 正文节点，无法识别时返回 body
+     */
+    static Element detect(Document document) {
+        Element body = document.body();
+        body.select(BOILERPLATE_TAGS).remove();
+        removeUnlikelyCandidates(body);
+
+        Map<Element, Double> scores = new IdentityHashMap<>();
+        for (Element element : body.getAllElements()) {
+            if (!isParagraph(element)) {
+                continue;
+            }
+            String text = element.text();
+            if (text.length() < 25) {
+                continue;
+            }
+            Element parent = element.parent();
+            if (parent == null) {
+                continue;
+            }
+            double score = 1 + countCommas(text) + Math.min(text.length() / 100, 3);
+            addScore(scores, parent, score);
+            Element grandParent = parent.parent();
+            if (grandParent != null) {
+                addScore(scores, grandParent, score / 2);
+            }
+        }
+
+        Element top = null;
+        double topScore = 0;
+        for (Map.Entry<Element, Double> entry : scores.entrySet()) {
+            double score = entry.getValue() * (1 - linkDensity(entry.getKey()));
+            entry.setValue(score);
+            if (score > topScore) {
+                top = entry.getKey();
+                topScore = score;
+            }
+        }
+        if (top == null || top.parent() == null) {
+            return top == null ? body : top;
+        }
+
+        // 合并得分接近的相邻节点，正文经常被拆分在多个并列的容器中
+        Element container = new Element("div");
+        double threshold = Math.max(10, topScore * 0.2);
+        for (Element sibling : new ArrayList<>(top.parent().children())) {
+            if (sibling == top || shouldAppendSibling(sibling, scores.get(sibling), threshold)) {
+                container.appendChild(sibling.clone());
+            }
+        }
+        return container;
+    }
+
+    private static boolean shouldAppendSibling(Element sibling, Double score, double threshold) {
+        if (score != null && score >= threshold) {
+            return true;
+        }
+        if (!"p".equals(sibling.normalName())) {
+            return false;
+        }
+        String text = sibling.text();
+        double density = linkDensity(sibling);
+        return (text.length() > 80 && density < 0.25)
+                || (!text.isEmpty() && density == 0 && text.matches(".*[.。!！?？]\\s*$"));
+    }
+
+    private static void removeUnlikelyCandidates(Element body) {
+        for (Element element : body.getAllElements()) {
+            if (element == body || PROTECTED_TAGS.contains(element.normalName()) || element.parent() == null) {
+                continue;
+            }
+            String matchString = element.className() + " " + element.id();
+            if (UNLIKELY.matcher(matchString).find() && !MAYBE_CANDIDATE.matcher(matchString).find()) {
+                element.remove();
+            }
+        }
+    }
+
+    /**
+     * 段落节点：p/pre/td/blockquote，以及不包含块级子节点的 div
+     */
+    private static boolean isParagraph(Element element) {
+        String tag = element.normalName();
+        if (PARAGRAPH_TAGS.contains(tag)) {
+            return true;
+        }
+        if (!"div".equals(tag)) {
+            return false;
+        }
+        for (Element child : element.children()) {
+            if (BLOCK_TAGS.contains(child.normalName())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void addScore(Map<Element, Double> scores, Element element, double score) {
+        Double current = scores.get(element);
+        // 节点第一次得分时加上按标签及 class/id 计算的初始分
+        scores.put(element, (current == null ? initialScore(element) : current) + score);
+    }
+
+    private static double initialScore(Element element) {
+        double score = switch (element.normalName()) {
+            case "div", "article", "main", "section" -> 5;
+            case "pre", "td", "blockquote" -> 3;
+            case "address", "ol", "ul", "dl", "dd", "dt", "li", "form" -> -3;
+            case "h1", "h2", "h3", "h4", "h5", "h6", "th" -> -5;
+            default -> 0;
+        };
+        String matchString = element.className() + " " + element.id();
+        if (NEGATIVE.matcher(matchString).find()) {
+            score -= 25;
+        }
+        if (POSITIVE.matcher(matchString).find()) {
+            score += 25;
+        }
+        return score;
+    }
+
+    private static double linkDensity(Element element) {
+        int textLength = element.text().length();
+        if (textLength == 0) {
+            return 0;
+        }
+        int linkLength = 0;
+        for (Element link : element.select("a")) {
+            linkLength += link.text().length();
+        }
+        return (double) linkLength / textLength;
+    }
+
+    private static int countCommas(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '，' || c == '、') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
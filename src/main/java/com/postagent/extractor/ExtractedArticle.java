@@ -0,0 +1,9 @@
+package com.postagent.extractor;
+
+/**
+ * 抽取出的文章
+ * @param title 文章标题
+ * @param markdown 带 Front Matter 的 Markdown 正文
+ */
+public record ExtractedArticle(String title, String markdown) {
+}
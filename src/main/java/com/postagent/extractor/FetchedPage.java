@@ -0,0 +1,12 @@
+package com.postagent.extractor;
+
+/**
+ * 下载的页面
+ * @param notModified 条件请求返回 304，页面没有变化，此时没有响应体
+ * @param body 响应体
+ * @param charset 响应头中声明的字符集，未声明时为空
+ * @param etag 响应头 ETag
+ * @param lastModified 响应头 Last-Modified
+ */
+public record FetchedPage(boolean notModified, byte[] body, String charset, String etag, String lastModified) {
+}
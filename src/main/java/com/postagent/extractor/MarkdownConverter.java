@@ -0,0 +1,246 @@
+package com.postagent.extractor;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 将正文节点转换为 Markdown
+ * 只保留标题、段落、列表、引用、代码块和表格，链接只保留文本，图片和视频直接丢弃，
+ * 输出再经过与 downloadToMarkdown.py 中 filter_links_and_media 相同的过滤规则
+ */
+final class MarkdownConverter {
+
+    private static final Set<String> BLOCK_TAGS = Set.of("address", "article", "aside", "blockquote", "dd", "div", "dl",
+            "dt", "fieldset", "figcaption", "header", "h1", "h2", "h3", "h4", "h5", "h6", "hr", "li", "main", "ol", "p",
+            "pre", "section", "table", "ul");
+
+    private static final String VIDEO_EXTENSIONS = "\\.(mp4|webm|avi|mov|flv|mkv|m4v|3gp|wmv|asf|rm|rmvb)(\\?.*?)?";
+
+    private static final Pattern MARKDOWN_IMAGE = Pattern.compile("!\\[.*?\\]\\([^\\)]+\\)");
+    private static final Pattern HTML_IMAGE = Pattern.compile("<img[^>]*>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern HTML_VIDEO = Pattern.compile("<video[^>]*>.*?</video>", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern VIDEO_LINK = Pattern.compile("\\[([^\\]]*)\\]\\([^\\)]*" + VIDEO_EXTENSIONS + "[^\\)]*\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern VIDEO_URL = Pattern.compile("https?://[^\\s\\)]+" + VIDEO_EXTENSIONS, Pattern.CASE_INSENSITIVE);
+    private static final Pattern LINK = Pattern.compile("\\[([^\\]]+)\\]\\([^\\)]+\\)");
+    private static final Pattern BLANK_LINES = Pattern.compile("\n{3,}");
+
+    private MarkdownConverter() {
+    }
+
+    /**
+     * 转换正文节点
+     * @param content 正文节点
+     * @return 过滤后的 Markdown
+     */
+    static String convert(Element content) {
+        StringBuilder out = new StringBuilder();
+        appendChildren(content, out);
+        return filterLinksAndMedia(out.toString());
+    }
+
+    /**
+     * 过滤 Markdown 中的图片、视频和跳转链接，规则与 downloadToMarkdown.py 保持一致
+     */
+    static String filterLinksAndMedia(String markdown) {
+        String text = MARKDOWN_IMAGE.matcher(markdown).replaceAll("");
+        text = HTML_IMAGE.matcher(text).replaceAll("");
+        text = HTML_VIDEO.matcher(text).replaceAll("");
+        text = VIDEO_LINK.matcher(text).replaceAll("$1");
+        text = VIDEO_URL.matcher(text).replaceAll("");
+        text = LINK.matcher(text).replaceAll("$1");
+        text = BLANK_LINES.matcher(text).replaceAll("\n\n");
+
+        StringBuilder lines = new StringBuilder(text.length());
+        for (String line : text.split("\n", -1)) {
+            if (!lines.isEmpty()) {
+                lines.append('\n');
+            }
+            lines.append(line.stripTrailing());
+        }
+        return lines.toString().strip();
+    }
+
+    private static void appendChildren(Element parent, StringBuilder out) {
+        StringBuilder inline = new StringBuilder();
+        for (Node child : parent.childNodes()) {
+            if (child instanceof Element element && BLOCK_TAGS.contains(element.normalName())) {
+                appendParagraph(out, inline.toString());
+                inline.setLength(0);
+                appendBlock(element, out);
+            } else {
+                appendInline(child, inline);
+            }
+        }
+        appendParagraph(out, inline.toString());
+    }
+
+    private static void appendBlock(Element element, StringBuilder out) {
+        String tag = element.normalName();
+        switch (tag) {
+            case "h1", "h2", "h3", "h4", "h5", "h6" -> {
+                String text = inlineText(element);
+                if (!text.isEmpty()) {
+                    appendParagraph(out, "#".repeat(tag.charAt(1) - '0') + " " + text.replace('\n', ' '));
+                }
+            }
+            case "p" -> appendParagraph(out, inlineText(element));
+            case "ul", "ol" -> appendParagraph(out, listText(element, ""));
+            case "pre" -> {
+                String code = element.wholeText().strip();
+                if (!code.isEmpty()) {
+                    appendParagraph(out, "```\n" + code + "\n```");
+                }
+            }
+            case "blockquote" -> {
+                StringBuilder quote = new StringBuilder();
+                appendChildren(element, quote);
+                String text = quote.toString().strip();
+                if (!text.isEmpty()) {
+                    appendParagraph(out, "> " + text.replace("\n", "\n> "));
+                }
+            }
+            case "table" -> appendParagraph(out, tableText(element));
+            case "hr" -> {
+            }
+            default -> appendChildren(element, out);
+        }
+    }
+
+    private static void appendInline(Node node, StringBuilder out) {
+        if (node instanceof TextNode textNode) {
+            out.append(textNode.text());
+            return;
+        }
+        if (!(node instanceof Element element)) {
+            return;
+        }
+        switch (element.normalName()) {
+            case "br" -> out.append('\n');
+            case "strong", "b" -> appendWrapped(element, out, "**");
+            case "em", "i" -> appendWrapped(element, out, "*");
+            case "code" -> {
+                String code = element.text();
+                if (!code.isBlank()) {
+                    out.append('`').append(code).append('`');
+                }
+            }
+            default -> element.childNodes().forEach(child -> appendInline(child, out));
+        }
+    }
+
+    private static void appendWrapped(Element element, StringBuilder out, String marker) {
+        StringBuilder inner = new StringBuilder();
+        element.childNodes().forEach(child -> appendInline(child, inner));
+        String text = inner.toString().strip();
+        if (!text.isEmpty()) {
+            out.append(marker).append(text).append(marker);
+        }
+    }
+
+    private static String inlineText(Element element) {
+        StringBuilder text = new StringBuilder();
+        element.childNodes().forEach(child -> appendInline(child, text));
+        return normalize(text.toString());
+    }
+
+    private static String listText(Element list, String indent) {
+        boolean ordered = "ol".equals(list.normalName());
+        StringBuilder out = new StringBuilder();
+        int index = 1;
+        for (Element item : list.children()) {
+            if (!"li".equals(item.normalName())) {
+                continue;
+            }
+            StringBuilder text = new StringBuilder();
+            List<Element> nestedLists = new ArrayList<>();
+            for (Node child : item.childNodes()) {
+                if (child instanceof Element element && ("ul".equals(element.normalName()) || "ol".equals(element.normalName()))) {
+                    nestedLists.add(element);
+                } else if (child instanceof Element element && BLOCK_TAGS.contains(element.normalName())) {
+                    text.append(' ').append(inlineText(element)).append(' ');
+                } else {
+                    appendInline(child, text);
+                }
+            }
+            String itemText = normalize(text.toString()).replace("\n", " ");
+            if (!itemText.isEmpty()) {
+                if (!out.isEmpty()) {
+                    out.append('\n');
+                }
+                out.append(indent).append(ordered ? index++ + ". " : "- ").append(itemText);
+            }
+            for (Element nested : nestedLists) {
+                String nestedText = listText(nested, indent + "  ");
+                if (!nestedText.isEmpty()) {
+                    out.append('\n').append(nestedText);
+                }
+            }
+        }
+        return out.toString();
+    }
+
+    private static String tableText(Element table) {
+        StringBuilder out = new StringBuilder();
+        boolean header = true;
+        for (Element row : table.select("tr")) {
+            List<String> cells = new ArrayList<>();
+            for (Element cell : row.children()) {
+                if ("td".equals(cell.normalName()) || "th".equals(cell.normalName())) {
+                    cells.add(inlineText(cell).replace("\n", " ").replace("|", "\\|"));
+                }
+            }
+            if (cells.isEmpty()) {
+                continue;
+            }
+            out.append("| ").append(String.join(" | ", cells)).append(" |\n");
+            if (header) {
+                out.append("|").append(" --- |".repeat(cells.size())).append('\n');
+                header = false;
+            }
+        }
+        return out.toString().strip();
+    }
+
+    /**
+     * 合并连续空白，保留换行
+     */
+    private static String normalize(String text) {
+        StringBuilder out = new StringBuilder(text.length());
+        for (String line : text.split("\n")) {
+            String collapsed = line.replaceAll("[ \\t\\u00a0]+", " ").strip();
+            if (!collapsed.isEmpty()) {
+                if (!out.isEmpty()) {
+                    out.append('\n');
+                }
+                out.append(collapsed);
+            }
+        }
+        return out.toString();
+    }
+
+    private static void appendParagraph(StringBuilder out, String text) {
+        String paragraph = normalizeBlock(text);
+        if (paragraph.isEmpty()) {
+            return;
+        }
+        if (!out.isEmpty()) {
+            out.append("\n\n");
+        }
+        out.append(paragraph);
+    }
+
+    private static String normalizeBlock(String text) {
+        // 代码块、列表和表格已经在生成时处理过空白
+        if (text.startsWith("```") || text.startsWith("|") || text.startsWith("- ") || text.startsWith("> ")
+                || text.matches("(?s)^\\s*\\d+\\. .*")) {
+            return text.strip();
+        }
+        return normalize(text);
+    }
+}
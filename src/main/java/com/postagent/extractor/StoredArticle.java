@@ -0,0 +1,25 @@
+package com.postagent.extractor;
+
+import org.springframework.util.StringUtils;
+
+/**
+ * 缓存的文章
+ * @param url 文章地址
+ * @param title 文章标题
+ * @param markdown 抽取出的 Markdown
+ * @param etag 下载时响应头中的 ETag
+ * @param lastModified 下载时响应头中的 Last-Modified
+ */
+public record StoredArticle(String url, String title, String markdown, String etag, String lastModified) {
+
+    /**
+     * 是否可以发起条件请求
+     */
+    public boolean hasValidators() {
+        return StringUtils.hasText(etag) || StringUtils.hasText(lastModified);
+    }
+
+    public ExtractedArticle toArticle() {
+        return new ExtractedArticle(title, markdown);
+    }
+}
@@ -0,0 +1,176 @@
+package com.postagent.llm;
+
+import com.postagent.config.LlmConcurrencyProperties;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AIMD 并发限制
+ * 请求成功且延迟正常、并且并发已接近上限时，上限加 1/limit（约每一轮请求加 1）；
+ * 被限流或服务端错误时上限乘以 backoffRatio，延迟明显高于平均延迟时上限小幅下降。
+ * 超过上限的请求在有界队列中等待，队列满或等待超时时拒绝
+ */
+class AdaptiveLimiter {
+
+    /**
+     * 延迟偏高时的下降比例
+     */
+    private static final double SLOW_DECREASE_RATIO = 0.9;
+    /**
+     * 平均延迟的平滑系数
+     */
+    private static final double LATENCY_SMOOTHING = 0.1;
+    /**
+     * 两次因过载下降之间的最短间隔，同一批请求同时被限流时只下降一次
+     */
+    private static final long MIN_BACKOFF_INTERVAL_NANOS = 1_000_000_000L;
+
+    enum Outcome {
+        /**
+         * 成功
+         */
+        SUCCESS,
+        /**
+         * 被限流、服务端错误或超时
+         */
+        OVERLOAD,
+        /**
+         * 与后端负载无关（请求被取消、参数错误等），不调整上限
+         */
+        IGNORE
+    }
+
+    private final LlmConcurrencyProperties.Limits limits;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private double limit;
+    private double averageLatency;
+    private int inFlight;
+    private int waiting;
+    private long lastBackoffNanos;
+
+    AdaptiveLimiter(LlmConcurrencyProperties.Limits limits, double backoffRatio, double latencyTolerance) {
+        this.limits = limits;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.max(limits.getMinLimit(), Math.min(limits.getMaxLimit(), limits.getInitialLimit()));
+    }
+
+    /**
+     * 获取一个并发名额，超过上限时排队等待
+     * @throws RejectedExecutionException 队列已满
+     * @throws TimeoutException 等待超时
+     */
+    void acquire() throws InterruptedException, TimeoutException {
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return;
+            }
+            if (waiting >= limits.getQueueCapacity()) {
+                throw new RejectedExecutionException("模型调用等待队列已满：" + waiting);
+            }
+            waiting++;
+            try {
+                long nanos = limits.getMaxWait().toNanos();
+                while (inFlight >= currentLimit()) {
+                    if (nanos <= 0) {
+                        throw new TimeoutException("等待模型调用名额超时：" + limits.getMaxWait());
+                    }
+                    nanos = available.awaitNanos(nanos);
+                }
+                inFlight++;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放名额并按结果调整上限
+     * @param latencyMillis 延迟，流式调用为第一个片段的延迟，没有时为 -1
+     */
+    void release(long latencyMillis, Outcome outcome) {
+        lock.lock();
+        try {
+            int used = inFlight;
+            inFlight--;
+            switch (outcome) {
+                case OVERLOAD -> onOverload();
+                case SUCCESS -> {
+                    if (latencyMillis >= 0) {
+                        onSuccess(latencyMillis, used);
+                    }
+                }
+                case IGNORE -> {
+                }
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onOverload() {
+        long now = System.nanoTime();
+        long interval = Math.max(MIN_BACKOFF_INTERVAL_NANOS, (long) (averageLatency * 1_000_000));
+        if (lastBackoffNanos != 0 && now - lastBackoffNanos < interval) {
+            return;
+        }
+        lastBackoffNanos = now;
+        limit = Math.max(limits.getMinLimit(), limit * backoffRatio);
+    }
+
+    private void onSuccess(long latencyMillis, int used) {
+        if (averageLatency == 0) {
+            averageLatency = latencyMillis;
+            return;
+        }
+        if (latencyMillis > averageLatency * latencyTolerance) {
+            limit = Math.max(limits.getMinLimit(), limit * SLOW_DECREASE_RATIO);
+        } else if (used * 2 >= limit) {
+            // 并发没有用到一半时说明上限不是瓶颈，不再增加
+            limit = Math.min(limits.getMaxLimit(), limit + 1 / limit);
+        }
+        averageLatency += (latencyMillis - averageLatency) * LATENCY_SMOOTHING;
+    }
+
+    private int currentLimit() {
+        return Math.max(1, (int) limit);
+    }
+
+    double limit() {
+        lock.lock();
+        try {
+            return limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int waiting() {
+        lock.lock();
+        try {
+            return waiting;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.postagent.llm;
+
+import com.postagent.config.LlmConcurrencyProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 模型调用的自适应并发限制
+ * 包装一个模型，每个模型 bean 只包装一次，所有 ChatClient 及路由模型共用同一个上限，
+ * 429/5xx 及延迟计入实际产生它们的后端。按 AIMD 根据延迟及 429/5xx 调整并发上限，超过上限的调用在有界队列中等待。
+ * 流式调用以第一个片段的延迟作为延迟信号，被取消的调用不调整上限
+ */
+@Slf4j
+public class ConcurrencyLimitedChatModel implements ChatModel {
+
+    private final String model;
+    private final ChatModel delegate;
+    private final boolean enabled;
+    private final AdaptiveLimiter limiter;
+    private final Counter rejected;
+    private final Counter overloads;
+
+    /**
+     * @param model 模型名称，用于选择配置及指标标签
+     * @param delegate 被限制的模型
+     */
+    public ConcurrencyLimitedChatModel(String model, ChatModel delegate, LlmConcurrencyProperties props,
+                                       MeterRegistry meterRegistry) {
+        this.model = model;
+        this.delegate = delegate;
+        this.enabled = props.isEnabled();
+        this.limiter = new AdaptiveLimiter(props.getLimits(model), props.getBackoffRatio(), props.getLatencyTolerance());
+        Gauge.builder("llm.concurrency.limit", limiter, AdaptiveLimiter::limit).tag("model", model).register(meterRegistry);
+        Gauge.builder("llm.concurrency.inflight", limiter, AdaptiveLimiter::inFlight).tag("model", model).register(meterRegistry);
+        Gauge.builder("llm.concurrency.queue", limiter, AdaptiveLimiter::waiting).tag("model", model).register(meterRegistry);
+        this.rejected = meterRegistry.counter("llm.concurrency.rejected", "model", model);
+        this.overloads = meterRegistry.counter("llm.concurrency.overloads", "model", model);
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        if (!enabled) {
+            return delegate.call(prompt);
+        }
+        acquire();
+        long start = System.nanoTime();
+        try {
+            ChatResponse response = delegate.call(prompt);
+            limiter.release(millisSince(start), AdaptiveLimiter.Outcome.SUCCESS);
+            return response;
+        } catch (RuntimeException e) {
+            limiter.release(-1, classify(e));
+            throw e;
+        }
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        if (!enabled) {
+            return delegate.stream(prompt);
+        }
+        // 排队等待会阻塞，在 boundedElastic 线程中获取名额；完成、失败及取消时都释放名额
+        return Flux.usingWhen(
+                Mono.fromCallable(() -> {
+                            acquire();
+                            return new Permit();
+                        })
+                        .subscribeOn(Schedulers.boundedElastic())
+                        // 获取名额后、订阅下游之前被取消时，获取到的名额作为丢弃的值释放
+                        .doOnDiscard(Permit.class, permit -> permit.release(AdaptiveLimiter.Outcome.IGNORE)),
+                permit -> delegate.stream(prompt).doOnNext(response -> permit.onChunk()),
+                permit -> Mono.fromRunnable(() -> permit.release(AdaptiveLimiter.Outcome.SUCCESS)),
+                (permit, error) -> Mono.fromRunnable(() -> permit.release(classify(error))),
+                permit -> Mono.fromRunnable(() -> permit.release(AdaptiveLimiter.Outcome.IGNORE)));
+    }
+
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return delegate.getDefaultOptions();
+    }
+
+    private void acquire() {
+        try {
+            limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待模型调用名额时被中断", e);
+        } catch (TimeoutException | RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("模型调用被拒绝 [{}]：{}，当前上限 {}，排队 {}", model, e.getMessage(),
+                    String.format("%.1f", limiter.limit()), limiter.waiting());
+            throw e instanceof RejectedExecutionException rejection ? rejection : new RejectedExecutionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 429、5xx 及超时视为后端过载，其他异常不调整上限
+     */
+    private AdaptiveLimiter.Outcome classify(Throwable error) {
+        for (Throwable e = error; e != null; e = e.getCause() == e ? null : e.getCause()) {
+            if (isOverload(e)) {
+                overloads.increment();
+                log.info("模型后端过载 [{}]：{}，并发上限 {}", model, e.getMessage(), String.format("%.1f", limiter.limit()));
+                return AdaptiveLimiter.Outcome.OVERLOAD;
+            }
+        }
+        return AdaptiveLimiter.Outcome.IGNORE;
+    }
+
+    private static boolean isOverload(Throwable e) {
+        if (e instanceof RestClientResponseException response) {
+            return isOverload(response.getStatusCode());
+        }
+        if (e instanceof WebClientResponseException response) {
+            return isOverload(response.getStatusCode());
+        }
+        if (e instanceof TimeoutException || e instanceof SocketTimeoutException || e instanceof HttpTimeoutException) {
+            return true;
+        }
+        String message = e.getMessage();
+        if (message != null && (message.startsWith("429") || message.contains("Throttling"))) {
+            // Spring AI 把 4xx 响应包装为 NonTransientAiException，消息以状态码开头；DashScope 限流的错误码为 Throttling
+            return true;
+        }
+        // Spring AI 把 5xx 响应包装为 TransientAiException
+        return e instanceof TransientAiException;
+    }
+
+    private static boolean isOverload(HttpStatusCode status) {
+        return status.value() == 429 || status.is5xxServerError();
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * 流式调用占用的名额，记录第一个片段的延迟，只释放一次
+     */
+    private final class Permit {
+        private final long start = System.nanoTime();
+        private final AtomicLong firstChunk = new AtomicLong(-1);
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void onChunk() {
+            firstChunk.compareAndSet(-1, millisSince(start));
+        }
+
+        void release(AdaptiveLimiter.Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                limiter.release(firstChunk.get(), outcome);
+            }
+        }
+    }
+}
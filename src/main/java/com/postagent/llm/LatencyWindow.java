@@ -0,0 +1,64 @@
+package com.postagent.llm;
+
+import java.util.Arrays;
+
+/**
+ * 最近 N 次请求的延迟及成败，用于计算 p50/p99 和错误率
+ */
+class LatencyWindow {
+
+    private final long[] latencies;
+    private final boolean[] failures;
+    private int next;
+    private int count;
+
+    LatencyWindow(int size) {
+        this.latencies = new long[Math.max(1, size)];
+        this.failures = new boolean[latencies.length];
+    }
+
+    synchronized void record(long latencyMillis, boolean failed) {
+        latencies[next] = latencyMillis;
+        failures[next] = failed;
+        next = (next + 1) % latencies.length;
+        count = Math.min(count + 1, latencies.length);
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * 成功请求的延迟分位数
+     * @param quantile 0~1
+     * @return 延迟（毫秒），没有成功样本时为 0
+     */
+    synchronized long percentile(double quantile) {
+        long[] sorted = new long[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (!failures[i]) {
+                sorted[size++] = latencies[i];
+            }
+        }
+        if (size == 0) {
+            return 0;
+        }
+        Arrays.sort(sorted, 0, size);
+        int index = (int) Math.ceil(quantile * size) - 1;
+        return sorted[Math.max(0, Math.min(size - 1, index))];
+    }
+
+    synchronized double errorRate() {
+        if (count == 0) {
+            return 0;
+        }
+        int failed = 0;
+        for (int i = 0; i < count; i++) {
+            if (failures[i]) {
+                failed++;
+            }
+        }
+        return (double) failed / count;
+    }
+}
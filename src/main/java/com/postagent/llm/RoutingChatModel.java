@@ -0,0 +1,288 @@
+package com.postagent.llm;
+
+import com.postagent.config.LlmRouterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 模型路由
+ * 按最近请求的 p50/p99 延迟及错误率选择首选后端：配置的首选后端延迟超过目标或错误率过高、而另一个后端正常时改用另一个。
+ * 首选后端超过延迟目标（流式调用为第一个片段的延迟目标）仍未返回、或提前失败时，向另一个后端发送相同的请求，
+ * 取先返回结果的一方，另一方的请求被取消，被取消的一方按已等待的时间（至少为延迟目标）记录一次延迟。
+ * 请求中的通用参数（温度、最大 token 数等）由各后端与自己的默认参数合并，模型名称各后端不通用，不传给后端
+ */
+@Slf4j
+public class RoutingChatModel implements ChatModel {
+
+    private final List<Backend> backends = new ArrayList<>();
+    private final LlmRouterProperties props;
+    private final Counter hedges;
+    private final AtomicLong fallbackResponses = new AtomicLong();
+
+    /**
+     * @param models 后端名称及模型，按配置的首选后端排序
+     */
+    public RoutingChatModel(Map<String, ChatModel> models, LlmRouterProperties props, MeterRegistry meterRegistry) {
+        this.props = props;
+        models.forEach((name, model) -> backends.add(new Backend(name, model, props.getBackend(name), props.getWindowSize())));
+        backends.sort((a, b) -> Boolean.compare(!a.name.equals(props.getPrimary()), !b.name.equals(props.getPrimary())));
+        for (Backend backend : backends) {
+            backend.registerMetrics(meterRegistry);
+        }
+        this.hedges = meterRegistry.counter("llm.router.hedges");
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        Prompt request = request(prompt);
+        List<Backend> order = route(false);
+        Backend primary = order.get(0);
+        Mono<ChatResponse> first = timedCall(primary, request);
+        if (order.size() < 2 || !props.isHedgeEnabled()) {
+            return first.block();
+        }
+        Backend secondary = order.get(1);
+        Sinks.Empty<Void> primaryFailed = Sinks.empty();
+        Mono<ChatResponse> hedged = timedCall(secondary, request)
+                .delaySubscription(hedgeTrigger(primary.slo.getSlo(), primaryFailed, primary, secondary));
+        return Mono.firstWithValue(first.doOnError(e -> primaryFailed.tryEmitEmpty()), hedged)
+                .onErrorMap(RoutingChatModel::unwrapNoSuchElement)
+                .block();
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        Prompt request = request(prompt);
+        List<Backend> order = route(true);
+        Backend primary = order.get(0);
+        Flux<ChatResponse> first = timedStream(primary, request);
+        if (order.size() < 2 || !props.isHedgeEnabled()) {
+            return first;
+        }
+        Backend secondary = order.get(1);
+        Sinks.Empty<Void> primaryFailed = Sinks.empty();
+        // 只有在任何一方输出片段之前才会切换，已经输出片段后的失败直接抛出
+        Flux<ChatResponse> hedged = timedStream(secondary, request)
+                .delaySubscription(hedgeTrigger(primary.slo.getFirstChunkSlo(), primaryFailed, primary, secondary));
+        return Flux.firstWithValue(first.doOnError(e -> primaryFailed.tryEmitEmpty()), hedged)
+                .onErrorMap(RoutingChatModel::unwrapNoSuchElement);
+    }
+
+    /**
+     * 首选后端的默认参数
+     */
+    @Override
+    public ChatOptions getDefaultOptions() {
+        return backends.get(0).model.getDefaultOptions();
+    }
+
+    /**
+     * 由配置的首选后端以外的后端返回的响应数（包括路由切换及备用请求胜出），只增不减。
+     * 调用方在生成前后各取一次，不同时说明这段时间内有响应来自备用后端，其参数与 {@link #getDefaultOptions()} 不一致
+     */
+    public long fallbackResponses() {
+        return fallbackResponses.get();
+    }
+
+    /**
+     * 传给后端的请求：ChatClient 会把 {@link #getDefaultOptions()} 复制到每个请求中，与其相同的参数视为未设置；
+     * 调用方修改过的通用参数传给后端，由后端与自己的默认参数合并
+     */
+    private Prompt request(Prompt prompt) {
+        ChatOptions options = prompt.getOptions();
+        if (options == null) {
+            return new Prompt(prompt.getInstructions());
+        }
+        ChatOptions defaults = Objects.requireNonNullElseGet(getDefaultOptions(), () -> ChatOptions.builder().build());
+        ChatOptions overrides = ChatOptions.builder()
+                .temperature(override(options.getTemperature(), defaults.getTemperature()))
+                .maxTokens(override(options.getMaxTokens(), defaults.getMaxTokens()))
+                .topP(override(options.getTopP(), defaults.getTopP()))
+                .topK(override(options.getTopK(), defaults.getTopK()))
+                .frequencyPenalty(override(options.getFrequencyPenalty(), defaults.getFrequencyPenalty()))
+                .presencePenalty(override(options.getPresencePenalty(), defaults.getPresencePenalty()))
+                .stopSequences(override(options.getStopSequences(), defaults.getStopSequences()))
+                .build();
+        if (override(options.getModel(), defaults.getModel()) != null) {
+            log.debug("模型名称 {} 各后端不通用，使用后端默认模型", options.getModel());
+        }
+        boolean overridden = Stream.of(overrides.getTemperature(), overrides.getMaxTokens(), overrides.getTopP(),
+                        overrides.getTopK(), overrides.getFrequencyPenalty(), overrides.getPresencePenalty(),
+                        overrides.getStopSequences())
+                .anyMatch(Objects::nonNull);
+        return overridden ? new Prompt(prompt.getInstructions(), overrides) : new Prompt(prompt.getInstructions());
+    }
+
+    private static <T> T override(T value, T defaultValue) {
+        return value == null || value.equals(defaultValue) ? null : value;
+    }
+
+    /**
+     * 后端顺序：配置的首选后端不可用而另一个后端可用时交换
+     */
+    private List<Backend> route(boolean streaming) {
+        List<Backend> order = new ArrayList<>(backends);
+        if (order.size() > 1 && degraded(order.get(0), streaming) && !degraded(order.get(1), streaming)) {
+            Backend preferred = order.remove(1);
+            order.add(0, preferred);
+            log.info("模型后端 {} 延迟或错误率过高，本次首选 {}", order.get(1).name, preferred.name);
+        }
+        return order;
+    }
+
+    private boolean degraded(Backend backend, boolean streaming) {
+        LatencyWindow window = streaming ? backend.firstChunks : backend.calls;
+        if (window.count() < props.getMinSamples()) {
+            return false;
+        }
+        long slo = (streaming ? backend.slo.getFirstChunkSlo() : backend.slo.getSlo()).toMillis();
+        return window.errorRate() > props.getMaxErrorRate() || window.percentile(0.5) > slo;
+    }
+
+    /**
+     * 超过延迟目标或首选后端失败时触发备用请求
+     */
+    private Mono<Object> hedgeTrigger(Duration slo, Sinks.Empty<Void> primaryFailed, Backend primary, Backend secondary) {
+        return Mono.firstWithSignal(Mono.delay(slo).map(tick -> (Object) "slo"), primaryFailed.asMono().then(Mono.just("failed")))
+                .doOnNext(reason -> {
+                    hedges.increment();
+                    log.info("模型后端 {} {}，向 {} 发送备用请求", primary.name,
+                            "slo".equals(reason) ? "超过延迟目标 " + slo.toMillis() + " ms" : "调用失败", secondary.name);
+                });
+    }
+
+    private Mono<ChatResponse> timedCall(Backend backend, Prompt request) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return Mono.fromCallable(() -> backend.model.call(request))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .doOnSuccess(response -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            backend.calls.record(millisSince(start), false);
+                            won(backend);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            backend.calls.record(millisSince(start), true);
+                            log.warn("模型后端 {} 调用失败：{}", backend.name, e.getMessage());
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            cancelled(backend.calls, backend.slo.getSlo(), start);
+                            log.debug("模型后端 {} 的请求已取消", backend.name);
+                        }
+                    });
+        });
+    }
+
+    private Flux<ChatResponse> timedStream(Backend backend, Prompt request) {
+        return Flux.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            return backend.model.stream(request)
+                    .doOnNext(response -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            backend.firstChunks.record(millisSince(start), false);
+                            won(backend);
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            backend.firstChunks.record(millisSince(start), true);
+                            log.warn("模型后端 {} 流式调用失败：{}", backend.name, e.getMessage());
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            cancelled(backend.firstChunks, backend.slo.getFirstChunkSlo(), start);
+                            log.debug("模型后端 {} 的流式请求已取消", backend.name);
+                        }
+                    });
+        });
+    }
+
+    private void won(Backend backend) {
+        backend.wins.increment();
+        if (backend != backends.get(0)) {
+            fallbackResponses.incrementAndGet();
+        }
+    }
+
+    /**
+     * 返回结果之前被取消（备用请求中落后的一方）：实际延迟不小于已等待的时间，按已等待的时间记录，
+     * 不足延迟目标时按延迟目标记录，避免刚开始就被取消的请求拉低分位数；一直落后的首选后端因此会被判定为变慢
+     */
+    private static void cancelled(LatencyWindow window, Duration slo, long start) {
+        window.record(Math.max(millisSince(start), slo.toMillis()), false);
+    }
+
+    /**
+     * firstWithValue 在所有后端都失败时抛出 NoSuchElementException，取出首个后端的异常
+     */
+    private static Throwable unwrapNoSuchElement(Throwable e) {
+        if (e instanceof NoSuchElementException && e.getSuppressed().length > 0) {
+            return e.getSuppressed()[0];
+        }
+        return e;
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static final class Backend {
+        private final String name;
+        private final ChatModel model;
+        private final LlmRouterProperties.Backend slo;
+        private final LatencyWindow calls;
+        private final LatencyWindow firstChunks;
+        private Counter wins;
+
+        private Backend(String name, ChatModel model, LlmRouterProperties.Backend slo, int windowSize) {
+            this.name = name;
+            this.model = model;
+            this.slo = slo;
+            this.calls = new LatencyWindow(windowSize);
+            this.firstChunks = new LatencyWindow(windowSize);
+        }
+
+        private void registerMetrics(MeterRegistry registry) {
+            wins = registry.counter("llm.router.responses", "backend", name);
+            Gauge.builder("llm.router.latency", calls, window -> window.percentile(0.5))
+                    .tags("backend", name, "quantile", "p50", "mode", "call").baseUnit("milliseconds").register(registry);
+            Gauge.builder("llm.router.latency", calls, window -> window.percentile(0.99))
+                    .tags("backend", name, "quantile", "p99", "mode", "call").baseUnit("milliseconds").register(registry);
+            Gauge.builder("llm.router.latency", firstChunks, window -> window.percentile(0.5))
+                    .tags("backend", name, "quantile", "p50", "mode", "first_chunk").baseUnit("milliseconds").register(registry);
+            Gauge.builder("llm.router.latency", firstChunks, window -> window.percentile(0.99))
+                    .tags("backend", name, "quantile", "p99", "mode", "first_chunk").baseUnit("milliseconds").register(registry);
+            Gauge.builder("llm.router.error.rate", calls, LatencyWindow::errorRate)
+                    .tags("backend", name, "mode", "call").register(registry);
+            Gauge.builder("llm.router.error.rate", firstChunks, LatencyWindow::errorRate)
+                    .tags("backend", name, "mode", "first_chunk").register(registry);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.postagent.model;
+
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * 热门帖子摘要信息
+ * @param id 帖子id
+ * @param rank 在热门列表中的排名，从0开始
+ * @param score 帖子分数
+ * @param title 帖子标题
+ * @param url 帖子链接
+ */
+public record HotPost(long id, int rank, int score, String title, String url) {
+
+    public static HotPost of(int rank, JSONObject item) {
+        return new HotPost(item.getLongValue("id"), rank, item.getIntValue("score"),
+                item.getString("title"), item.getString("url"));
+    }
+
+    public HotPost withRank(int newRank) {
+        return newRank == rank ? this : new HotPost(id, newRank, score, title, url);
+    }
+}
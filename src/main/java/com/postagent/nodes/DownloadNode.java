@@ -3,17 +3,29 @@ package com.postagent.nodes;
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.StateGraph;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.postagent.collector.SourceAdapterRegistry;
+import com.postagent.common.AtomicFiles;
+import com.postagent.config.DownloadProperties;
+import com.postagent.entity.PostTask;
+import com.postagent.extractor.ArticleExtractor;
+import com.postagent.extractor.ArticleStore;
+import com.postagent.extractor.ExtractedArticle;
+import com.postagent.extractor.FetchedPage;
+import com.postagent.extractor.StoredArticle;
+import com.postagent.service.ArtifactWorkspace;
 import com.postagent.service.PythonScriptService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.io.File;
 import java.io.IOException;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 下载节点 将指定url中的文本内容提取为markdown格式并下载到本地
@@ -25,8 +37,17 @@ public class DownloadNode implements NodeAction {
     @Resource
     private PythonScriptService pythonScriptService;
 
-    // 脚本输出路径
-    private static final String DOWNLOAD_DIR_NAME = System.getProperty("user.dir") + File.separator + "out";
+    @Resource
+    private ArticleExtractor articleExtractor;
+
+    @Resource
+    private DownloadProperties downloadProperties;
+
+    @Resource
+    private ArticleStore articleStore;
+
+    @Resource
+    private ArtifactWorkspace artifactWorkspace;
 
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
@@ -36,14 +57,54 @@ public class DownloadNode implements NodeAction {
                 .orElseThrow(() -> new IllegalArgumentException("collectedUrl is empty"))
                 .toString();
 
-        // 格式化当前时间为字符串作为文件名
-        LocalDateTime now = LocalDateTime.now();
-        String downloadDirName = now.format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        // 写入数据的文件目录
-        String targetDir = DOWNLOAD_DIR_NAME + File.separator + downloadDirName;
-        boolean mkdirsed = new File(targetDir).mkdirs();
-        if (!mkdirsed) {
-            throw new IOException("Failed to create directory: " + targetDir);
+        // 运行目录由任务服务分配并在工作流结束后提交，单独运行时在这里分配
+        PostTask taskObject = (PostTask) state.value("task_object").orElse(new PostTask());
+        Optional<Object> outputDirectory = state.value("output_directory");
+        String targetDir = outputDirectory.isPresent()
+                ? outputDirectory.get().toString()
+                : artifactWorkspace.allocateCommitted(taskObject.getId()).toString();
+
+        // 先查询文章缓存，缓存有 ETag/Last-Modified 时发起条件请求，页面没有变化则跳过下载和抽取；
+        // 没有缓存时只有 Java 引擎需要先下载页面，python 脚本自己下载，避免同一页面下载两次
+        // 与采集节点一样，未指定数据源时按默认数据源选择引擎
+        DownloadProperties.Engine engine = downloadProperties.getEngine(
+                SourceAdapterRegistry.resolveOrigin(taskObject.getTargetOrigin()));
+        Optional<StoredArticle> cached = articleStore.get(collectedUrl);
+        StoredArticle validators = cached.filter(StoredArticle::hasValidators).orElse(null);
+        FetchedPage page = null;
+        if (validators != null || engine == DownloadProperties.Engine.JAVA) {
+            try {
+                page = validators == null
+                        ? articleExtractor.download(collectedUrl, null, null)
+                        : articleExtractor.download(collectedUrl, validators.etag(), validators.lastModified());
+            } catch (IOException e) {
+                log.warn("下载页面失败：{}", e.getMessage());
+            }
+        }
+        if (page != null && page.notModified() && cached.isPresent()) {
+            ExtractedArticle article = cached.get().toArticle();
+            Path markdownFile = saveMarkdown(article, targetDir);
+            log.info("\uD83D\uDCD6页面未变化，使用缓存的文章");
+            log.info("✅下载的.md文件存储路径：{}", markdownFile);
+            return Map.of("targetDir", targetDir, "markdown", article.markdown(), "nextNode", "summarize_agent");
+        }
+
+        // 按数据源选择正文抽取引擎，Java 引擎失败时退回 python 脚本
+        if (engine == DownloadProperties.Engine.JAVA) {
+            try {
+                ExtractedArticle article = page != null && !page.notModified()
+                        ? articleExtractor.extract(page, collectedUrl)
+                        : articleExtractor.extract(collectedUrl);
+                Path markdownFile = saveMarkdown(article, targetDir);
+                if (page != null) {
+                    articleStore.put(collectedUrl, article, page.etag(), page.lastModified());
+                }
+                log.info("\uD83D\uDCD6下载成功");
+                log.info("✅下载的.md文件存储路径：{}", markdownFile);
+                return Map.of("targetDir", targetDir, "markdown", article.markdown(), "nextNode", "summarize_agent");
+            } catch (IOException | RuntimeException e) {
+                log.warn("Java 正文抽取失败，改用 python 脚本：{}", e.getMessage());
+            }
         }
 
         // 执行python脚本
@@ -53,9 +114,49 @@ public class DownloadNode implements NodeAction {
             log.error("下载失败：{}", e.getMessage());
             return Map.of("targetDir", e.getMessage(), "nextNode", StateGraph.END);
         }
+        if (articleStore.isEnabled()) {
+            storeScriptOutput(collectedUrl, targetDir, page);
+        }
         log.info("\uD83D\uDCD6下载成功");
         log.info("✅下载的.md文件存储路径：{}", targetDir);
         return Map.of("targetDir", targetDir, "nextNode", "summarize_agent");
     }
 
-}
\ No newline at end of file
+    /**
+     * 缓存 python 脚本生成的 Markdown，校验信息使用本次下载页面的响应头，
+     * 没有下载页面时只请求响应头
+     */
+    private void storeScriptOutput(String url, String targetDir, FetchedPage page) {
+        try (Stream<Path> files = Files.list(Path.of(targetDir))) {
+            Optional<Path> markdownFile = files.filter(path -> path.getFileName().toString().endsWith(".md")).findFirst();
+            if (markdownFile.isPresent()) {
+                String filename = markdownFile.get().getFileName().toString();
+                String title = filename.substring(0, filename.length() - ".md".length());
+                String markdown = Files.readString(markdownFile.get(), StandardCharsets.UTF_8);
+                FetchedPage validators = page != null ? page : articleExtractor.fetchValidators(url);
+                articleStore.put(url, new ExtractedArticle(title, markdown), validators.etag(), validators.lastModified());
+            }
+        } catch (IOException e) {
+            log.warn("缓存下载结果失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 保存 Markdown 文件，文件名规则与 downloadToMarkdown.py 一致
+     */
+    private Path saveMarkdown(ExtractedArticle article, String targetDir) throws IOException {
+        String filename = article.title().replaceAll("[\\\\/:*?\"<>|]", " ").replaceAll("\\s+", " ").strip();
+        if (filename.length() > 120) {
+            filename = filename.substring(0, 120);
+        }
+        if (filename.isEmpty()) {
+            filename = "untitled";
+        }
+        Path path = Path.of(targetDir, filename + ".md");
+        for (int i = 2; Files.exists(path); i++) {
+            path = Path.of(targetDir, filename + "-" + i + ".md");
+        }
+        return AtomicFiles.writeString(path, article.markdown());
+    }
+
+}
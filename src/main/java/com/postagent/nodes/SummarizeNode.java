@@ -2,19 +2,32 @@ package com.postagent.nodes;
 
 import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
+import com.postagent.entity.PostTask;
+import com.postagent.llm.RoutingChatModel;
+import com.postagent.service.ChunkedSummarizer;
+import com.postagent.service.CoverPrefetcher;
+import com.postagent.service.MarkdownCompactor;
 import com.postagent.service.PromptService;
+import com.postagent.service.SummaryCache;
+import com.postagent.service.SummaryCascade;
+import com.postagent.service.SummaryJsonParser;
+import com.postagent.service.SummaryStreamHub;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * 总结节点 对收集到的文本内容进行总结
@@ -24,39 +37,154 @@ import java.util.Objects;
 @Slf4j
 @Component
 public class SummarizeNode implements NodeAction {
-    @Resource(name = "writingChatClient")
-    private ChatClient chatClient;
+    private static final String ADHOC_STREAM_KEY = "adhoc";
+
+    @Resource(name = "routingChatModel")
+    private RoutingChatModel routingChatModel;
 
     @Resource
     private PromptService promptService;
 
+    @Resource
+    private MarkdownCompactor markdownCompactor;
+
+    @Resource
+    private SummaryCache summaryCache;
+
+    @Resource
+    private ChunkedSummarizer chunkedSummarizer;
+
+    @Resource
+    private SummaryCascade summaryCascade;
+
+    @Resource
+    private SummaryStreamHub summaryStreamHub;
+
+    @Resource
+    private CoverPrefetcher coverPrefetcher;
+
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
         log.info("======SummarizeNode apply start======");
         String targetDir = state.value("targetDir")
                 .orElseThrow(() -> new IllegalArgumentException("targetDir is empty"))
                 .toString();
-        // 目前设计的上一个节点只提供一个url，所以直接取第一个文件
-        List<String> textList = getTextFromFile(targetDir);
+        // 下载节点已经把正文放入状态时直接使用，否则读取目录中的所有 md 文件
+        List<String> textList = state.value("markdown")
+                .map(markdown -> List.of(markdown.toString()))
+                .orElse(null);
+        if (textList == null) {
+            textList = getTextFromFile(targetDir);
+        }
         if (textList.isEmpty()) {
             throw new IllegalArgumentException("textList is empty");
         }
-        // 生成小红书文案
         String systemPrompt = promptService.getXhsSummaryPrompt("");
-        String result = chatClient.prompt()
-                .system(systemPrompt)
-                .user(textList.get(0))
-                .call()
-                .content();
-
-        if (!StringUtils.hasText(result)) {
-            throw new IllegalArgumentException("AI output is empty");
+        String streamKey = streamKey(state);
+        ChatOptions options = routingChatModel.getDefaultOptions();
+        long fallbackResponses = routingChatModel.fallbackResponses();
+        String cacheKey;
+        String result;
+        summaryStreamHub.start(streamKey);
+        // 开始推送后的任何异常都要通知订阅者，否则订阅者会一直等到超时
+        try {
+            // 去掉正文中价值较低的内容，按模型的输入预算截断
+            MarkdownCompactor.Compacted compacted = markdownCompactor.compact(textList, options == null ? null : options.getModel());
+            if (compacted.documents().isEmpty()) {
+                throw new IllegalArgumentException("textList is empty after compaction");
+            }
+            // 相同正文、提示词及模型参数已生成过文案时直接使用
+            boolean cascade = summaryCascade.isEnabled();
+            cacheKey = summaryCache.key(String.join("\n\n", compacted.documents()),
+                    cascade ? summaryCascade.cacheSignature() : systemPrompt, options);
+            Optional<String> cached = summaryCache.get(cacheKey);
+            if (cached.isPresent()) {
+                summaryStreamHub.complete(streamKey, cached.get());
+                log.info("✅命中文案缓存：{}", cacheKey);
+                return Map.of("summary_content", cached.get());
+            }
+
+            // 生成小红书文案，长文分段提炼后再生成，最终生成阶段的片段实时推送给订阅者；
+            // 分级生成时标题和表情由便宜模型生成，推送的是正文片段。标题生成后立即提前渲染封面
+            String collectedTitle = state.value("collectedTitle").map(Object::toString).orElse(null);
+            Consumer<List<String>> onTitle = titles -> prefetchCover(targetDir, collectedTitle, titles);
+            if (cascade) {
+                result = summaryCascade.summarize(compacted.documents(), compacted.savedTokens(),
+                        delta -> summaryStreamHub.append(streamKey, delta), onTitle);
+            } else {
+                // 边生成边解析，每个字段完整时检查格式
+                SummaryJsonParser parser = new SummaryJsonParser(onTitle);
+                chunkedSummarizer.summarize(systemPrompt, compacted.documents(), compacted.savedTokens(), delta -> {
+                    summaryStreamHub.append(streamKey, delta);
+                    parser.accept(delta);
+                });
+                result = repair(parser.finish(), compacted, onTitle);
+            }
+            if (!StringUtils.hasText(result)) {
+                throw new IllegalArgumentException("AI output is empty");
+            }
+        } catch (RuntimeException e) {
+            summaryStreamHub.fail(streamKey, e.getMessage());
+            throw e;
+        }
+        summaryStreamHub.complete(streamKey, result);
+        // 缓存 key 及模型标记使用首选后端的参数，生成期间有响应来自备用后端时不缓存
+        if (routingChatModel.fallbackResponses() == fallbackResponses) {
+            summaryCache.put(cacheKey, options == null ? null : options.getModel(), result);
+        } else {
+            log.info("文案生成期间有响应来自备用模型后端，不写入缓存");
         }
 
         log.info("✅AI输出的小红书文案：\n {}", result);
         return Map.of("summary_content", result);
     }
 
+    /**
+     * 不符合格式的字段单独重新生成，其他字段保留
+     * @return 符合格式的文案 JSON
+     */
+    private String repair(SummaryJsonParser.Result parsed, MarkdownCompactor.Compacted compacted,
+                          Consumer<List<String>> onTitle) {
+        if (parsed.violations().isEmpty()) {
+            return parsed.toJson();
+        }
+        log.warn("AI输出的文案不符合格式：{}", parsed.violations());
+        if (parsed.titles() == null) {
+            log.info("重新生成标题");
+            parsed = parsed.withTitles(summaryCascade.regenerateTitles(compacted.documents()));
+            onTitle.accept(parsed.titles());
+        }
+        if (parsed.summary() == null) {
+            log.info("重新生成正文");
+            parsed = parsed.withSummary(summaryCascade.regenerateBody(compacted.documents(), compacted.savedTokens()));
+        }
+        return parsed.summary() == null ? null : parsed.toJson();
+    }
+
+    /**
+     * 提前渲染封面，没有收集标题（单独运行）时跳过
+     */
+    private void prefetchCover(String targetDir, String collectedTitle, List<String> titles) {
+        if (collectedTitle == null) {
+            return;
+        }
+        try {
+            coverPrefetcher.prefetch(targetDir, collectedTitle, titles.get(0));
+        } catch (RuntimeException e) {
+            log.warn("提前渲染封面失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 推送文案的订阅key，使用任务id，单独运行时为 adhoc
+     */
+    private static String streamKey(OverAllState state) {
+        return state.value("task_object")
+                .map(task -> ((PostTask) task).getId())
+                .map(String::valueOf)
+                .orElse(ADHOC_STREAM_KEY);
+    }
+
     /**
      * 从指定目录读取文件
      * @param targetDir 目标目录
@@ -69,7 +197,10 @@ public class SummarizeNode implements NodeAction {
         }
         List<String> fileToTextList = new ArrayList<>();
         // 遍历目录下的所有文件，读取文件内容并添加到列表中
-        for (File file : Objects.requireNonNull(dictionary.listFiles())) {
+        File[] files = Objects.requireNonNull(dictionary.listFiles());
+        // 按文件名排序，多个文件时顺序稳定
+        Arrays.sort(files, Comparator.comparing(File::getName));
+        for (File file : files) {
             // 只读取md文件
             if (!file.getName().endsWith(".md")) {
                 continue;
@@ -4,15 +4,25 @@ import com.alibaba.cloud.ai.graph.OverAllState;
 import com.alibaba.cloud.ai.graph.action.NodeAction;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.postagent.config.RenderProperties;
+import com.postagent.render.ContentPaginator;
+import com.postagent.render.ImageOutputStage;
+import com.postagent.render.RenderExecutor;
+import com.postagent.service.CoverPrefetcher;
 import com.postagent.service.PythonScriptService;
+import com.postagent.service.RenderService;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 转换节点 将总结好的文案转换为图片
@@ -24,6 +34,24 @@ public class TransformNode implements NodeAction {
     @Resource
     private PythonScriptService pythonScriptService;
 
+    @Resource
+    private RenderService renderService;
+
+    @Resource
+    private CoverPrefetcher coverPrefetcher;
+
+    @Resource
+    private ContentPaginator contentPaginator;
+
+    @Resource
+    private RenderProperties renderProperties;
+
+    @Resource
+    private RenderExecutor renderExecutor;
+
+    @Resource
+    private ImageOutputStage imageOutputStage;
+
     @Override
     public Map<String, Object> apply(OverAllState state) throws Exception {
         log.info("======transformNode apply start======");
@@ -32,13 +60,124 @@ public class TransformNode implements NodeAction {
         String targetDir = state.value("targetDir").get().toString();
 
         JSONObject aiResult = JSON.parseObject(summaryContent);
-        generateCoverImage(aiResult, collectedTitle, targetDir);
-        generateContentImage(aiResult, collectedTitle, targetDir);
+        String coverTitle = aiResult.getJSONArray("title").getString(0);
+        // 封面和内容图片同时生成，总结节点已提前提交封面时直接使用，内容按页分批并行渲染，每个任务失败时单独改用脚本生成
+        List<ImageTask> tasks = new ArrayList<>();
+        tasks.add(new ImageTask("封面", withFallback(coverPrefetcher.take(coverTitle, collectedTitle, targetDir), "封面",
+                () -> generateCoverImage(aiResult, collectedTitle, targetDir))));
+        tasks.addAll(submitContent(aiResult, collectedTitle, targetDir));
+        awaitAll(tasks);
+        // 按配置的格式重新编码并生成缩略图
+        List<Path> images = imageOutputStage.process(Path.of(targetDir), collectedTitle);
 
-        log.info("✅图片存储路径：{}", targetDir);
+        log.info("✅图片存储路径：{}，图片 {} 张", targetDir, images.size());
         return Map.of();
     }
 
+    /**
+     * 提交内容任务：内容在 JVM 内分页后每 chunkPages 页作为一个任务并行渲染；
+     * 分页不可用时整体交给浏览器测量分页
+     */
+    private List<ImageTask> submitContent(JSONObject aiResult, String collectedTitle, String targetDir) {
+        String summary = aiResult.getString("summary");
+        String name = collectedTitle + "_content";
+        if (!contentPaginator.isAvailable()) {
+            CompletableFuture<List<Path>> content = renderService.isEnabled()
+                    ? renderService.submit(RenderService.RenderJob.content(summary, name, targetDir))
+                    : null;
+            return List.of(new ImageTask("内容", withFallback(content, "内容",
+                    () -> generateContentImage(aiResult, collectedTitle, targetDir, null, 1))));
+        }
+
+        List<List<String>> pages = contentPaginator.paginate(summary);
+        int chunkPages = Math.max(1, renderProperties.getChunkPages());
+        List<ImageTask> tasks = new ArrayList<>();
+        for (int from = 0; from < pages.size(); from += chunkPages) {
+            List<List<String>> chunk = pages.subList(from, Math.min(from + chunkPages, pages.size()));
+            int startPage = from + 1;
+            String label = "内容第 " + startPage + "-" + (startPage + chunk.size() - 1) + " 页";
+            CompletableFuture<List<Path>> content = renderService.isEnabled()
+                    ? renderService.submit(RenderService.RenderJob.pages(chunk, startPage, name, targetDir))
+                    : null;
+            tasks.add(new ImageTask(label, withFallback(content, label,
+                    () -> generateContentImage(aiResult, collectedTitle, targetDir, chunk, startPage))));
+        }
+        return tasks;
+    }
+
+    /**
+     * 任务失败或为空时在图片生成线程池中执行脚本
+     * @param future 图片任务，为空时直接执行脚本
+     * @param label 任务名称
+     * @param script 生成图片的脚本
+     */
+    private CompletableFuture<List<Path>> withFallback(CompletableFuture<List<Path>> future, String label, ImageScript script) {
+        if (future == null) {
+            return CompletableFuture.supplyAsync(() -> runScript(script), renderExecutor.executor());
+        }
+        return future.exceptionallyAsync(e -> {
+            log.warn("{}图片生成失败，改用脚本生成：{}", label, unwrap(e).getMessage());
+            return runScript(script);
+        }, renderExecutor.executor());
+    }
+
+    private static List<Path> runScript(ImageScript script) {
+        try {
+            script.run();
+            return List.of();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 等待全部图片任务完成，所有失败合并为一个异常
+     * @throws RenderService.RenderException 任一任务（包括脚本兜底）失败
+     */
+    private void awaitAll(List<ImageTask> tasks) {
+        List<String> failures = new ArrayList<>();
+        List<Throwable> causes = new ArrayList<>();
+        for (ImageTask task : tasks) {
+            try {
+                List<Path> files = task.future().join();
+                log.info("✅{}图片：{}", task.label(), files.isEmpty() ? "脚本生成" : files);
+            } catch (CompletionException e) {
+                Throwable cause = unwrap(e);
+                failures.add(task.label() + "（" + cause.getMessage() + "）");
+                causes.add(cause);
+            }
+        }
+        if (!failures.isEmpty()) {
+            RenderService.RenderException exception = new RenderService.RenderException("图片生成失败：" + String.join("；", failures));
+            causes.forEach(exception::addSuppressed);
+            throw exception;
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * 图片任务
+     * @param label 任务名称
+     * @param future 生成的图片路径，由脚本生成时为空列表
+     */
+    private record ImageTask(String label, CompletableFuture<List<Path>> future) {
+    }
+
+    /**
+     * 生成图片的脚本调用
+     */
+    @FunctionalInterface
+    private interface ImageScript {
+        void run() throws IOException;
+    }
+
     /**
      * 生成封面图片
      * @param aiResult 包含标题和emoji的json对象
@@ -70,15 +209,25 @@ public class TransformNode implements NodeAction {
      * @param aiResult 包含标题和emoji的json对象
      * @param collectedTitle 收集到的标题
      * @param targetDir 目标目录
+     * @param pages 已分页的内容，为空时由脚本测量分页
+     * @param startPage pages 中第一页的页码
      * @throws IOException 生成图片时出现异常
      */
-    private void generateContentImage(JSONObject aiResult, String collectedTitle, String targetDir) throws IOException {
+    private void generateContentImage(JSONObject aiResult, String collectedTitle, String targetDir,
+                                      List<List<String>> pages, int startPage) throws IOException {
         String content = aiResult.getString("summary");
         // 拼接命令参数列表
         List<String> argList = new ArrayList<>();
         // 图片内容
-        argList.add("--content");
-        argList.add(content);
+        if (pages != null) {
+            argList.add("--pages");
+            argList.add(JSON.toJSONString(pages));
+            argList.add("--start-page");
+            argList.add(String.valueOf(startPage));
+        } else {
+            argList.add("--content");
+            argList.add(content);
+        }
         // 图片名称
         argList.add("--name");
         argList.add(collectedTitle + "_content");
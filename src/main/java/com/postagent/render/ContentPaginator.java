@@ -0,0 +1,269 @@
+package com.postagent.render;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.postagent.common.AtomicFiles;
+import com.postagent.config.PythonProperties;
+import com.postagent.config.RenderProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineBreakMeasurer;
+import java.awt.font.TextAttribute;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.AttributedString;
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 内容图片分页
+ * 按 content_template.html 的样式（45px 字号、1.8 倍行高、2px 字间距、920px 宽、段落间距 40px）
+ * 用 Java2D 的字体度量计算每个段落的行数，一次遍历得到分页结果，浏览器只渲染最终的页面。
+ * 段落行数以 (段落, 宽度) 为 key 缓存，缓存文件按模板及字体的指纹区分，模板或字体不变时跨运行复用
+ */
+@Slf4j
+@Component
+public class ContentPaginator {
+
+    private static final int CONTENT_WIDTH = 920;
+    private static final int MAX_CONTENT_HEIGHT = 1240;
+    private static final float FONT_SIZE = 45f;
+    private static final float CODE_FONT_SIZE = FONT_SIZE * 0.9f;
+    private static final int LINE_HEIGHT = Math.round(FONT_SIZE * 1.8f);
+    private static final int PARAGRAPH_MARGIN = 40;
+    private static final float LETTER_SPACING = 2f;
+    private static final int MAX_PAGES = 100;
+    private static final String TEMPLATE = "content_template.html";
+    /**
+     * 排版规则变化时修改版本号，使旧的缓存失效
+     */
+    private static final String LAYOUT_VERSION = "1";
+
+    private static final FontRenderContext FRC = new FontRenderContext(null, true, true);
+
+    private final FontCache fontCache;
+    private final RenderProperties props;
+    private final PythonProperties pythonProperties;
+    private final Cache<String, Integer> lineCounts;
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private Path cacheFile;
+
+    public ContentPaginator(FontCache fontCache, RenderProperties props, PythonProperties pythonProperties,
+                            MeterRegistry meterRegistry) {
+        this.fontCache = fontCache;
+        this.props = props;
+        this.pythonProperties = pythonProperties;
+        this.lineCounts = Caffeine.newBuilder()
+                .maximumSize(props.getLayoutCacheSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, lineCounts, "render.layout");
+    }
+
+    /**
+     * 按模板及字体计算缓存指纹，加载对应的缓存文件
+     */
+    @PostConstruct
+    public void load() {
+        if (!props.isNativePagination()) {
+            return;
+        }
+        try {
+            cacheFile = props.getLayoutCacheDir().resolve(fingerprint() + ".json");
+            if (Files.exists(cacheFile)) {
+                Map<String, Integer> saved = JSON.parseObject(Files.readString(cacheFile), new TypeReference<Map<String, Integer>>() {
+                });
+                lineCounts.putAll(saved);
+                log.info("排版缓存已加载：{}，条目数：{}", cacheFile, saved.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("加载排版缓存失败：{}", e.getMessage());
+        }
+    }
+
+    public boolean isAvailable() {
+        return props.isNativePagination()
+                && fontCache.getFont(FontCache.REGULAR, FONT_SIZE).isPresent()
+                && fontCache.getFont(FontCache.BOLD, FONT_SIZE).isPresent();
+    }
+
+    /**
+     * 内容分页
+     * @param content 内容文本，段落之间以空行分隔，支持 content_transform.py 相同的 Markdown 语法
+     * @return 每一页的段落 HTML
+     */
+    public List<List<String>> paginate(String content) {
+        long start = System.nanoTime();
+        Fonts fonts = fonts();
+        List<List<String>> pages = new ArrayList<>();
+        List<String> page = new ArrayList<>();
+        int height = 0;
+        int measured = 0;
+        for (String block : content.replace("\\n", "\n").split("\n\n")) {
+            if (block.isBlank()) {
+                continue;
+            }
+            ContentParagraph paragraph = ContentParagraph.parse(block.strip());
+            while (paragraph != null && !paragraph.isEmpty() && pages.size() < MAX_PAGES) {
+                String html = paragraph.toHtml();
+                String key = sha256(html) + "@" + CONTENT_WIDTH;
+                Integer cached = lineCounts.getIfPresent(key);
+                int lines;
+                if (cached == null) {
+                    lines = breakLines(paragraph, fonts).size();
+                    lineCounts.put(key, lines);
+                    dirty.set(true);
+                    measured++;
+                } else {
+                    lines = cached;
+                }
+
+                int needed = (page.isEmpty() ? 0 : height + PARAGRAPH_MARGIN) + lines * LINE_HEIGHT;
+                if (needed <= MAX_CONTENT_HEIGHT) {
+                    page.add(html);
+                    height = needed;
+                    paragraph = null;
+                } else if (!page.isEmpty()) {
+                    // 与原脚本一致，放不下的段落整体移到下一页
+                    pages.add(page);
+                    page = new ArrayList<>();
+                    height = 0;
+                } else {
+                    // 单个段落超过一页时按行拆分
+                    List<Integer> lineEnds = breakLines(paragraph, fonts);
+                    int fit = Math.max(1, MAX_CONTENT_HEIGHT / LINE_HEIGHT);
+                    ContentParagraph[] parts = paragraph.splitAt(lineEnds.get(Math.min(fit, lineEnds.size()) - 1));
+                    pages.add(List.of(parts[0].toHtml()));
+                    paragraph = parts[1];
+                }
+            }
+        }
+        if (!page.isEmpty() && pages.size() < MAX_PAGES) {
+            pages.add(page);
+        }
+        if (measured > 0) {
+            save();
+        }
+        log.info("内容分页完成：{} 页，新测量段落 {} 个，耗时 {} ms", pages.size(), measured,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return pages;
+    }
+
+    /**
+     * 计算段落每一行的结束位置，段落内的换行强制换行
+     */
+    List<Integer> breakLines(ContentParagraph paragraph, Fonts fonts) {
+        String text = paragraph.text();
+        List<Integer> lineEnds = new ArrayList<>();
+        int lineStart = 0;
+        while (lineStart <= text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = text.length();
+            }
+            if (lineEnd == lineStart) {
+                lineEnds.add(lineEnd);
+            } else {
+                AttributedString attributed = new AttributedString(text.substring(lineStart, lineEnd));
+                // 相同样式的连续字符作为一段设置字体
+                int runStart = lineStart;
+                for (int i = lineStart + 1; i <= lineEnd; i++) {
+                    if (i < lineEnd && paragraph.styleAt(i) == paragraph.styleAt(runStart)) {
+                        continue;
+                    }
+                    Font font = fonts.forStyle(paragraph.styleAt(runStart));
+                    attributed.addAttribute(TextAttribute.FONT, font, runStart - lineStart, i - lineStart);
+                    attributed.addAttribute(TextAttribute.TRACKING, LETTER_SPACING / font.getSize2D(), runStart - lineStart, i - lineStart);
+                    runStart = i;
+                }
+                LineBreakMeasurer measurer = new LineBreakMeasurer(attributed.getIterator(),
+                        BreakIterator.getLineInstance(Locale.CHINA), FRC);
+                int length = lineEnd - lineStart;
+                while (measurer.getPosition() < length) {
+                    int next = measurer.nextOffset(CONTENT_WIDTH);
+                    measurer.setPosition(next);
+                    lineEnds.add(lineStart + next);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return lineEnds;
+    }
+
+    private Fonts fonts() {
+        Font regular = fontCache.getFont(FontCache.REGULAR, FONT_SIZE)
+                .orElseThrow(() -> new IllegalStateException("字体不存在：" + FontCache.REGULAR));
+        Font bold = fontCache.getFont(FontCache.BOLD, FONT_SIZE)
+                .orElseThrow(() -> new IllegalStateException("字体不存在：" + FontCache.BOLD));
+        Font code = new Font(Font.MONOSPACED, Font.PLAIN, 1).deriveFont(CODE_FONT_SIZE);
+        return new Fonts(regular, bold, code);
+    }
+
+    private String fingerprint() throws IOException {
+        StringBuilder source = new StringBuilder("v").append(LAYOUT_VERSION);
+        Path template = pythonProperties.getScriptDir().resolve(TEMPLATE);
+        if (Files.exists(template)) {
+            source.append(Files.readString(template));
+        }
+        for (String fontFile : List.of(FontCache.REGULAR, FontCache.BOLD)) {
+            Path font = props.getFontDir().resolve(fontFile);
+            source.append('|').append(fontFile).append(':').append(Files.exists(font) ? Files.size(font) : -1);
+        }
+        return sha256(source.toString()).substring(0, 16);
+    }
+
+    @PreDestroy
+    public void save() {
+        if (cacheFile == null || !dirty.compareAndSet(true, false)) {
+            return;
+        }
+        try {
+            Files.createDirectories(cacheFile.getParent());
+            AtomicFiles.writeString(cacheFile, JSON.toJSONString(lineCounts.asMap()));
+        } catch (IOException e) {
+            dirty.set(true);
+            log.warn("保存排版缓存失败：{}", e.getMessage());
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 模板中使用的字体：正文、加粗、行内代码
+     */
+    record Fonts(Font regular, Font bold, Font code) {
+
+        Font forStyle(int style) {
+            if ((style & ContentParagraph.CODE) != 0) {
+                return code;
+            }
+            return (style & ContentParagraph.STRONG) != 0 ? bold : regular;
+        }
+    }
+}
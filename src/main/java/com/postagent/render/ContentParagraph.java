@@ -0,0 +1,175 @@
+package com.postagent.render;
+
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * 内容图片中的一个段落
+ * 按 content_transform.py 的规则解析 Markdown（行内代码、加粗、斜体），保存纯文本及每个字符的样式，
+ * 用于测量排版高度、按行拆分段落以及生成模板使用的 HTML
+ */
+final class ContentParagraph {
+
+    static final int STRONG = 1;
+    static final int EM = 1 << 1;
+    static final int CODE = 1 << 2;
+
+    private static final char STRONG_START = '\uE000';
+    private static final char STRONG_END = '\uE001';
+    private static final char EM_START = '\uE002';
+    private static final char EM_END = '\uE003';
+    private static final char CODE_START = '\uE004';
+    private static final char CODE_END = '\uE005';
+
+    private static final Pattern CODE_PATTERN = Pattern.compile("`([^`]+)`");
+    private static final Pattern STRONG_STAR_PATTERN = Pattern.compile("\\*\\*([^*]+)\\*\\*");
+    private static final Pattern STRONG_UNDERSCORE_PATTERN = Pattern.compile("__([^_]+)__");
+    private static final Pattern EM_STAR_PATTERN = Pattern.compile("(?<!\\*)\\*([^*\\n]+?)\\*(?!\\*)");
+    private static final Pattern EM_UNDERSCORE_PATTERN = Pattern.compile("(?<!_)_([^_\\n]+?)_(?!_)");
+
+    /**
+     * 纯文本，段落内的换行（对应 &lt;br&gt;）保留为 \n
+     */
+    private final String text;
+    /**
+     * 每个字符的样式
+     */
+    private final int[] styles;
+
+    private ContentParagraph(String text, int[] styles) {
+        this.text = text;
+        this.styles = styles;
+    }
+
+    /**
+     * 解析一个段落的 Markdown，连续的空白与浏览器一样合并为一个空格
+     * @param markdown 段落原文，已去除首尾空白
+     */
+    static ContentParagraph parse(String markdown) {
+        String marked = CODE_PATTERN.matcher(markdown).replaceAll(CODE_START + "$1" + CODE_END);
+        marked = STRONG_STAR_PATTERN.matcher(marked).replaceAll(STRONG_START + "$1" + STRONG_END);
+        marked = STRONG_UNDERSCORE_PATTERN.matcher(marked).replaceAll(STRONG_START + "$1" + STRONG_END);
+        marked = EM_STAR_PATTERN.matcher(marked).replaceAll(EM_START + "$1" + EM_END);
+        marked = EM_UNDERSCORE_PATTERN.matcher(marked).replaceAll(EM_START + "$1" + EM_END);
+
+        StringBuilder text = new StringBuilder(marked.length());
+        int[] styles = new int[marked.length()];
+        int style = 0;
+        for (int i = 0; i < marked.length(); i++) {
+            char c = marked.charAt(i);
+            switch (c) {
+                case STRONG_START -> style |= STRONG;
+                case STRONG_END -> style &= ~STRONG;
+                case EM_START -> style |= EM;
+                case EM_END -> style &= ~EM;
+                case CODE_START -> style |= CODE;
+                case CODE_END -> style &= ~CODE;
+                default -> {
+                    boolean lineStart = text.isEmpty() || text.charAt(text.length() - 1) == '\n';
+                    if (c == '\n') {
+                        // 换行前后的空白不占位置
+                        trimTrailingSpace(text);
+                    } else if (Character.isWhitespace(c)) {
+                        if (lineStart || text.charAt(text.length() - 1) == ' ') {
+                            continue;
+                        }
+                        c = ' ';
+                    }
+                    styles[text.length()] = style;
+                    text.append(c);
+                }
+            }
+        }
+        trimTrailingSpace(text);
+        return new ContentParagraph(text.toString(), Arrays.copyOf(styles, text.length()));
+    }
+
+    private static void trimTrailingSpace(StringBuilder text) {
+        while (!text.isEmpty() && text.charAt(text.length() - 1) == ' ') {
+            text.setLength(text.length() - 1);
+        }
+    }
+
+    String text() {
+        return text;
+    }
+
+    int styleAt(int index) {
+        return styles[index];
+    }
+
+    /**
+     * 在指定位置拆分段落，拆分处的换行及空白丢弃
+     * @return 两个段落，后一个段落可能为空
+     */
+    ContentParagraph[] splitAt(int offset) {
+        int next = offset;
+        while (next < text.length() && (text.charAt(next) == '\n' || text.charAt(next) == ' ')) {
+            next++;
+        }
+        int end = offset;
+        while (end > 0 && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return new ContentParagraph[]{
+                new ContentParagraph(text.substring(0, end), Arrays.copyOfRange(styles, 0, end)),
+                new ContentParagraph(text.substring(next), Arrays.copyOfRange(styles, next, text.length()))
+        };
+    }
+
+    boolean isEmpty() {
+        return text.isBlank();
+    }
+
+    /**
+     * 生成模板中的段落 HTML，与 content_transform.parse_markdown_to_html 的输出一致
+     */
+    String toHtml() {
+        StringBuilder html = new StringBuilder(text.length() + 32);
+        int open = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                html.append("<br>");
+                continue;
+            }
+            if (styles[i] != open) {
+                closeTags(html, open);
+                openTags(html, styles[i]);
+                open = styles[i];
+            }
+            switch (c) {
+                case '&' -> html.append("&amp;");
+                case '<' -> html.append("&lt;");
+                case '>' -> html.append("&gt;");
+                default -> html.append(c);
+            }
+        }
+        closeTags(html, open);
+        return html.toString();
+    }
+
+    private static void openTags(StringBuilder html, int style) {
+        if ((style & STRONG) != 0) {
+            html.append("<strong>");
+        }
+        if ((style & EM) != 0) {
+            html.append("<em>");
+        }
+        if ((style & CODE) != 0) {
+            html.append("<code>");
+        }
+    }
+
+    private static void closeTags(StringBuilder html, int style) {
+        if ((style & CODE) != 0) {
+            html.append("</code>");
+        }
+        if ((style & EM) != 0) {
+            html.append("</em>");
+        }
+        if ((style & STRONG) != 0) {
+            html.append("</strong>");
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.postagent.render;
+
+import com.postagent.common.AtomicFiles;
+import com.postagent.config.RenderProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.LinearGradientPaint;
+import java.awt.RenderingHints;
+import java.awt.font.FontRenderContext;
+import java.awt.font.LineMetrics;
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 封面图片 Java2D 渲染
+ * 按 template.html 的样式在 JVM 内绘制 1080×1440 的封面：渐变背景、居中的粗体标题、
+ * 在 ！？| 之后换行、标题区域底部的波浪下划线。PNG 编码在图片生成线程池中进行。
+ * 带装饰 emoji 或包含字体不支持的字符时由浏览器渲染
+ */
+@Slf4j
+@Component
+public class CoverRenderer {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1440;
+    private static final int PADDING_X = 80;
+    private static final int PADDING_Y = 100;
+    private static final float FONT_SIZE = 88f;
+    private static final float LINE_HEIGHT = FONT_SIZE * 1.4f;
+    private static final float LETTER_SPACING = -10f;
+    private static final int TITLE_MARGIN_BOTTOM = 60;
+    private static final int UNDERLINE_HEIGHT = 12;
+    private static final String LINE_BREAK_SYMBOLS = "！？|";
+
+    private static final Color TEXT_COLOR = new Color(0x5C4033);
+    private static final Color UNDERLINE_COLOR = new Color(0xB81F0B);
+    private static final Color[] BACKGROUND_COLORS = {new Color(0xFFF8F0), new Color(0xE8DCC0), new Color(0xD4A574)};
+    private static final float[] BACKGROUND_FRACTIONS = {0f, 0.5f, 1f};
+
+    private final FontCache fontCache;
+    private final RenderProperties props;
+    private final Executor encoder;
+
+    public CoverRenderer(FontCache fontCache, RenderProperties props, RenderExecutor renderExecutor) {
+        this.fontCache = fontCache;
+        this.props = props;
+        this.encoder = renderExecutor.executor();
+    }
+
+    /**
+     * 是否可以在 JVM 内渲染
+     * @param title 封面标题
+     * @param decorEmoji 装饰 emoji，彩色 emoji 需要浏览器渲染
+     */
+    public boolean canRender(String title, String decorEmoji) {
+        if (!props.isNativeCover() || StringUtils.hasText(decorEmoji) || !StringUtils.hasText(title)) {
+            return false;
+        }
+        Optional<Font> font = fontCache.getFont(FontCache.BOLD, FONT_SIZE);
+        return font.isPresent() && font.get().canDisplayUpTo(title) == -1;
+    }
+
+    /**
+     * 渲染封面
+     * @param title 封面标题
+     * @param underlineIndices 需要加下划线的字符下标
+     * @param name 输出文件名（不包含扩展名）
+     * @param outDir 输出目录
+     * @return 生成的图片路径，绘制在调用线程完成，PNG 编码及写文件在图片生成线程池完成
+     */
+    public CompletableFuture<Path> render(String title, Set<Integer> underlineIndices, String name, String outDir) {
+        Font font = fontCache.getFont(FontCache.BOLD, FONT_SIZE)
+                .orElseThrow(() -> new IllegalStateException("字体不存在：" + FontCache.BOLD));
+        long start = System.nanoTime();
+        BufferedImage image = draw(title, underlineIndices, font);
+        Path outFile = Path.of(outDir, name + ".png");
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(256 * 1024);
+                ImageIO.write(image, "png", out);
+                Files.createDirectories(outFile.getParent());
+                AtomicFiles.write(outFile, out.toByteArray());
+                log.info("✅ 封面图已生成：{}，耗时 {} ms", outFile, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                return outFile;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, encoder);
+    }
+
+    BufferedImage draw(String title, Set<Integer> underlineIndices, Font font) {
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+            g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+
+            paintBackground(g);
+
+            g.setFont(font);
+            FontRenderContext frc = g.getFontRenderContext();
+            List<List<Glyph>> lines = layout(title, font, frc, WIDTH - PADDING_X * 2);
+
+            // 标题与下边距作为一个整体在内容区域内垂直居中
+            float blockHeight = lines.size() * LINE_HEIGHT + TITLE_MARGIN_BOTTOM;
+            float top = PADDING_Y + (HEIGHT - PADDING_Y * 2 - blockHeight) / 2;
+            LineMetrics metrics = font.getLineMetrics(title, frc);
+            float halfLeading = (LINE_HEIGHT - metrics.getAscent() - metrics.getDescent()) / 2;
+
+            g.setColor(TEXT_COLOR);
+            for (int i = 0; i < lines.size(); i++) {
+                List<Glyph> line = lines.get(i);
+                float x = PADDING_X + (WIDTH - PADDING_X * 2 - lineWidth(line)) / 2;
+                float baseline = top + i * LINE_HEIGHT + halfLeading + metrics.getAscent();
+                for (Glyph glyph : line) {
+                    g.drawString(glyph.text(), x, baseline);
+                    x += glyph.advance();
+                }
+            }
+
+            if (hasUnderline(title, underlineIndices)) {
+                // 模板中波浪线相对内容区域绝对定位，位于标题区域底部并占满内容宽度
+                paintWave(g, PADDING_X, top + blockHeight - UNDERLINE_HEIGHT, WIDTH - PADDING_X * 2);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * 排版标题：在连续的换行符号之后强制换行，超出宽度时在任意字符之间换行。
+     * 模板中每个字符之间都有一个空格，字符和空格都应用 -10px 的字间距
+     */
+    static List<List<Glyph>> layout(String title, Font font, FontRenderContext frc, float maxWidth) {
+        float spaceAdvance = (float) font.getStringBounds(" ", frc).getWidth() + LETTER_SPACING;
+        List<List<Glyph>> lines = new ArrayList<>();
+        List<Glyph> line = new ArrayList<>();
+        float width = 0;
+        int[] codePoints = title.codePoints().toArray();
+        for (int i = 0; i < codePoints.length; i++) {
+            String text = new String(codePoints, i, 1);
+            if (Character.isWhitespace(codePoints[i])) {
+                continue;
+            }
+            float advance = (float) font.getStringBounds(text, frc).getWidth() + LETTER_SPACING;
+            float added = line.isEmpty() ? advance : spaceAdvance + advance;
+            if (!line.isEmpty() && width + added > maxWidth) {
+                lines.add(line);
+                line = new ArrayList<>();
+                width = 0;
+                added = advance;
+            }
+            if (!line.isEmpty()) {
+                Glyph previous = line.remove(line.size() - 1);
+                line.add(new Glyph(previous.text(), previous.advance() + spaceAdvance));
+            }
+            line.add(new Glyph(text, advance));
+            width += added;
+
+            boolean lineBreak = LINE_BREAK_SYMBOLS.indexOf(codePoints[i]) >= 0 && i < codePoints.length - 1
+                    && LINE_BREAK_SYMBOLS.indexOf(codePoints[i + 1]) < 0;
+            if (lineBreak) {
+                lines.add(line);
+                line = new ArrayList<>();
+                width = 0;
+            }
+        }
+        if (!line.isEmpty()) {
+            lines.add(line);
+        }
+        return lines;
+    }
+
+    private static float lineWidth(List<Glyph> line) {
+        float width = 0;
+        for (Glyph glyph : line) {
+            width += glyph.advance();
+        }
+        return width;
+    }
+
+    /**
+     * 解析下划线范围，与 textTransformToPng.py 的 parse_underline_range 一致
+     * @param range 格式 [start,end] 或 start,end
+     * @return 需要加下划线的字符下标，格式不正确时为空
+     */
+    public static Set<Integer> parseUnderline(String range) {
+        Set<Integer> indices = new LinkedHashSet<>();
+        if (!StringUtils.hasText(range)) {
+            return indices;
+        }
+        String[] parts = range.strip().replaceAll("^\\[+|]+$", "").split(",");
+        if (parts.length != 2) {
+            return indices;
+        }
+        try {
+            int start = Integer.parseInt(parts[0].strip());
+            int end = Integer.parseInt(parts[1].strip());
+            for (int i = start; i <= end; i++) {
+                indices.add(i);
+            }
+        } catch (NumberFormatException e) {
+            log.warn("下划线范围格式不正确：{}", range);
+        }
+        return indices;
+    }
+
+    private static boolean hasUnderline(String title, Set<Integer> underlineIndices) {
+        if (underlineIndices == null) {
+            return false;
+        }
+        int length = title.length();
+        return underlineIndices.stream().anyMatch(index -> index >= 0 && index < length);
+    }
+
+    /**
+     * 135° 线性渐变，与 CSS linear-gradient(135deg, ...) 的起止点一致
+     */
+    private static void paintBackground(Graphics2D g) {
+        double angle = Math.toRadians(135);
+        double dx = Math.sin(angle);
+        double dy = -Math.cos(angle);
+        double length = Math.abs(WIDTH * Math.sin(angle)) + Math.abs(HEIGHT * Math.cos(angle));
+        double cx = WIDTH / 2.0;
+        double cy = HEIGHT / 2.0;
+        Point2D start = new Point2D.Double(cx - dx * length / 2, cy - dy * length / 2);
+        Point2D end = new Point2D.Double(cx + dx * length / 2, cy + dy * length / 2);
+        g.setPaint(new LinearGradientPaint(start, end, BACKGROUND_FRACTIONS, BACKGROUND_COLORS));
+        g.fillRect(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * 波浪线：与模板中 120×20 的 SVG 背景平铺一致，只显示上方 12px
+     */
+    private static void paintWave(Graphics2D g, float left, float top, float width) {
+        Path2D wave = new Path2D.Float();
+        for (float x = left; x < left + width; x += 120) {
+            wave.moveTo(x, top + 10);
+            wave.quadTo(x + 30, top, x + 60, top + 10);
+            wave.quadTo(x + 90, top + 20, x + 120, top + 10);
+        }
+        Graphics2D clipped = (Graphics2D) g.create();
+        try {
+            clipped.clipRect((int) left, (int) top, (int) width, UNDERLINE_HEIGHT);
+            clipped.setColor(UNDERLINE_COLOR);
+            clipped.setStroke(new BasicStroke(3f));
+            clipped.draw(wave);
+        } finally {
+            clipped.dispose();
+        }
+    }
+
+    /**
+     * 排版后的字符
+     * @param text 字符
+     * @param advance 字符宽度，包含字间距及其后的空格
+     */
+    record Glyph(String text, float advance) {
+    }
+}
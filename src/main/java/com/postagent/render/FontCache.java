@@ -0,0 +1,61 @@
+package com.postagent.render;
+
+import com.postagent.config.RenderProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 字体缓存
+ * 字体文件只在第一次使用时加载，按字号派生的字体同样缓存，供各个渲染器共享
+ */
+@Slf4j
+@Component
+public class FontCache {
+
+    public static final String BOLD = "HarmonyOS_Sans_SC_Bold.ttf";
+    public static final String REGULAR = "HarmonyOS_Sans_SC_Regular.ttf";
+
+    private final Path fontDir;
+    private final Map<String, Optional<Font>> baseFonts = new ConcurrentHashMap<>();
+    private final Map<String, Font> derivedFonts = new ConcurrentHashMap<>();
+
+    public FontCache(RenderProperties renderProperties) {
+        this.fontDir = renderProperties.getFontDir();
+    }
+
+    /**
+     * 获取指定字号的字体
+     * @param fontFile 字体文件名
+     * @param size 字号（像素）
+     * @return 字体，字体文件不存在或无法加载时为空
+     */
+    public Optional<Font> getFont(String fontFile, float size) {
+        Optional<Font> base = baseFonts.computeIfAbsent(fontFile, this::load);
+        return base.map(font -> derivedFonts.computeIfAbsent(fontFile + "@" + size, key -> font.deriveFont(size)));
+    }
+
+    private Optional<Font> load(String fontFile) {
+        Path path = fontDir.resolve(fontFile);
+        if (!Files.exists(path)) {
+            log.warn("字体不存在：{}", path);
+            return Optional.empty();
+        }
+        try {
+            Font font = Font.createFont(Font.TRUETYPE_FONT, path.toFile());
+            log.info("字体已加载：{}", path);
+            return Optional.of(font);
+        } catch (IOException | FontFormatException e) {
+            log.warn("加载字体失败：{}，{}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
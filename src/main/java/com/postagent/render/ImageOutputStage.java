@@ -0,0 +1,216 @@
+package com.postagent.render;
+
+import com.postagent.common.AtomicFiles;
+import com.postagent.config.RenderProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+/**
+ * 图片输出
+ * 渲染得到的是无损 PNG 截图，按配置重新编码为压缩后的 PNG、JPEG 或 WEBP，并生成指定宽度的缩略图。
+ * 每张图片在图片生成线程池中并行处理
+ */
+@Slf4j
+@Component
+public class ImageOutputStage {
+
+    private static final String VARIANT_MARK = "@";
+
+    private final RenderProperties.Output props;
+    private final RenderExecutor renderExecutor;
+
+    public ImageOutputStage(RenderProperties renderProperties, RenderExecutor renderExecutor) {
+        this.props = renderProperties.getOutput();
+        this.renderExecutor = renderExecutor;
+        if (props.getFormat() == RenderProperties.ImageFormat.WEBP && !hasWriter("webp")) {
+            log.warn("没有可用的 webp 编码器，图片输出使用 PNG");
+        }
+    }
+
+    /**
+     * 处理运行目录中以 name 开头的 PNG 图片
+     * @param dir 运行目录
+     * @param name 图片文件名前缀
+     * @return 输出的图片，包括缩略图
+     */
+    public List<Path> process(Path dir, String name) throws IOException {
+        List<Path> sources;
+        try (Stream<Path> files = Files.list(dir)) {
+            sources = files.filter(path -> {
+                String fileName = path.getFileName().toString();
+                return fileName.startsWith(name + "_") && fileName.endsWith(".png") && !fileName.contains(VARIANT_MARK);
+            }).sorted().toList();
+        }
+        List<CompletableFuture<List<Path>>> futures = sources.stream()
+                .map(source -> CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return processImage(source);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, renderExecutor.executor()))
+                .toList();
+        List<Path> outputs = new ArrayList<>();
+        try {
+            futures.forEach(future -> outputs.addAll(future.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw e;
+        }
+        return outputs;
+    }
+
+    private List<Path> processImage(Path source) throws IOException {
+        long start = System.nanoTime();
+        long sourceSize = Files.size(source);
+        BufferedImage image = ImageIO.read(source.toFile());
+        if (image == null) {
+            throw new IOException("无法读取图片：" + source);
+        }
+        String format = outputFormat();
+        String baseName = source.getFileName().toString();
+        baseName = baseName.substring(0, baseName.length() - ".png".length());
+
+        List<Path> outputs = new ArrayList<>();
+        Path target = source.resolveSibling(baseName + "." + extension(format));
+        if (!"png".equals(format) || props.isOptimizePng()) {
+            byte[] encoded = encode(image, format);
+            if ("png".equals(format) && encoded.length >= sourceSize) {
+                // 重新压缩没有变小时保留原文件
+                log.debug("PNG 重新压缩没有减小体积：{}", source);
+            } else {
+                AtomicFiles.write(target, encoded);
+                if (!target.equals(source)) {
+                    Files.deleteIfExists(source);
+                }
+            }
+        }
+        outputs.add(target);
+
+        for (Integer width : props.getVariants()) {
+            if (width == null || width <= 0 || width >= image.getWidth()) {
+                continue;
+            }
+            Path variant = source.resolveSibling(baseName + VARIANT_MARK + width + "w." + extension(format));
+            AtomicFiles.write(variant, encode(scale(image, width), format));
+            outputs.add(variant);
+        }
+        log.info("图片输出：{}（{} KB）-> {}（{} KB），缩略图 {} 张，耗时 {} ms", source.getFileName(), sourceSize / 1024,
+                target.getFileName(), Files.size(target) / 1024, outputs.size() - 1, (System.nanoTime() - start) / 1_000_000);
+        return outputs;
+    }
+
+    private String outputFormat() {
+        return switch (props.getFormat()) {
+            case JPEG -> "jpeg";
+            case WEBP -> hasWriter("webp") ? "webp" : "png";
+            case PNG -> "png";
+        };
+    }
+
+    private static String extension(String format) {
+        return "jpeg".equals(format) ? "jpg" : format;
+    }
+
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("没有可用的图片编码器：" + format);
+        }
+        ImageWriter writer = writers.next();
+        // 截图不需要透明通道，JPEG 也不支持透明通道
+        BufferedImage rgb = toRgb(image);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 * 1024);
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                String[] types = param.getCompressionTypes();
+                if (types != null && types.length > 0 && param.getCompressionType() == null) {
+                    param.setCompressionType(lossyType(types));
+                }
+                // PNG 的压缩质量 0 表示最高压缩级别
+                param.setCompressionQuality("png".equals(format) ? 0f : Math.max(0f, Math.min(1f, props.getQuality())));
+            }
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    private static String lossyType(String[] types) {
+        for (String type : types) {
+            if (type.toLowerCase(Locale.ROOT).contains("lossy")) {
+                return type;
+            }
+        }
+        return types[0];
+    }
+
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+            return image;
+        }
+        BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.drawImage(image, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+
+    /**
+     * 逐级减半缩放，避免一次缩小过多时的锯齿
+     */
+    private static BufferedImage scale(BufferedImage image, int width) {
+        BufferedImage current = toRgb(image);
+        int targetHeight = Math.max(1, Math.round((float) image.getHeight() * width / image.getWidth()));
+        while (current.getWidth() > width) {
+            int nextWidth = Math.max(width, current.getWidth() / 2);
+            int nextHeight = nextWidth == width ? targetHeight : Math.max(1, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private static boolean hasWriter(String format) {
+        return ImageIO.getImageWritersByFormatName(format).hasNext();
+    }
+}
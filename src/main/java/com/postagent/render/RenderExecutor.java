@@ -0,0 +1,40 @@
+package com.postagent.render;
+
+import com.postagent.config.RenderProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图片生成线程池
+ * 封面编码、内容分批渲染及脚本兜底共用。线程数及队列长度有上限，队列满时由提交任务的线程执行
+ */
+@Component
+public class RenderExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    public RenderExecutor(RenderProperties props) {
+        int threads = Math.max(1, props.getThreads());
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("render-");
+        threadFactory.setDaemon(true);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, props.getQueueCapacity())), threadFactory,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public Executor executor() {
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -4,9 +4,25 @@ import com.postagent.entity.PostTaskResult;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface PostTaskResultRepository extends JpaRepository<PostTaskResult, Long> {
     @Query("select p from PostTaskResult p where p.dataId = ?1")
     PostTaskResult findByDataId(long dataId);
+
+    /**
+     * 查询所有已采集的帖子id
+     * @return 帖子id列表
+     */
+    @Query("select p.dataId from PostTaskResult p")
+    List<Long> findAllDataIds();
+
+    /**
+     * 批量查询已采集的帖子id
+     * @param dataIds 候选帖子id
+     * @return 其中已被采集的帖子id
+     */
+    @Query("select p.dataId from PostTaskResult p where p.dataId in ?1")
+    List<Long> findDataIdsIn(Collection<Long> dataIds);
 }
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.postagent.repository;
+
+import com.postagent.entity.SummaryCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+public interface SummaryCacheRepository extends JpaRepository<SummaryCacheEntry, String> {
+
+    /**
+     * 删除过期的文案
+     * @param before 早于该时间创建的文案
+     * @return 删除的条数
+     */
+    @Transactional
+    @Modifying
+    @Query("delete from SummaryCacheEntry s where s.createTime < ?1")
+    int deleteCreatedBefore(Date before);
+}
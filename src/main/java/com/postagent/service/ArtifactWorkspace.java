@@ -0,0 +1,227 @@
+package com.postagent.service;
+
+import com.postagent.config.WorkspaceProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * 工作流产物目录分配
+ * 每次运行分配唯一的目录 {@code <root>/<ab>/<cd>/<taskId>-<runId>}，前缀由目录名的哈希计算，避免单个目录下条目过多。
+ * 运行期间产物写入 {@code .partial} 后缀的暂存目录，成功后整体重命名提交，失败或中断的运行由定时任务清理
+ */
+@Slf4j
+@Service
+public class ArtifactWorkspace {
+
+    private static final String PARTIAL_SUFFIX = ".partial";
+    private static final DateTimeFormatter RUN_ID_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final int MAX_ALLOCATE_ATTEMPTS = 5;
+
+    private final WorkspaceProperties props;
+
+    public ArtifactWorkspace(WorkspaceProperties props) {
+        this.props = props;
+    }
+
+    /**
+     * 分配运行目录
+     * @param taskId 任务id，为空时使用 adhoc
+     * @return 暂存目录，提交前以 .partial 结尾
+     * @throws IOException 创建目录失败
+     */
+    public Path allocate(Long taskId) throws IOException {
+        for (int attempt = 0; attempt < MAX_ALLOCATE_ATTEMPTS; attempt++) {
+            String runId = LocalDateTime.now().format(RUN_ID_FORMATTER) + "-"
+                    + Integer.toHexString(ThreadLocalRandom.current().nextInt(0x100000, 0x1000000));
+            String name = (taskId == null ? "adhoc" : taskId.toString()) + "-" + runId;
+            Path staging = shardDir(name).resolve(name + PARTIAL_SUFFIX);
+            Files.createDirectories(staging.getParent());
+            try {
+                // createDirectory 在目录已存在时失败，保证同一目录只分配给一次运行
+                return Files.createDirectory(staging);
+            } catch (FileAlreadyExistsException e) {
+                log.debug("运行目录已存在，重新分配：{}", staging);
+            }
+        }
+        throw new IOException("无法分配运行目录，任务id：" + taskId);
+    }
+
+    /**
+     * 分配并立即提交运行目录，用于不经过任务服务的单独运行
+     */
+    public Path allocateCommitted(Long taskId) throws IOException {
+        return commit(allocate(taskId));
+    }
+
+    /**
+     * 提交运行目录，暂存目录整体重命名为正式目录
+     * @param staging 暂存目录
+     * @return 正式目录，传入的不是暂存目录时原样返回
+     */
+    public Path commit(Path staging) throws IOException {
+        if (!isPartial(staging)) {
+            return staging;
+        }
+        String name = staging.getFileName().toString();
+        Path target = staging.resolveSibling(name.substring(0, name.length() - PARTIAL_SUFFIX.length()));
+        return Files.move(staging, target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 丢弃未提交的运行目录
+     * @param staging 暂存目录，不是暂存目录时不做处理
+     */
+    public void discard(Path staging) {
+        if (!isPartial(staging) || !Files.exists(staging)) {
+            return;
+        }
+        try {
+            deleteRecursively(staging);
+            log.info("已清理未完成的运行目录：{}", staging);
+        } catch (IOException e) {
+            log.warn("清理运行目录失败：{}，{}", staging, e.getMessage());
+        }
+    }
+
+    /**
+     * 解析已提交的运行目录
+     * @param outputDirectory 任务结果中保存的目录
+     * @return 运行目录，不在产物根目录下、未提交或不存在时为空
+     */
+    public Optional<Path> resolveRun(String outputDirectory) {
+        if (outputDirectory == null || outputDirectory.isBlank()) {
+            return Optional.empty();
+        }
+        Path dir;
+        try {
+            dir = Path.of(outputDirectory).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            return Optional.empty();
+        }
+        if (!dir.startsWith(props.getRoot().toAbsolutePath().normalize()) || isPartial(dir) || !Files.isDirectory(dir)) {
+            return Optional.empty();
+        }
+        return Optional.of(dir);
+    }
+
+    /**
+     * 解析运行目录中的文件，只允许直接位于运行目录下的普通文件
+     * @param runDir 运行目录
+     * @param name 文件名
+     * @return 文件，不存在时为空
+     * @throws IllegalArgumentException 文件名包含路径或指向运行目录之外
+     */
+    public Optional<Path> resolveFile(Path runDir, String name) throws IOException {
+        Path file;
+        try {
+            file = runDir.resolve(name).normalize();
+        } catch (InvalidPathException e) {
+            throw new IllegalArgumentException("非法的文件名：" + name);
+        }
+        if (!runDir.equals(file.getParent())) {
+            throw new IllegalArgumentException("非法的文件名：" + name);
+        }
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        // 符号链接解析后仍需位于运行目录下
+        if (!file.toRealPath().startsWith(runDir.toRealPath())) {
+            throw new IllegalArgumentException("非法的文件名：" + name);
+        }
+        return Optional.of(file);
+    }
+
+    /**
+     * 列出运行目录中的文件，不包括子目录及写入中的临时文件
+     */
+    public List<Path> listFiles(Path runDir) throws IOException {
+        try (Stream<Path> files = Files.list(runDir)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().endsWith(".tmp"))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * 定时清理超过保留时间仍未提交的运行目录，通常是进程中断留下的
+     */
+    @Scheduled(initialDelay = 60_000, fixedDelayString = "${app.workspace.janitor-interval:PT30M}")
+    public void cleanUpPartialRuns() {
+        Path root = props.getRoot();
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Instant deadline = Instant.now().minus(props.getPartialRetention());
+        List<Path> stale;
+        try (Stream<Path> paths = Files.walk(root, props.getShardLevels() + 1)) {
+            stale = paths.filter(path -> isPartial(path) && Files.isDirectory(path))
+                    .filter(path -> lastModifiedBefore(path, deadline))
+                    .toList();
+        } catch (IOException e) {
+            log.warn("扫描运行目录失败：{}", e.getMessage());
+            return;
+        }
+        stale.forEach(this::discard);
+    }
+
+    private Path shardDir(String name) {
+        String hash = sha256(name);
+        Path dir = props.getRoot();
+        for (int level = 0; level < props.getShardLevels(); level++) {
+            dir = dir.resolve(hash.substring(level * 2, level * 2 + 2));
+        }
+        return dir;
+    }
+
+    private boolean isPartial(Path path) {
+        return path != null && path.getFileName() != null
+                && path.getFileName().toString().endsWith(PARTIAL_SUFFIX)
+                && path.toAbsolutePath().normalize().startsWith(props.getRoot().toAbsolutePath().normalize());
+    }
+
+    private static boolean lastModifiedBefore(Path path, Instant deadline) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(deadline);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.postagent.service;
+
+import com.postagent.config.CollectorProperties;
+import com.postagent.model.HotPost;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 待采集帖子队列
+ * 后台根据本地快照预先筛选出分数达标、未被采集的帖子，按排名排序放入有界队列，
+ * 采集节点直接从队列中取出帖子。取出的帖子会被预留，预留期间不会再分配给其他工作流
+ */
+@Slf4j
+@Service
+public class CandidateQueue {
+
+    private final HackerNewsSyncService hackerNewsSyncService;
+    private final CollectedPostIndex collectedPostIndex;
+    private final CollectorProperties collectorProperties;
+
+    private final ExecutorService refresher;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final PriorityQueue<HotPost> queue = new PriorityQueue<>(Comparator.comparingInt(HotPost::rank));
+    // 已分配给工作流的帖子id及预留过期时间
+    private final Map<Long, Instant> reservations = new HashMap<>();
+
+    public CandidateQueue(HackerNewsSyncService hackerNewsSyncService, CollectedPostIndex collectedPostIndex,
+                          CollectorProperties collectorProperties) {
+        this.hackerNewsSyncService = hackerNewsSyncService;
+        this.collectedPostIndex = collectedPostIndex;
+        this.collectorProperties = collectorProperties;
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("candidate-queue-");
+        threadFactory.setDaemon(true);
+        this.refresher = Executors.newSingleThreadExecutor(threadFactory);
+    }
+
+    @Scheduled(initialDelayString = "${app.collector.queue-refresh-interval:PT30S}",
+            fixedDelayString = "${app.collector.queue-refresh-interval:PT30S}")
+    public void scheduledRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.warn("待采集帖子队列刷新失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 在后台重建队列，不等待完成；已有刷新在执行时跳过
+     */
+    public void refreshAsync() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refresher.execute(() -> {
+                try {
+                    refresh();
+                } catch (RuntimeException e) {
+                    log.warn("待采集帖子队列刷新失败：{}", e.getMessage());
+                } finally {
+                    refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * 根据本地快照重建队列
+     * @return 快照是否可用
+     */
+    public boolean refresh() {
+        Optional<List<HotPost>> rankedPosts = hackerNewsSyncService.getRankedPosts();
+        if (rankedPosts.isEmpty()) {
+            return false;
+        }
+
+        // 先按分数筛选，再批量去重，减少去重的数据量
+        List<HotPost> qualified = rankedPosts.get().stream().filter(this::isQualified).toList();
+        Set<Long> uncollected = new HashSet<>(collectedPostIndex.filterUncollected(qualified.stream().map(HotPost::id).toList()));
+
+        lock.lock();
+        try {
+            purgeExpiredReservations();
+            queue.clear();
+            for (HotPost post : qualified) {
+                if (queue.size() >= collectorProperties.getQueueCapacity()) {
+                    break;
+                }
+                if (uncollected.contains(post.id()) && !reservations.containsKey(post.id())) {
+                    queue.add(post);
+                }
+            }
+            log.info("待采集帖子队列刷新完成，共 {} 条", queue.size());
+        } finally {
+            lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * 取出排名最靠前的帖子并预留
+     * @return 待采集的帖子，队列为空时为空
+     */
+    public Optional<HotPost> poll() {
+        lock.lock();
+        try {
+            purgeExpiredReservations();
+            HotPost post;
+            while ((post = queue.poll()) != null) {
+                // 队列刷新后可能已被其他工作流采集
+                if (!collectedPostIndex.contains(post.id()) && !reservations.containsKey(post.id())) {
+                    reservations.put(post.id(), Instant.now().plus(collectorProperties.getReservationTtl()));
+                    return Optional.of(post);
+                }
+            }
+            return Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 预留指定帖子，用于在线扫描等不经过队列的场景
+     * @param postId 帖子id
+     * @return 是否预留成功，帖子已被其他工作流预留时返回false
+     */
+    public boolean tryReserve(long postId) {
+        lock.lock();
+        try {
+            purgeExpiredReservations();
+            if (reservations.containsKey(postId)) {
+                return false;
+            }
+            reservations.put(postId, Instant.now().plus(collectorProperties.getReservationTtl()));
+            queue.removeIf(post -> post.id() == postId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 释放预留，帖子采集完成后由已采集索引负责去重
+     * @param postId 帖子id
+     */
+    public void release(long postId) {
+        lock.lock();
+        try {
+            reservations.remove(postId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 帖子分数是否达到采集要求，没有外链的帖子（如 Ask HN）无法下载正文，直接跳过
+     */
+    public boolean isQualified(HotPost post) {
+        return post.score() > collectorProperties.getMinScore() && StringUtils.hasText(post.url());
+    }
+
+    private void purgeExpiredReservations() {
+        Instant now = Instant.now();
+        reservations.values().removeIf(expireAt -> expireAt.isBefore(now));
+    }
+}
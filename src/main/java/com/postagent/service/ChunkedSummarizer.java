@@ -0,0 +1,130 @@
+package com.postagent.service;
+
+import com.postagent.common.TokenEstimator;
+import com.postagent.config.SummaryProperties;
+import com.postagent.config.TokenLoggerAdvisor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 分段总结
+ * 正文不超过预算时直接生成文案；超过时按标题和段落分段，各段并发提炼要点（map），
+ * 要点按原文顺序合并后再用文案提示词生成最终结果（reduce），输出格式与直接生成相同。
+ * 合并后的要点仍超过预算时再提炼一轮
+ */
+@Slf4j
+@Service
+public class ChunkedSummarizer {
+
+    private static final String DOCUMENT_SEPARATOR = "\n\n---\n\n";
+    private static final int MAX_COLLAPSE_ROUNDS = 3;
+
+    private final ChatClient chatClient;
+    private final PromptService promptService;
+    private final SummaryProperties.Chunk props;
+
+    public ChunkedSummarizer(@Qualifier("routingChatClient") ChatClient chatClient, PromptService promptService,
+                             SummaryProperties summaryProperties) {
+        this.chatClient = chatClient;
+        this.promptService = promptService;
+        this.props = summaryProperties.getChunk();
+    }
+
+    /**
+     * 生成文案
+     * @param systemPrompt 文案提示词
+     * @param documents 本次运行的所有正文
+     * @param savedTokens 正文预处理节省的 token 估算，随最终生成的 usage 一起记录
+     * @param onDelta 最终生成阶段流式输出的片段
+     * @return 文案
+     */
+    public String summarize(String systemPrompt, List<String> documents, int savedTokens, Consumer<String> onDelta) {
+        String content = documents.stream()
+                .filter(StringUtils::hasText)
+                .collect(Collectors.joining(DOCUMENT_SEPARATOR));
+        int tokens = TokenEstimator.estimate(content);
+        if (tokens <= props.getDirectTokens()) {
+            return generate(systemPrompt, content, savedTokens, onDelta);
+        }
+
+        long start = System.nanoTime();
+        List<String> chunks = new ArrayList<>();
+        MarkdownChunker chunker = new MarkdownChunker(props.getChunkTokens());
+        for (String document : documents) {
+            if (StringUtils.hasText(document)) {
+                chunks.addAll(chunker.split(document));
+            }
+        }
+        log.info("正文约 {} tokens，超过 {}，分为 {} 段提炼要点", tokens, props.getDirectTokens(), chunks.size());
+        String notes = joinNotes(map(chunks));
+        for (int round = 1; round <= MAX_COLLAPSE_ROUNDS && TokenEstimator.estimate(notes) > props.getDirectTokens(); round++) {
+            List<String> groups = new MarkdownChunker(props.getChunkTokens()).split(notes);
+            log.info("要点约 {} tokens，第 {} 轮合并为 {} 段", TokenEstimator.estimate(notes), round, groups.size());
+            notes = joinNotes(map(groups));
+        }
+        log.info("分段提炼完成，要点约 {} tokens，耗时 {} ms", TokenEstimator.estimate(notes),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return generate(systemPrompt, notes, savedTokens, onDelta);
+    }
+
+    /**
+     * 并发提炼各段要点，结果保持原文顺序
+     */
+    private List<String> map(List<String> chunks) {
+        int total = chunks.size();
+        List<String> notes = Flux.range(0, total)
+                .flatMapSequential(index -> Mono.fromCallable(() -> mapChunk(chunks.get(index), index + 1, total))
+                        .subscribeOn(Schedulers.boundedElastic()), Math.max(1, props.getConcurrency()))
+                .collectList()
+                .block();
+        return notes == null ? List.of() : notes;
+    }
+
+    private String mapChunk(String chunk, int index, int total) {
+        long start = System.nanoTime();
+        String prompt = promptService.getChunkSummaryPrompt(index, total);
+        String note = chatClient.prompt()
+                .system(prompt)
+                .user(chunk)
+                .call()
+                .content();
+        log.debug("第 {}/{} 段提炼完成，约 {} -> {} tokens，耗时 {} ms", index, total, TokenEstimator.estimate(chunk),
+                TokenEstimator.estimate(note), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return note == null ? "" : note.strip();
+    }
+
+    private static String joinNotes(List<String> notes) {
+        StringBuilder builder = new StringBuilder("以下是同一篇文章按原文顺序分段提炼的要点：");
+        for (int i = 0; i < notes.size(); i++) {
+            builder.append("\n\n## 第 ").append(i + 1).append(" 部分\n\n").append(notes.get(i));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 用文案提示词生成最终结果，片段实时回调
+     */
+    private String generate(String systemPrompt, String content, int savedTokens, Consumer<String> onDelta) {
+        return chatClient.prompt()
+                .system(systemPrompt)
+                .user(content)
+                .advisors(advisor -> advisor.param(TokenLoggerAdvisor.SAVED_PROMPT_TOKENS, savedTokens))
+                .stream()
+                .content()
+                .doOnNext(onDelta)
+                .collect(Collectors.joining())
+                .block();
+    }
+}
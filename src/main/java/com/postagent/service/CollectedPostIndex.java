@@ -0,0 +1,109 @@
+package com.postagent.service;
+
+import com.postagent.common.LongHashSet;
+import com.postagent.repository.PostTaskResultRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 已采集帖子索引
+ * 启动时一次性加载所有已采集的 data_id，之后由内存判断帖子是否已被采集，避免逐条查询数据库
+ */
+@Slf4j
+@Service
+public class CollectedPostIndex {
+
+    private final PostTaskResultRepository postTaskResultRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private LongHashSet collectedIds = new LongHashSet(0);
+    private volatile boolean loaded = false;
+
+    public CollectedPostIndex(PostTaskResultRepository postTaskResultRepository) {
+        this.postTaskResultRepository = postTaskResultRepository;
+    }
+
+    /**
+     * 启动时加载已采集的帖子id，加载失败时退化为批量查询数据库
+     */
+    @PostConstruct
+    public void load() {
+        try {
+            List<Long> dataIds = postTaskResultRepository.findAllDataIds();
+            LongHashSet ids = new LongHashSet(dataIds.size());
+            dataIds.forEach(ids::add);
+            lock.writeLock().lock();
+            try {
+                collectedIds = ids;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded = true;
+            log.info("已采集帖子索引加载完成，共 {} 条", ids.size());
+        } catch (RuntimeException e) {
+            log.warn("已采集帖子索引加载失败，将直接查询数据库：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录新采集的帖子
+     * @param dataId 帖子id
+     */
+    public void add(long dataId) {
+        lock.writeLock().lock();
+        try {
+            collectedIds.add(dataId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 帖子是否已被采集（仅查询内存索引）
+     */
+    public boolean contains(long dataId) {
+        lock.readLock().lock();
+        try {
+            return collectedIds.contains(dataId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 过滤出未被采集的帖子id，保持原有顺序
+     * 先用内存索引排除已知的帖子，剩余的帖子再用一次 IN 查询确认，兼容其他实例写入的采集记录
+     * @param candidateIds 候选帖子id
+     * @return 未被采集的帖子id
+     */
+    public List<Long> filterUncollected(List<Long> candidateIds) {
+        List<Long> unknownIds = new ArrayList<>(candidateIds.size());
+        lock.readLock().lock();
+        try {
+            for (Long id : candidateIds) {
+                if (!loaded || !collectedIds.contains(id)) {
+                    unknownIds.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (unknownIds.isEmpty()) {
+            return unknownIds;
+        }
+
+        Set<Long> collectedInDb = new HashSet<>(postTaskResultRepository.findDataIdsIn(unknownIds));
+        if (collectedInDb.isEmpty()) {
+            return unknownIds;
+        }
+        collectedInDb.forEach(this::add);
+        return unknownIds.stream().filter(id -> !collectedInDb.contains(id)).toList();
+    }
+}
@@ -0,0 +1,101 @@
+package com.postagent.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.postagent.config.RenderProperties;
+import com.postagent.render.CoverRenderer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 封面提前渲染
+ * 文案的标题解析完成时就提交封面任务，与正文生成并行；转换节点取出标题相同的任务直接使用。
+ * 标题不同（标题被重新生成）时等提前提交的任务结束后重新渲染，避免两个任务同时写同一个文件
+ */
+@Slf4j
+@Service
+public class CoverPrefetcher {
+
+    /**
+     * 没有被取走的任务的保留时间，总结节点之后流程失败时不会被取走
+     */
+    private static final Duration RETENTION = Duration.ofMinutes(30);
+
+    private final CoverRenderer coverRenderer;
+    private final RenderService renderService;
+    private final RenderProperties renderProperties;
+    private final Cache<String, Prefetched> prefetched = Caffeine.newBuilder()
+            .expireAfterWrite(RETENTION)
+            .build();
+
+    public CoverPrefetcher(CoverRenderer coverRenderer, RenderService renderService, RenderProperties renderProperties) {
+        this.coverRenderer = coverRenderer;
+        this.renderService = renderService;
+        this.renderProperties = renderProperties;
+    }
+
+    /**
+     * 提前提交封面任务
+     * @param targetDir 输出目录，同一目录只保留最后一次提交
+     */
+    public void prefetch(String targetDir, String collectedTitle, String coverTitle) {
+        CompletableFuture<List<Path>> future = submit(coverTitle, collectedTitle, targetDir);
+        if (future == null) {
+            return;
+        }
+        // 提前渲染失败时由转换节点按原流程重新生成，这里只记录
+        future.whenComplete((files, e) -> {
+            if (e != null) {
+                log.warn("提前渲染封面失败：{}", e.getMessage());
+            }
+        });
+        prefetched.put(targetDir, new Prefetched(coverTitle, future));
+        log.info("标题已生成，提前渲染封面：{}", coverTitle);
+    }
+
+    /**
+     * 取出封面任务：有标题相同的提前任务时直接使用，否则提交新任务
+     * @return 封面任务，原生渲染和渲染服务都不可用时为空
+     */
+    public CompletableFuture<List<Path>> take(String coverTitle, String collectedTitle, String targetDir) {
+        Prefetched early = prefetched.asMap().remove(targetDir);
+        if (early == null) {
+            return submit(coverTitle, collectedTitle, targetDir);
+        }
+        if (early.title().equals(coverTitle)) {
+            return early.future();
+        }
+        log.info("封面标题已变化，重新渲染：{} -> {}", early.title(), coverTitle);
+        return early.future()
+                .handle((files, e) -> null)
+                .thenCompose(ignored -> {
+                    CompletableFuture<List<Path>> future = submit(coverTitle, collectedTitle, targetDir);
+                    return future == null ? CompletableFuture.failedFuture(new IllegalStateException("封面渲染不可用")) : future;
+                });
+    }
+
+    /**
+     * 提交封面任务：优先在 JVM 内绘制，原生渲染不支持时交给常驻渲染服务
+     * @return 封面任务，两者都不可用时为空
+     */
+    private CompletableFuture<List<Path>> submit(String coverTitle, String collectedTitle, String targetDir) {
+        String name = collectedTitle + "_cover";
+        // 两种渲染方式使用相同的下划线配置
+        String underline = renderProperties.getCoverUnderline();
+        if (coverRenderer.canRender(coverTitle, null)) {
+            return coverRenderer.render(coverTitle, CoverRenderer.parseUnderline(underline), name, targetDir).thenApply(List::of);
+        }
+        if (renderService.isEnabled()) {
+            return renderService.submit(RenderService.RenderJob.cover(coverTitle, underline, name, targetDir));
+        }
+        return null;
+    }
+
+    private record Prefetched(String title, CompletableFuture<List<Path>> future) {
+    }
+}
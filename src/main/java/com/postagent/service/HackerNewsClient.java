@@ -0,0 +1,110 @@
+package com.postagent.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.postagent.collector.HackerNewsSourceAdapter;
+import com.postagent.collector.SourceClient;
+import com.postagent.collector.SourceClientFactory;
+import com.postagent.config.CollectorProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hacker News API 客户端
+ * 热门帖子id列表和帖子详情带过期时间缓存，同一个key的并发请求只会向上游发起一次；
+ * 所有请求经过 Hacker News 数据源专用的客户端，受其并发上限和限流约束
+ */
+@Slf4j
+@Service
+public class HackerNewsClient {
+
+    private static final String BASE_URL = "https://hacker-news.firebaseio.com/v0";
+    private static final String TOP_STORIES_KEY = "topstories";
+
+    private final SourceClient sourceClient;
+    private final LoadingCache<String, List<Long>> topStoriesCache;
+    private final LoadingCache<Long, JSONObject> itemCache;
+
+    public HackerNewsClient(SourceClientFactory sourceClientFactory, CollectorProperties collectorProperties, MeterRegistry meterRegistry) {
+        this.sourceClient = sourceClientFactory.getClient(HackerNewsSourceAdapter.ORIGIN);
+        this.topStoriesCache = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(collectorProperties.getTopStoriesTtl())
+                .recordStats()
+                .build(key -> loadTopStories());
+        this.itemCache = Caffeine.newBuilder()
+                .maximumSize(collectorProperties.getItemCacheSize())
+                .expireAfterWrite(collectorProperties.getItemTtl())
+                .recordStats()
+                .build(this::loadItem);
+        CaffeineCacheMetrics.monitor(meterRegistry, topStoriesCache, "hackernews.topstories");
+        CaffeineCacheMetrics.monitor(meterRegistry, itemCache, "hackernews.items");
+    }
+
+    /**
+     * 获取热门帖子id列表（500条）
+     * @return 按排名排序的帖子id，获取失败时为空列表
+     */
+    public List<Long> getTopStories() {
+        List<Long> topStories = topStoriesCache.get(TOP_STORIES_KEY);
+        return topStories == null ? List.of() : topStories;
+    }
+
+    /**
+     * 获取帖子详情
+     * @param postId 帖子id
+     * @return 帖子详情，不存在时为null
+     */
+    public JSONObject getItem(long postId) {
+        return itemCache.get(postId);
+    }
+
+    /**
+     * 丢弃缓存并重新获取帖子详情
+     * @param postId 帖子id
+     * @return 帖子详情，不存在时为null
+     */
+    public JSONObject refreshItem(long postId) {
+        itemCache.invalidate(postId);
+        return itemCache.get(postId);
+    }
+
+    /**
+     * 获取当前最大的帖子id，不经过缓存
+     */
+    public long getMaxItem() {
+        Long maxItem = sourceClient.execute(restClient -> restClient.get().uri(BASE_URL + "/maxitem.json").retrieve().body(Long.class));
+        return maxItem == null ? 0L : maxItem;
+    }
+
+    /**
+     * 获取最近发生变化的帖子id，不经过缓存
+     */
+    public List<Long> getUpdatedItems() {
+        Map<String, Object> updates = sourceClient.execute(restClient -> restClient.get().uri(BASE_URL + "/updates.json").retrieve().body(Map.class));
+        if (updates == null || !(updates.get("items") instanceof List<?> items)) {
+            return List.of();
+        }
+        return items.stream().map(id -> ((Number) id).longValue()).toList();
+    }
+
+    private List<Long> loadTopStories() {
+        log.info("开始获取热门帖子id列表🔎...");
+        List<? extends Number> ids = sourceClient.execute(restClient -> restClient.get().uri(BASE_URL + "/topstories.json").retrieve().body(List.class));
+        return ids == null ? null : ids.stream().map(Number::longValue).toList();
+    }
+
+    private JSONObject loadItem(Long postId) {
+        log.info("开始获取帖子id= {} 的详细信息🔎...", postId);
+        String result = sourceClient.execute(restClient -> restClient.get().uri(BASE_URL + "/item/" + postId + ".json").retrieve().body(String.class));
+        return StringUtils.hasText(result) ? JSON.parseObject(result) : null;
+    }
+}
@@ -0,0 +1,137 @@
+package com.postagent.service;
+
+import com.alibaba.fastjson.JSONObject;
+import com.postagent.collector.HackerNewsSourceAdapter;
+import com.postagent.collector.HotPostScanner;
+import com.postagent.collector.SourceClientFactory;
+import com.postagent.config.CollectorProperties;
+import com.postagent.model.HotPost;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Hacker News 增量同步
+ * 在后台维护热门帖子排名及分数的本地快照：排名按固定间隔重新拉取，
+ * 两次排名之间只根据 maxitem 和 updates 接口刷新发生变化的帖子，采集时直接查询本地快照
+ */
+@Slf4j
+@Service
+public class HackerNewsSyncService {
+
+    private final HackerNewsClient hackerNewsClient;
+    private final HotPostScanner hotPostScanner;
+    private final CollectorProperties collectorProperties;
+
+    private volatile Snapshot snapshot;
+
+    public HackerNewsSyncService(HackerNewsClient hackerNewsClient, SourceClientFactory sourceClientFactory,
+                                 CollectorProperties collectorProperties) {
+        this.hackerNewsClient = hackerNewsClient;
+        this.hotPostScanner = sourceClientFactory.getClient(HackerNewsSourceAdapter.ORIGIN).getSyncScanner();
+        this.collectorProperties = collectorProperties;
+    }
+
+    /**
+     * 获取按排名排序的热门帖子
+     * @return 本地快照中的热门帖子，尚未完成首次同步时为空
+     */
+    public Optional<List<HotPost>> getRankedPosts() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        List<HotPost> posts = new ArrayList<>(current.rankedIds().size());
+        for (Long id : current.rankedIds()) {
+            HotPost post = current.posts().get(id);
+            if (post != null) {
+                posts.add(post);
+            }
+        }
+        return Optional.of(posts);
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${app.collector.sync-interval:PT1M}")
+    public void scheduledSync() {
+        if (!collectorProperties.isSyncEnabled()) {
+            return;
+        }
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("热门帖子增量同步失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 执行一次增量同步
+     */
+    public synchronized void sync() {
+        Snapshot current = snapshot;
+        Instant now = Instant.now();
+        long maxItem = hackerNewsClient.getMaxItem();
+        boolean rerank = current == null
+                || Duration.between(current.rankedAt(), now).compareTo(collectorProperties.getRankingRefreshInterval()) >= 0;
+
+        List<Long> rankedIds = current == null ? List.of() : current.rankedIds();
+        Map<Long, HotPost> posts = current == null ? new HashMap<>() : new HashMap<>(current.posts());
+        Instant rankedAt = current == null ? now : current.rankedAt();
+        if (rerank) {
+            List<Long> topStories = hackerNewsClient.getTopStories();
+            rankedIds = topStories.subList(0, Math.min(topStories.size(), collectorProperties.getSnapshotSize()));
+            posts.keySet().retainAll(new LinkedHashSet<>(rankedIds));
+            rankedAt = now;
+        }
+
+        // 需要刷新的帖子：新进入排名的帖子 + updates 接口中发生变化的帖子
+        Set<Long> staleIds = new LinkedHashSet<>();
+        for (Long id : rankedIds) {
+            if (!posts.containsKey(id)) {
+                staleIds.add(id);
+            }
+        }
+        if (current != null && maxItem != current.maxItem()) {
+            for (Long id : hackerNewsClient.getUpdatedItems()) {
+                if (posts.containsKey(id)) {
+                    staleIds.add(id);
+                }
+            }
+        }
+        if (!rerank && staleIds.isEmpty()) {
+            return;
+        }
+
+        Map<Long, JSONObject> items = hotPostScanner.fetchAll(new ArrayList<>(staleIds), hackerNewsClient::refreshItem);
+        for (int rank = 0; rank < rankedIds.size(); rank++) {
+            Long id = rankedIds.get(rank);
+            JSONObject item = items.get(id);
+            HotPost post = item != null ? HotPost.of(rank, item) : posts.get(id);
+            if (post != null) {
+                posts.put(id, post.withRank(rank));
+            }
+        }
+
+        snapshot = new Snapshot(List.copyOf(rankedIds), Map.copyOf(posts), maxItem, rankedAt);
+        log.info("热门帖子同步完成，重新排名：{}，刷新 {} 条，快照共 {} 条", rerank, items.size(), posts.size());
+    }
+
+    /**
+     * 热门帖子快照
+     * @param rankedIds 按排名排序的帖子id
+     * @param posts 帖子id与帖子信息的映射
+     * @param maxItem 同步时的最大帖子id
+     * @param rankedAt 最近一次拉取排名的时间
+     */
+    private record Snapshot(List<Long> rankedIds, Map<Long, HotPost> posts, long maxItem, Instant rankedAt) {
+    }
+}
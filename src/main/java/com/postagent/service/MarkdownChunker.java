@@ -0,0 +1,198 @@
+package com.postagent.service;
+
+import com.postagent.common.TokenEstimator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Markdown 分段
+ * 按标题切分章节，相邻章节合并到 token 预算以内；单个章节超过预算时按段落切分，单个段落仍超过预算时按句子切分。
+ * 代码块内的 # 不作为标题，切开的章节在后续分段前补上所属标题，保留上下文
+ */
+public class MarkdownChunker {
+
+    private static final Pattern HEADING = Pattern.compile("^#{1,6}\\s+\\S.*");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[。！？；.!?;])\\s*");
+
+    private final int budget;
+
+    /**
+     * @param budget 每段的 token 上限
+     */
+    public MarkdownChunker(int budget) {
+        this.budget = Math.max(200, budget);
+    }
+
+    public List<String> split(String markdown) {
+        List<String> chunks = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (Section section : sections(markdown)) {
+            int tokens = TokenEstimator.estimate(section.text());
+            if (tokens > budget) {
+                flush(chunks, current);
+                currentTokens = 0;
+                chunks.addAll(splitSection(section));
+                continue;
+            }
+            if (currentTokens + tokens > budget) {
+                flush(chunks, current);
+                currentTokens = 0;
+            }
+            append(current, section.text());
+            currentTokens += tokens;
+        }
+        flush(chunks, current);
+        return chunks;
+    }
+
+    /**
+     * 按标题切分章节，代码块内的行不作为标题
+     */
+    private static List<Section> sections(String markdown) {
+        List<Section> sections = new ArrayList<>();
+        StringBuilder body = new StringBuilder();
+        String heading = "";
+        boolean inFence = false;
+        for (String line : markdown.replace("\r\n", "\n").split("\n", -1)) {
+            if (line.stripLeading().startsWith("```")) {
+                inFence = !inFence;
+            }
+            if (!inFence && HEADING.matcher(line).matches()) {
+                if (!body.isEmpty()) {
+                    sections.add(new Section(heading, body.toString().strip()));
+                }
+                heading = line.strip();
+                body.setLength(0);
+            }
+            body.append(line).append('\n');
+        }
+        if (!body.toString().isBlank()) {
+            sections.add(new Section(heading, body.toString().strip()));
+        }
+        return sections;
+    }
+
+    /**
+     * 超过预算的章节按段落切分，后续分段以章节标题开头
+     */
+    private List<String> splitSection(Section section) {
+        List<String> chunks = new ArrayList<>();
+        String prefix = section.heading().isEmpty() ? "" : section.heading() + "（续）\n\n";
+        // 续段以标题开头，切分时为标题留出余量
+        int limit = Math.max(1, budget - TokenEstimator.estimate(prefix));
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String paragraph : paragraphs(section.text())) {
+            int tokens = TokenEstimator.estimate(paragraph);
+            List<String> pieces = tokens > limit ? splitSentences(paragraph, limit) : List.of(paragraph);
+            for (String piece : pieces) {
+                int pieceTokens = TokenEstimator.estimate(piece);
+                if (!current.isEmpty() && currentTokens + pieceTokens > budget) {
+                    flush(chunks, current);
+                    current.append(prefix);
+                    currentTokens = TokenEstimator.estimate(prefix);
+                }
+                append(current, piece);
+                currentTokens += pieceTokens;
+            }
+        }
+        flush(chunks, current);
+        return chunks;
+    }
+
+    /**
+     * 按空行切分段落，代码块作为一个段落
+     */
+    private static List<String> paragraphs(String text) {
+        List<String> paragraphs = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inFence = false;
+        for (String line : text.split("\n", -1)) {
+            if (line.stripLeading().startsWith("```")) {
+                inFence = !inFence;
+            }
+            if (!inFence && line.isBlank()) {
+                flush(paragraphs, current);
+                continue;
+            }
+            current.append(line).append('\n');
+        }
+        flush(paragraphs, current);
+        return paragraphs;
+    }
+
+    /**
+     * 按句子切分段落，没有句子边界时按预算截断
+     */
+    private static List<String> splitSentences(String paragraph, int limit) {
+        List<String> pieces = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String sentence : SENTENCE_END.split(paragraph)) {
+            for (String part : hardSplit(sentence, limit)) {
+                int tokens = TokenEstimator.estimate(part);
+                if (!current.isEmpty() && currentTokens + tokens > limit) {
+                    pieces.add(current.toString().strip());
+                    current.setLength(0);
+                    currentTokens = 0;
+                }
+                current.append(part);
+                currentTokens += tokens;
+            }
+        }
+        if (!current.toString().isBlank()) {
+            pieces.add(current.toString().strip());
+        }
+        return pieces;
+    }
+
+    /**
+     * 截取段落开头不超过预算的部分，优先在句子边界截断
+     */
+    static String truncate(String paragraph, int limit) {
+        if (limit <= 0) {
+            return "";
+        }
+        List<String> pieces = splitSentences(paragraph, limit);
+        return pieces.isEmpty() ? "" : pieces.get(0);
+    }
+
+    private static List<String> hardSplit(String text, int limit) {
+        if (TokenEstimator.estimate(text) <= limit) {
+            return List.of(text);
+        }
+        List<String> parts = new ArrayList<>();
+        int start = 0;
+        while (start < text.length()) {
+            // 按宽字符估算，每段不超过预算
+            int end = Math.min(text.length(), start + limit);
+            if (end < text.length() && Character.isHighSurrogate(text.charAt(end - 1))) {
+                end--;
+            }
+            parts.add(text.substring(start, end));
+            start = end;
+        }
+        return parts;
+    }
+
+    private static void append(StringBuilder builder, String text) {
+        if (!builder.isEmpty() && !builder.toString().endsWith("\n\n")) {
+            builder.append("\n\n");
+        }
+        builder.append(text);
+    }
+
+    private static void flush(List<String> chunks, StringBuilder current) {
+        String chunk = current.toString().strip();
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        current.setLength(0);
+    }
+
+    private record Section(String heading, String text) {
+    }
+}
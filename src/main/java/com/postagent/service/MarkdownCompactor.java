@@ -0,0 +1,279 @@
+package com.postagent.service;
+
+import com.postagent.common.TokenEstimator;
+import com.postagent.config.SummaryProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 正文预处理
+ * 抽取出的 Markdown 常带有 front matter、导航残留、长代码块、表格、参考文献列表及重复的模板文字，
+ * 这些内容对文案几乎没有帮助。调用模型前去掉或折叠这些内容，对多篇正文整体去重，
+ * 并按模型的输入预算截断，减少 prompt token 和耗时
+ */
+@Slf4j
+@Service
+public class MarkdownCompactor {
+
+    private static final Pattern FRONT_MATTER = Pattern.compile("\\A(?:---|\\+\\+\\+)\\n.*?\\n(?:---|\\+\\+\\+)\\n", Pattern.DOTALL);
+    private static final Pattern HTML_COMMENT = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+    private static final Pattern IMAGE = Pattern.compile("!\\[[^\\]]*]\\([^)]*\\)");
+    private static final Pattern LINK = Pattern.compile("\\[([^\\]]*)]\\((?:[^()]|\\([^)]*\\))*\\)");
+    private static final Pattern LINK_DEFINITION = Pattern.compile("^\\s*\\[[^\\]]+]:\\s+\\S+.*$");
+    private static final Pattern BARE_URL_LINE = Pattern.compile("^\\s*(?:[-*+]\\s+|\\d+\\.\\s+)?<?https?://\\S+>?\\s*$");
+    private static final Pattern HEADING = Pattern.compile("^(#{1,6})\\s+(.*)$");
+    private static final Pattern TABLE_ROW = Pattern.compile("^\\s*\\|.*\\|\\s*$");
+    private static final Pattern NAV_SEPARATOR = Pattern.compile("\\s*[|·•/»›]\\s*");
+    /**
+     * 以这些标题开头的章节整体去掉，直到出现同级或更高级的标题
+     */
+    private static final Set<String> DROPPED_SECTIONS = Set.of(
+            "references", "reference", "footnotes", "notes", "see also", "related", "related posts", "related articles",
+            "further reading", "bibliography", "sources", "links", "comments", "share", "share this", "about the author",
+            "参考", "参考资料", "参考文献", "参考链接", "相关阅读", "相关文章", "延伸阅读", "推荐阅读", "评论", "作者简介", "脚注");
+    /**
+     * 常见的导航、分享按钮文字
+     */
+    private static final Set<String> NAV_WORDS = Set.of(
+            "home", "menu", "share", "tweet", "subscribe", "sign in", "sign up", "log in", "login", "search", "skip to content",
+            "next", "previous", "prev", "back to top", "facebook", "twitter", "linkedin", "reddit", "email", "print", "copy link",
+            "首页", "菜单", "分享", "订阅", "登录", "注册", "搜索", "上一篇", "下一篇", "返回顶部", "微博", "微信", "复制链接");
+
+    private final SummaryProperties.Compact props;
+
+    public MarkdownCompactor(SummaryProperties summaryProperties) {
+        this.props = summaryProperties.getCompact();
+    }
+
+    /**
+     * 预处理正文
+     * @param documents 本次运行的所有正文
+     * @param model 调用的模型，用于选择输入预算
+     * @return 处理后的正文及处理前后的 token 估算
+     */
+    public Compacted compact(List<String> documents, String model) {
+        int originalTokens = documents.stream().mapToInt(TokenEstimator::estimate).sum();
+        if (!props.isEnabled()) {
+            return new Compacted(documents, originalTokens, originalTokens);
+        }
+        long start = System.nanoTime();
+        Set<String> seen = new HashSet<>();
+        List<String> compacted = new ArrayList<>();
+        for (String document : documents) {
+            String text = compactDocument(document, seen);
+            if (!text.isBlank()) {
+                compacted.add(text);
+            }
+        }
+        compacted = enforceBudget(compacted, props.getBudget(model));
+        int tokens = compacted.stream().mapToInt(TokenEstimator::estimate).sum();
+        log.info("正文预处理：约 {} -> {} tokens（预算 {}），耗时 {} ms", originalTokens, tokens, props.getBudget(model),
+                (System.nanoTime() - start) / 1_000_000);
+        return new Compacted(compacted, originalTokens, tokens);
+    }
+
+    private String compactDocument(String document, Set<String> seen) {
+        String text = document.replace("\r\n", "\n").replace('\r', '\n');
+        text = FRONT_MATTER.matcher(text).replaceFirst("");
+        text = HTML_COMMENT.matcher(text).replaceAll("");
+
+        List<String> blocks = new ArrayList<>();
+        StringBuilder paragraph = new StringBuilder();
+        List<String> fence = null;
+        List<String> table = new ArrayList<>();
+        int droppedLevel = 0;
+        for (String line : text.split("\n", -1)) {
+            if (line.stripLeading().startsWith("```")) {
+                if (fence == null) {
+                    flush(blocks, paragraph, seen);
+                    flushTable(blocks, table);
+                    fence = new ArrayList<>();
+                    fence.add(line);
+                } else {
+                    fence.add(line);
+                    if (droppedLevel == 0) {
+                        blocks.add(collapseFence(fence));
+                    }
+                    fence = null;
+                }
+                continue;
+            }
+            if (fence != null) {
+                fence.add(line);
+                continue;
+            }
+
+            var heading = HEADING.matcher(line);
+            if (heading.matches()) {
+                int level = heading.group(1).length();
+                if (droppedLevel > 0 && level > droppedLevel) {
+                    continue;
+                }
+                droppedLevel = 0;
+                flush(blocks, paragraph, seen);
+                flushTable(blocks, table);
+                String title = stripInline(heading.group(2)).strip();
+                if (DROPPED_SECTIONS.contains(title.replaceAll("[:：\\s]+$", "").toLowerCase(Locale.ROOT))) {
+                    droppedLevel = level;
+                    continue;
+                }
+                blocks.add(heading.group(1) + " " + title);
+                continue;
+            }
+            if (droppedLevel > 0) {
+                continue;
+            }
+            if (TABLE_ROW.matcher(line).matches()) {
+                flush(blocks, paragraph, seen);
+                table.add(stripInline(line));
+                continue;
+            }
+            flushTable(blocks, table);
+            if (line.isBlank()) {
+                flush(blocks, paragraph, seen);
+                continue;
+            }
+            if (LINK_DEFINITION.matcher(line).matches() || BARE_URL_LINE.matcher(line).matches() || isNavigation(line)) {
+                continue;
+            }
+            paragraph.append(stripInline(line).stripTrailing()).append('\n');
+        }
+        if (fence != null && droppedLevel == 0) {
+            blocks.add(collapseFence(fence));
+        }
+        flush(blocks, paragraph, seen);
+        flushTable(blocks, table);
+        return String.join("\n\n", blocks).strip();
+    }
+
+    /**
+     * 去掉图片，链接只保留文字
+     */
+    private static String stripInline(String line) {
+        String text = IMAGE.matcher(line).replaceAll("");
+        return LINK.matcher(text).replaceAll("$1");
+    }
+
+    /**
+     * 导航残留：由导航、分享按钮文字组成的短行
+     */
+    private static boolean isNavigation(String line) {
+        String text = stripInline(line).strip().replaceFirst("^[-*+]\\s+", "");
+        if (text.isEmpty()) {
+            return true;
+        }
+        if (text.length() > 80) {
+            return false;
+        }
+        for (String word : NAV_SEPARATOR.split(text)) {
+            if (!word.isBlank() && !NAV_WORDS.contains(word.strip().toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 段落去重：模板文字（订阅提示、版权声明等）在多篇正文或同一篇中重复出现时只保留第一次
+     */
+    private static void flush(List<String> blocks, StringBuilder paragraph, Set<String> seen) {
+        String text = paragraph.toString().strip();
+        paragraph.setLength(0);
+        if (text.isEmpty()) {
+            return;
+        }
+        String key = text.replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        // 过短的段落（如"是的"）重复出现也可能是正文内容，不参与去重
+        if (key.length() >= 20 && !seen.add(key)) {
+            return;
+        }
+        blocks.add(text);
+    }
+
+    private void flushTable(List<String> blocks, List<String> table) {
+        if (table.isEmpty()) {
+            return;
+        }
+        int keep = props.getMaxTableRows() + 2;
+        if (table.size() > keep) {
+            List<String> rows = new ArrayList<>(table.subList(0, keep));
+            rows.add("（省略 " + (table.size() - keep) + " 行表格）");
+            blocks.add(String.join("\n", rows));
+        } else {
+            blocks.add(String.join("\n", table));
+        }
+        table.clear();
+    }
+
+    /**
+     * 长代码块只保留开头几行
+     */
+    private String collapseFence(List<String> fence) {
+        int body = fence.size() - 2;
+        int keep = props.getMaxCodeLines();
+        if (body <= keep) {
+            return String.join("\n", fence);
+        }
+        List<String> lines = new ArrayList<>(fence.subList(0, keep + 1));
+        lines.add("// ...（省略 " + (body - keep) + " 行代码）");
+        lines.add(fence.get(fence.size() - 1));
+        return String.join("\n", lines);
+    }
+
+    /**
+     * 超过预算时从末尾按段落截断，最后一篇正文优先被截断；
+     * 超过剩余预算的段落按句子截取到剩余预算，避免开头就是超长段落时整篇被丢弃
+     */
+    private static List<String> enforceBudget(List<String> documents, int budget) {
+        int total = documents.stream().mapToInt(TokenEstimator::estimate).sum();
+        if (budget <= 0 || total <= budget) {
+            return documents;
+        }
+        List<String> result = new ArrayList<>();
+        int remaining = budget;
+        for (String document : documents) {
+            int tokens = TokenEstimator.estimate(document);
+            if (tokens <= remaining) {
+                result.add(document);
+                remaining -= tokens;
+                continue;
+            }
+            StringBuilder kept = new StringBuilder();
+            for (String block : document.split("\n\n")) {
+                int blockTokens = TokenEstimator.estimate(block) + 1;
+                if (blockTokens > remaining) {
+                    kept.append(MarkdownChunker.truncate(block, remaining - 1));
+                    break;
+                }
+                kept.append(block).append("\n\n");
+                remaining -= blockTokens;
+            }
+            if (!kept.isEmpty()) {
+                result.add(kept.toString().strip());
+            }
+            break;
+        }
+        log.warn("正文约 {} tokens，超过输入预算 {}，已截断", total, budget);
+        return result;
+    }
+
+    /**
+     * 预处理结果
+     * @param documents 处理后的正文
+     * @param originalTokens 处理前的 token 估算
+     * @param tokens 处理后的 token 估算
+     */
+    public record Compacted(List<String> documents, int originalTokens, int tokens) {
+
+        public int savedTokens() {
+            return Math.max(0, originalTokens - tokens);
+        }
+    }
+}
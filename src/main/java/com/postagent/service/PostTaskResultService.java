@@ -5,6 +5,8 @@ import com.postagent.repository.PostTaskResultRepository;
 import jakarta.annotation.Resource;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 @Service
 public class PostTaskResultService {
     @Resource
@@ -13,4 +15,8 @@ public class PostTaskResultService {
     public PostTaskResult findByDataId(long hotId) {
         return postTaskResultRepository.findByDataId(hotId);
     }
+
+    public Optional<PostTaskResult> findById(long id) {
+        return postTaskResultRepository.findById(id);
+    }
 }
\ No newline at end of file
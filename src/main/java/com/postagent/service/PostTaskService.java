@@ -10,6 +10,9 @@ import jakarta.annotation.Resource;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -21,6 +24,12 @@ public class PostTaskService {
     private PostTaskRepository postTaskRepository;
     @Resource
     private PostTaskResultRepository postTaskResultRepository;
+    @Resource
+    private CollectedPostIndex collectedPostIndex;
+    @Resource
+    private CandidateQueue candidateQueue;
+    @Resource
+    private ArtifactWorkspace artifactWorkspace;
     @Resource(name = "compiledPostAgentGraph")
     private CompiledGraph compiledGraph;
 
@@ -35,6 +44,10 @@ public class PostTaskService {
         return postTaskRepository.findByPage(pageable);
     }
 
+    public boolean existsPostTask(Long taskId) {
+        return taskId != null && postTaskRepository.existsById(taskId);
+    }
+
     public void executePostTask(Long taskId) {
         // 从数据库查询任务
         PostTask postTask = postTaskRepository.findById(taskId).orElse(null);
@@ -42,10 +55,23 @@ public class PostTaskService {
             throw new RuntimeException("任务不存在");
         }
         postTask.setStatus(PostTask.Status.RUNNING.getValue());
-        Map<String, Object> params = Map.of("task_object", postTask);
+        // 分配本次运行的暂存目录，工作流成功后提交，失败时清理
+        Path workspace;
+        try {
+            workspace = artifactWorkspace.allocate(taskId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("分配任务目录失败", e);
+        }
+        Map<String, Object> params = Map.of("task_object", postTask, "output_directory", workspace.toString());
         postTaskRepository.save(postTask);
         // 执行工作流
-        Optional<OverAllState> result = compiledGraph.call(params);
+        Optional<OverAllState> result;
+        try {
+            result = compiledGraph.call(params);
+        } catch (RuntimeException e) {
+            artifactWorkspace.discard(workspace);
+            throw e;
+        }
         if (result.isPresent()) {
             OverAllState overallState = result.get();
             // 更新任务状态
@@ -57,6 +83,7 @@ public class PostTaskService {
             String url = overallState.value("collectedUrl").orElseThrow(() -> new RuntimeException("collectedUrl 不存在")).toString();
             String targetDir = overallState.value("targetDir").orElseThrow(() -> new RuntimeException("targetDir 不存在")).toString();
             String postId = overallState.value("postId").orElseThrow(() -> new RuntimeException("postId 不存在")).toString();
+            targetDir = commitWorkspace(workspace, targetDir);
 
             // 保存任务结果
             PostTaskResult postTaskResult = new PostTaskResult();
@@ -67,8 +94,30 @@ public class PostTaskService {
             postTaskResult.setOutputDirectory(targetDir);
             postTaskResult.setCreateTime(new Date());
             postTaskResultRepository.save(postTaskResult);
+            collectedPostIndex.add(postTaskResult.getDataId());
+            candidateQueue.release(postTaskResult.getDataId());
         } else {
+            artifactWorkspace.discard(workspace);
             postTask.setStatus(PostTask.Status.FAILED.getValue());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 提交运行目录
+     * @param workspace 暂存目录
+     * @param targetDir 工作流返回的目录，下载失败时为错误信息
+     * @return 提交后的目录，工作流没有使用暂存目录时返回原值
+     */
+    private String commitWorkspace(Path workspace, String targetDir) {
+        if (!workspace.toString().equals(targetDir)) {
+            artifactWorkspace.discard(workspace);
+            return targetDir;
+        }
+        try {
+            return artifactWorkspace.commit(workspace).toString();
+        } catch (IOException e) {
+            artifactWorkspace.discard(workspace);
+            throw new UncheckedIOException("提交任务目录失败", e);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.postagent.service;
 
+import com.postagent.config.SummaryProperties;
 import com.postagent.exception.ErrorCode;
 import com.postagent.exception.PromptProcessingException;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
@@ -21,7 +23,16 @@ import java.util.regex.Pattern;
 public class PromptService {
 
     // 提示词文件列表
-    private static final String[] PROMPT_FILES = {"prompts/summary-agent-prompt.md"};
+    private static final String[] PROMPT_FILES = {"prompts/summary-agent-prompt.md", "prompts/summary-chunk-prompt.md",
+            "prompts/summary-cascade-prompt.md"};
+
+    // 分级生成的提示词名称
+    public static final String COVER_TITLE_PROMPT = "summary.封面标题提示词";
+    public static final String DECOR_EMOJI_PROMPT = "summary.装饰表情提示词";
+    public static final String BODY_COPY_PROMPT = "summary.正文文案提示词";
+
+    @Resource
+    private SummaryProperties summaryProperties;
 
     private Map<String, String> promptTemplates = new HashMap<>();
 
@@ -158,6 +169,34 @@ public class PromptService {
         return buildPrompt("summary.内容总结提示词", variables);
     }
 
+    /**
+     * 获取长文分段提炼要点的提示词
+     * @param index 当前分段序号，从1开始
+     * @param total 分段总数
+     */
+    public String getChunkSummaryPrompt(int index, int total) throws PromptProcessingException {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("index", index);
+        variables.put("total", total);
+        return buildPrompt("summary.分段要点提示词", variables);
+    }
+
+    /**
+     * 获取分级生成的提示词
+     * @param promptName 提示词名称，如 {@link #COVER_TITLE_PROMPT}
+     */
+    public String getCascadePrompt(String promptName) throws PromptProcessingException {
+        return buildPrompt(promptName, Map.of());
+    }
+
+    /**
+     * 获取提示词使用的模型级别，未配置时使用文案模型
+     * @param promptName 提示词名称
+     */
+    public SummaryProperties.ModelTier getModelTier(String promptName) {
+        return summaryProperties.getCascade().getTier(promptName);
+    }
+
     // ========== 通用提示词 ==========
 
     /**
@@ -8,28 +8,43 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
-import java.io.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
 
 public class PythonScriptService {
 
+    // 脚本失败时异常信息中保留的输出长度
+    private static final int OUTPUT_TAIL_BYTES = 4096;
+
     @Resource
     private PythonProperties props;
 
+    @Resource
+    private PythonWorkerPool pythonWorkerPool;
+
+    @Resource
+    private ScriptLogSink scriptLogSink;
+
     /**
-     * 执行python脚本
+     * 执行python脚本，优先使用常驻工作进程，工作进程不可用时启动新的解释器执行
+     * 脚本输出追加到目标目录的 result.log，以退出码判断是否执行成功
      * @param content 要处理的内容
      * @param args 执行参数
-     * @return 执行进程
-     * @throws Exception 执行脚本时出现异常
+     * @throws IOException 脚本执行失败、超时或被中断
      */
     public void executeScript(String scriptName, String targetDir, String content, List<String> args) throws IOException {
 
@@ -38,46 +53,155 @@ public class PythonScriptService {
             throw new PromptProcessingException("Script not found: " + script);
         }
 
-        List<String> cmd = new ArrayList<>();
-        // python解释器路径
-        cmd.add(props.getInterpreter().toString());
-        // 脚本路径
-        cmd.add(script.toString());
+        List<String> scriptArgs = new ArrayList<>();
         // 要处理的内容,比如从指定url下载文件
         if (StringUtils.hasText(content)) {
-            cmd.add(content);
+            scriptArgs.add(content);
         }
         // 执行参数
         if (!CollectionUtils.isEmpty(args)) {
-            cmd.addAll(args);
+            scriptArgs.addAll(args);
         }
 
+        Duration timeout = props.getTimeout(scriptName);
+        try (ScriptLogSink.LogHandle logHandle = scriptLogSink.open(Path.of(targetDir, "result.log"))) {
+            if (pythonWorkerPool.isEnabled()) {
+                try {
+                    log.info("Running python script in worker: {}", scriptName);
+                    // 与单次执行一样，输出边接收边写入日志，只保留最后一段用于异常信息
+                    OutputTail tail = new OutputTail();
+                    int exitCode = pythonWorkerPool.execute(scriptName, scriptArgs, timeout, text -> {
+                        ByteBuffer buffer = StandardCharsets.UTF_8.encode(text);
+                        tail.keep(buffer);
+                        logHandle.write(buffer);
+                    });
+                    checkExitCode(scriptName, exitCode, tail.toString());
+                    return;
+                } catch (PythonWorkerPool.PythonWorkerException e) {
+                    log.warn("Python 工作进程不可用，改为单次执行：{}", e.getMessage());
+                }
+            }
+            executeOnce(script, scriptArgs, timeout, logHandle);
+        }
+    }
+
+    /**
+     * 启动新的解释器执行脚本，输出边读取边写入日志，超时或调用线程被中断时结束整个进程树
+     */
+    private void executeOnce(Path script, List<String> scriptArgs, Duration timeout, ScriptLogSink.LogHandle logHandle) throws IOException {
+        List<String> cmd = new ArrayList<>();
+        // python解释器路径
+        cmd.add(props.getInterpreter().toString());
+        // 脚本路径
+        cmd.add(script.toString());
+        cmd.addAll(scriptArgs);
+
         ProcessBuilder pb = new ProcessBuilder(cmd)
                 .directory(props.getScriptDir().toFile())
                 .redirectErrorStream(true);
 
+        String scriptName = script.getFileName().toString();
         log.info("Running python script: {}", scriptName);
         Process process = pb.start();
-        String outputData = readProcessOutput(process.getInputStream());
+        OutputPump pump = new OutputPump(process.getInputStream(), logHandle);
+        Thread pumpThread = new Thread(pump, "python-output-" + process.pid());
+        pumpThread.setDaemon(true);
+        pumpThread.start();
 
-        // 向指定文件写入脚本响应（日志）
-        FileWriter writer = new FileWriter(targetDir + File.separator + "result.log", StandardCharsets.UTF_8, true);
-        writer.write(outputData);
-        writer.close();
+        try {
+            if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                destroyProcessTree(process);
+                throw new IOException("Python script execution timed out after " + timeout + ": " + scriptName);
+            }
+            // 进程退出后等待剩余输出写完
+            pumpThread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            destroyProcessTree(process);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Python script execution interrupted: " + scriptName);
+        }
+        if (pump.failure != null) {
+            throw pump.failure;
+        }
+        checkExitCode(scriptName, process.exitValue(), pump.tail());
+    }
+
+    private void checkExitCode(String scriptName, int exitCode, String output) throws IOException {
+        if (exitCode != 0) {
+            throw new IOException("Python script execution failed (" + scriptName + ", exit code " + exitCode + "): " + tail(output));
+        }
+    }
 
-        // TODO 错误处理
-        if (outputData.contains("Error")) {
-            throw new IOException("Python script execution failed: " + outputData);
+    private static String tail(String output) {
+        if (output == null || output.length() <= OUTPUT_TAIL_BYTES) {
+            return output;
         }
+        return "..." + output.substring(output.length() - OUTPUT_TAIL_BYTES);
+    }
+
+    private static void destroyProcessTree(Process process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
     }
 
     /**
-     * 读取进程输出
+     * 读取进程输出并写入日志，同时保留最后一段输出用于异常信息
      */
-    private String readProcessOutput(InputStream inputStream) throws IOException {
-        try (BufferedReader reader = new BufferedReader(
-                new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
-            return reader.lines().collect(Collectors.joining("\n"));
+    private static class OutputPump implements Runnable {
+        private final InputStream inputStream;
+        private final ScriptLogSink.LogHandle logHandle;
+        private final OutputTail tail = new OutputTail();
+        private volatile IOException failure;
+
+        OutputPump(InputStream inputStream, ScriptLogSink.LogHandle logHandle) {
+            this.inputStream = inputStream;
+            this.logHandle = logHandle;
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            try (ReadableByteChannel channel = Channels.newChannel(inputStream)) {
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    tail.keep(buffer);
+                    logHandle.write(buffer);
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        String tail() {
+            return tail.toString();
+        }
+    }
+
+    /**
+     * 输出的最后 {@link #OUTPUT_TAIL_BYTES} 字节，不改变传入缓冲区的位置
+     */
+    private static class OutputTail {
+        private final byte[] tail = new byte[OUTPUT_TAIL_BYTES];
+        private int tailLength;
+
+        synchronized void keep(ByteBuffer buffer) {
+            int length = buffer.remaining();
+            int position = buffer.position();
+            if (length >= tail.length) {
+                buffer.get(position + length - tail.length, tail, 0, tail.length);
+                tailLength = tail.length;
+                return;
+            }
+            int keep = Math.min(tailLength, tail.length - length);
+            System.arraycopy(tail, tailLength - keep, tail, 0, keep);
+            buffer.get(position, tail, keep, length);
+            tailLength = keep + length;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return new String(tail, 0, tailLength, StandardCharsets.UTF_8);
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,339 @@
+package com.postagent.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.postagent.config.PythonProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 常驻 Python 工作进程池
+ * 工作进程运行 worker.py，通过 stdin/stdout 的 JSON Lines 协议执行脚本，避免每次调用都启动解释器并重新导入依赖。
+ * 脚本输出在执行期间按行转发给调用方，不在内存中累积。
+ * 工作进程崩溃或超时后会被销毁并重启，处理的请求数达到上限后回收
+ */
+@Slf4j
+@Service
+public class PythonWorkerPool {
+
+    private static final String WORKER_SCRIPT = "worker.py";
+
+    private final PythonProperties props;
+    private final BlockingQueue<PythonWorker> idleWorkers = new LinkedBlockingQueue<>();
+    private final AtomicInteger workerCount = new AtomicInteger();
+    private final AtomicInteger workerSequence = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    public PythonWorkerPool(PythonProperties props) {
+        this.props = props;
+    }
+
+    public boolean isEnabled() {
+        return props.getPool().isEnabled() && !closed;
+    }
+
+    /**
+     * 在工作进程中执行脚本
+     * @param scriptName 脚本名称
+     * @param args 脚本参数
+     * @param timeout 执行超时时间，超时后工作进程会被销毁
+     * @param output 接收脚本输出，在读取线程中按行回调
+     * @return 退出码
+     * @throws PythonWorkerException 没有可用的工作进程，或工作进程执行过程中崩溃
+     * @throws IOException 执行超时、等待时被中断或处理输出失败
+     */
+    public int execute(String scriptName, List<String> args, Duration timeout, OutputListener output) throws IOException {
+        PythonWorker worker = acquire();
+        boolean healthy = false;
+        try {
+            Map<String, Object> request = new LinkedHashMap<>();
+            request.put("script", scriptName);
+            request.put("args", args);
+            JSONObject response = worker.call(request, timeout, output);
+            healthy = true;
+            return response.getIntValue("exitCode");
+        } finally {
+            release(worker, healthy);
+        }
+    }
+
+    /**
+     * 定时检查空闲工作进程是否存活，无响应的进程会被重启
+     */
+    @Scheduled(fixedDelayString = "${app.python.pool.health-check-interval:PT1M}")
+    public void healthCheck() {
+        if (!isEnabled()) {
+            return;
+        }
+        List<PythonWorker> workers = new ArrayList<>();
+        idleWorkers.drainTo(workers);
+        for (PythonWorker worker : workers) {
+            boolean healthy;
+            try {
+                worker.call(Map.of("op", "ping"), props.getPool().getHealthCheckTimeout(), text -> {
+                });
+                healthy = true;
+            } catch (IOException e) {
+                log.warn("Python 工作进程 {} 健康检查失败：{}", worker.name, e.getMessage());
+                healthy = false;
+            }
+            release(worker, healthy);
+        }
+    }
+
+    private PythonWorker acquire() throws PythonWorkerException {
+        PythonWorker worker = idleWorkers.poll();
+        // 进程数未达到上限时按需启动新的工作进程
+        while (worker == null) {
+            int count = workerCount.get();
+            if (count < props.getPool().getSize()) {
+                if (workerCount.compareAndSet(count, count + 1)) {
+                    try {
+                        return startWorker();
+                    } catch (IOException e) {
+                        workerCount.decrementAndGet();
+                        throw new PythonWorkerException("启动 Python 工作进程失败：" + e.getMessage(), e);
+                    }
+                }
+                continue;
+            }
+            try {
+                worker = idleWorkers.poll(props.getPool().getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new PythonWorkerException("等待 Python 工作进程时被中断", e);
+            }
+            if (worker == null) {
+                throw new PythonWorkerException("等待 Python 工作进程超时");
+            }
+        }
+        if (!worker.isAlive()) {
+            log.warn("Python 工作进程 {} 已退出，重新启动", worker.name);
+            worker.destroy();
+            try {
+                return startWorker();
+            } catch (IOException e) {
+                workerCount.decrementAndGet();
+                throw new PythonWorkerException("重启 Python 工作进程失败：" + e.getMessage(), e);
+            }
+        }
+        return worker;
+    }
+
+    /**
+     * 归还工作进程，异常或达到请求上限的进程直接销毁，由下一次请求按需重新启动
+     */
+    private void release(PythonWorker worker, boolean healthy) {
+        boolean retire = !healthy || closed || !worker.isAlive()
+                || worker.requests.get() >= props.getPool().getMaxRequestsPerWorker();
+        if (retire) {
+            log.info("回收 Python 工作进程 {}，已处理请求 {} 次", worker.name, worker.requests.get());
+            worker.destroy();
+            workerCount.decrementAndGet();
+        } else {
+            idleWorkers.offer(worker);
+        }
+    }
+
+    private PythonWorker startWorker() throws IOException {
+        List<String> cmd = List.of(props.getInterpreter().toString(),
+                props.getScriptDir().resolve(WORKER_SCRIPT).toString());
+        Process process = new ProcessBuilder(cmd)
+                .directory(props.getScriptDir().toFile())
+                .start();
+        PythonWorker worker = new PythonWorker("python-worker-" + workerSequence.incrementAndGet(), process);
+        log.info("Python 工作进程 {} 已启动，pid={}", worker.name, process.pid());
+        return worker;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        List<PythonWorker> workers = new ArrayList<>();
+        idleWorkers.drainTo(workers);
+        workers.forEach(PythonWorker::destroy);
+    }
+
+    /**
+     * 接收脚本执行期间的输出
+     */
+    @FunctionalInterface
+    public interface OutputListener {
+        /**
+         * @param text 标准输出及标准错误中的一行或一段
+         */
+        void onOutput(String text) throws IOException;
+    }
+
+    /**
+     * 工作进程不可用，调用方可以退回单次执行模式
+     */
+    public static class PythonWorkerException extends IOException {
+        public PythonWorkerException(String message) {
+            super(message);
+        }
+
+        public PythonWorkerException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * 单个工作进程，同一时间只处理一个请求
+     */
+    private static class PythonWorker {
+        private final String name;
+        private final Process process;
+        private final BufferedWriter writer;
+        private final AtomicLong requestSequence = new AtomicLong();
+        private final AtomicInteger requests = new AtomicInteger();
+        private volatile Call pending;
+
+        PythonWorker(String name, Process process) {
+            this.name = name;
+            this.process = process;
+            this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            startDaemon(name + "-reader", this::readResponses);
+            startDaemon(name + "-stderr", this::drainStderr);
+        }
+
+        JSONObject call(Map<String, Object> request, Duration timeout, OutputListener output) throws IOException {
+            long id = requestSequence.incrementAndGet();
+            Map<String, Object> message = new LinkedHashMap<>(request);
+            message.put("id", id);
+            Call call = new Call(id, new CompletableFuture<>(), output);
+            pending = call;
+            requests.incrementAndGet();
+            JSONObject response;
+            try {
+                writer.write(JSON.toJSONString(message));
+                writer.newLine();
+                writer.flush();
+                response = call.future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (IOException e) {
+                throw new PythonWorkerException("向 Python 工作进程 " + name + " 发送请求失败：" + e.getMessage(), e);
+            } catch (TimeoutException e) {
+                // 超时不退回单次执行，避免同一脚本重复运行
+                throw new IOException("Python 工作进程 " + name + " 执行超时（" + timeout + "）", e);
+            } catch (ExecutionException e) {
+                throw new PythonWorkerException("Python 工作进程 " + name + " 异常退出：" + e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("等待 Python 工作进程 " + name + " 响应时被中断");
+            } finally {
+                pending = null;
+            }
+            if (response.getLongValue("id") != id) {
+                throw new PythonWorkerException("Python 工作进程 " + name + " 响应id不匹配");
+            }
+            if (call.outputFailure != null) {
+                // 工作进程正常，只是输出没有处理成功，不退回单次执行
+                throw new IOException("处理 Python 脚本输出失败：" + call.outputFailure.getMessage(), call.outputFailure);
+            }
+            return response;
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        void destroy() {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+
+        /**
+         * 读取协议消息：没有 exitCode 的消息是执行期间的输出，转给当前请求；有 exitCode 的消息结束当前请求
+         */
+        private void readResponses() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Call call = pending;
+                    if (call == null) {
+                        continue;
+                    }
+                    JSONObject message = JSON.parseObject(line);
+                    if (message.containsKey("exitCode")) {
+                        call.future.complete(message);
+                    } else if (message.getLongValue("id") == call.id) {
+                        call.onOutput(message.getString("output"));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.debug("读取 Python 工作进程 {} 输出结束：{}", name, e.getMessage());
+            }
+            Call call = pending;
+            if (call != null) {
+                call.future.completeExceptionally(new IOException("工作进程已退出"));
+            }
+        }
+
+        private void drainStderr() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    log.debug("[{}] {}", name, line);
+                }
+            } catch (IOException e) {
+                log.debug("读取 Python 工作进程 {} 错误输出结束：{}", name, e.getMessage());
+            }
+        }
+
+        /**
+         * 正在执行的请求，输出处理失败后不再回调，继续读取直到请求结束
+         */
+        private static final class Call {
+            private final long id;
+            private final CompletableFuture<JSONObject> future;
+            private final OutputListener output;
+            private volatile IOException outputFailure;
+
+            Call(long id, CompletableFuture<JSONObject> future, OutputListener output) {
+                this.id = id;
+                this.future = future;
+                this.output = output;
+            }
+
+            void onOutput(String text) {
+                if (text == null || outputFailure != null) {
+                    return;
+                }
+                try {
+                    output.onOutput(text);
+                } catch (IOException e) {
+                    outputFailure = e;
+                }
+            }
+        }
+
+        private static void startDaemon(String name, Runnable task) {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+}
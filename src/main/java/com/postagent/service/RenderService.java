@@ -0,0 +1,259 @@
+package com.postagent.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.postagent.config.PythonProperties;
+import com.postagent.config.RenderProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 常驻渲染服务
+ * 管理运行 render_service.py 的子进程，子进程维护一个预热的 Chromium 及页面池。
+ * 渲染任务通过 stdin/stdout 的 JSON Lines 协议提交，多个任务可以同时进行，按请求id匹配响应；
+ * 子进程退出后，进行中的任务全部失败，下一次提交时重新启动
+ */
+@Slf4j
+@Service
+public class RenderService {
+
+    private static final String SERVICE_SCRIPT = "render_service.py";
+
+    private final PythonProperties pythonProperties;
+    private final RenderProperties props;
+    private final AtomicLong requestSequence = new AtomicLong();
+    private final Map<Long, PendingJob> pending = new ConcurrentHashMap<>();
+    private final Object lock = new Object();
+    private Process process;
+    private BufferedWriter writer;
+    private volatile boolean closed = false;
+
+    public RenderService(PythonProperties pythonProperties, RenderProperties props) {
+        this.pythonProperties = pythonProperties;
+        this.props = props;
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled() && !closed;
+    }
+
+    /**
+     * 提交渲染任务
+     * @param job 渲染任务
+     * @return 生成的图片路径，任务失败时以 {@link RenderException} 结束
+     */
+    public CompletableFuture<List<Path>> submit(RenderJob job) {
+        long id = requestSequence.incrementAndGet();
+        Map<String, Object> message = new LinkedHashMap<>(job.toRequest());
+        message.put("id", id);
+        CompletableFuture<JSONObject> future = new CompletableFuture<>();
+        try {
+            send(id, message, future);
+        } catch (IOException e) {
+            pending.remove(id);
+            return CompletableFuture.failedFuture(new RenderException("提交渲染任务失败：" + e.getMessage(), e));
+        }
+        return future.orTimeout(props.getJobTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((response, e) -> pending.remove(id))
+                .thenApply(response -> {
+                    if (!response.getBooleanValue("ok")) {
+                        throw new RenderException("渲染失败（" + job.type() + "）：" + response.getString("error"));
+                    }
+                    JSONArray files = response.getJSONArray("files");
+                    List<Path> paths = new ArrayList<>(files.size());
+                    for (int i = 0; i < files.size(); i++) {
+                        paths.add(Path.of(files.getString(i)));
+                    }
+                    return paths;
+                });
+    }
+
+    private void send(long id, Map<String, Object> message, CompletableFuture<JSONObject> future) throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                throw new IOException("渲染服务已关闭");
+            }
+            ensureStarted();
+            pending.put(id, new PendingJob(process, future));
+            writer.write(JSON.toJSONString(message));
+            writer.newLine();
+            writer.flush();
+        }
+    }
+
+    private void ensureStarted() throws IOException {
+        if (process != null && process.isAlive()) {
+            return;
+        }
+        List<String> cmd = List.of(pythonProperties.getInterpreter().toString(),
+                pythonProperties.getScriptDir().resolve(SERVICE_SCRIPT).toString(),
+                "--pages", String.valueOf(props.getPages()),
+                "--max-uses", String.valueOf(props.getMaxPageUses()));
+        ProcessBuilder builder = new ProcessBuilder(cmd)
+                .directory(pythonProperties.getScriptDir().toFile());
+        // 渲染服务会导入其他脚本，不在脚本目录中生成 __pycache__
+        builder.environment().put("PYTHONDONTWRITEBYTECODE", "1");
+        Process started = builder.start();
+        process = started;
+        writer = new BufferedWriter(new OutputStreamWriter(started.getOutputStream(), StandardCharsets.UTF_8));
+        startDaemon("render-service-reader", () -> readResponses(started));
+        startDaemon("render-service-stderr", () -> drainStderr(started));
+        log.info("渲染服务已启动，pid={}", started.pid());
+    }
+
+    private void readResponses(Process source) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(source.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                JSONObject response = JSON.parseObject(line);
+                PendingJob job = pending.get(response.getLongValue("id"));
+                if (job != null) {
+                    job.future().complete(response);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.debug("读取渲染服务输出结束：{}", e.getMessage());
+        }
+        if (!closed) {
+            log.warn("渲染服务已退出，进行中的任务数：{}", pending.size());
+        }
+        // 子进程退出，进行中的任务全部失败
+        synchronized (lock) {
+            if (process == source) {
+                process = null;
+            }
+        }
+        pending.values().stream()
+                .filter(job -> job.process() == source)
+                .forEach(job -> job.future().completeExceptionally(new RenderException("渲染服务已退出")));
+    }
+
+    private void drainStderr(Process source) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(source.getErrorStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.debug("[render-service] {}", line);
+            }
+        } catch (IOException e) {
+            log.debug("读取渲染服务错误输出结束：{}", e.getMessage());
+        }
+    }
+
+    private static void startDaemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Process current;
+        synchronized (lock) {
+            closed = true;
+            current = process;
+            if (current == null) {
+                return;
+            }
+            // 关闭 stdin 后服务处理完进行中的任务并关闭浏览器
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.debug("关闭渲染服务输入失败：{}", e.getMessage());
+            }
+        }
+        try {
+            if (!current.waitFor(10, TimeUnit.SECONDS)) {
+                current.descendants().forEach(ProcessHandle::destroyForcibly);
+                current.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            current.descendants().forEach(ProcessHandle::destroyForcibly);
+            current.destroyForcibly();
+        }
+    }
+
+    private record PendingJob(Process process, CompletableFuture<JSONObject> future) {
+    }
+
+    /**
+     * 渲染任务
+     * @param type 任务类型：cover 封面，content 内容
+     * @param name 输出文件名（不包含扩展名）
+     * @param outDir 输出目录
+     * @param data 模板数据
+     */
+    public record RenderJob(String type, String name, String outDir, Map<String, Object> data) {
+
+        /**
+         * 封面任务
+         * @param title 封面标题
+         * @param underline 下划线的字符范围，格式 [start,end]，为空时不加下划线
+         */
+        public static RenderJob cover(String title, String underline, String name, String outDir) {
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("title", title);
+            if (StringUtils.hasText(underline)) {
+                data.put("underline", underline);
+            }
+            return new RenderJob("cover", name, outDir, data);
+        }
+
+        /**
+         * 内容任务，内容过长时按页拆分为多张图片
+         * @param content 内容文本
+         */
+        public static RenderJob content(String content, String name, String outDir) {
+            return new RenderJob("content", name, outDir, Map.of("content", content));
+        }
+
+        /**
+         * 已分页的内容任务，每一页渲染为一张图片
+         * @param pages 每一页的段落 HTML
+         * @param startPage 第一页的页码，第 1 页文件名为 name，之后为 name_页码
+         */
+        public static RenderJob pages(List<List<String>> pages, int startPage, String name, String outDir) {
+            return new RenderJob("content", name, outDir, Map.of("pages", pages, "start", startPage));
+        }
+
+        Map<String, Object> toRequest() {
+            Map<String, Object> request = new LinkedHashMap<>(data);
+            request.put("type", type);
+            request.put("name", name);
+            request.put("out", outDir);
+            return request;
+        }
+    }
+
+    /**
+     * 渲染任务失败
+     */
+    public static class RenderException extends RuntimeException {
+        public RenderException(String message) {
+            super(message);
+        }
+
+        public RenderException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
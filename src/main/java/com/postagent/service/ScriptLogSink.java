@@ -0,0 +1,97 @@
+package com.postagent.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 脚本日志输出
+ * 同一个日志文件只打开一个追加模式的 {@link FileChannel}，并发执行的脚本共享该通道，最后一个使用者关闭时释放
+ */
+@Component
+public class ScriptLogSink {
+
+    private final Map<Path, SharedChannel> channels = new HashMap<>();
+
+    /**
+     * 打开日志文件
+     * @param logFile 日志文件路径
+     * @return 日志句柄，使用完毕后需要关闭
+     */
+    public LogHandle open(Path logFile) throws IOException {
+        Path key = logFile.toAbsolutePath().normalize();
+        synchronized (channels) {
+            SharedChannel shared = channels.get(key);
+            if (shared == null) {
+                FileChannel channel = FileChannel.open(key, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                shared = new SharedChannel(channel);
+                channels.put(key, shared);
+            }
+            shared.references++;
+            return new LogHandle(key, shared);
+        }
+    }
+
+    private void release(Path key, SharedChannel shared) throws IOException {
+        synchronized (channels) {
+            if (--shared.references == 0) {
+                channels.remove(key);
+                shared.channel.close();
+            }
+        }
+    }
+
+    private static class SharedChannel {
+        private final FileChannel channel;
+        private int references;
+
+        SharedChannel(FileChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    /**
+     * 日志句柄
+     */
+    public class LogHandle implements Closeable {
+        private final Path key;
+        private final SharedChannel shared;
+        private boolean closed;
+
+        private LogHandle(Path key, SharedChannel shared) {
+            this.key = key;
+            this.shared = shared;
+        }
+
+        /**
+         * 写入一段输出，同一段输出不会与其他脚本的输出交错
+         */
+        public void write(ByteBuffer buffer) throws IOException {
+            synchronized (shared) {
+                while (buffer.hasRemaining()) {
+                    shared.channel.write(buffer);
+                }
+            }
+        }
+
+        public void write(String text) throws IOException {
+            write(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                release(key, shared);
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.postagent.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.postagent.config.SummaryProperties;
+import com.postagent.entity.SummaryCacheEntry;
+import com.postagent.repository.SummaryCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * 文案缓存
+ * 同一篇正文（重复处理的 url、转载的文章）在提示词和模型参数不变时直接返回之前生成的文案，不再调用模型。
+ * key 为规范化后的正文、提示词模板、模型及参数的哈希；内存中按条数淘汰，数据库中保存到过期为止。
+ * 数据库不可用时只使用内存缓存
+ */
+@Slf4j
+@Service
+public class SummaryCache {
+
+    private static final Pattern HORIZONTAL_SPACES = Pattern.compile("[ \\t\\u00A0\\u3000]+");
+    private static final Pattern TRAILING_SPACES = Pattern.compile(" +\\n");
+    private static final Pattern BLANK_LINES = Pattern.compile("\\n{3,}");
+
+    private final SummaryProperties.Cache props;
+    private final SummaryCacheRepository repository;
+    private final Cache<String, String> summaries;
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+
+    public SummaryCache(SummaryProperties summaryProperties, SummaryCacheRepository repository, MeterRegistry meterRegistry) {
+        this.props = summaryProperties.getCache();
+        this.repository = repository;
+        this.summaries = Caffeine.newBuilder()
+                .maximumSize(props.getSize())
+                .expireAfterWrite(props.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, summaries, "summary.cache");
+        this.memoryHits = meterRegistry.counter("summary.cache.lookups", "result", "memory");
+        this.databaseHits = meterRegistry.counter("summary.cache.lookups", "result", "database");
+        this.misses = meterRegistry.counter("summary.cache.lookups", "result", "miss");
+    }
+
+    /**
+     * 计算缓存 key
+     * @param content 正文
+     * @param prompt 系统提示词
+     * @param options 模型参数，取其中的模型、温度及最大 token 数
+     * @return key
+     */
+    public String key(String content, String prompt, ChatOptions options) {
+        String model = options == null ? "" : options.getModel() + "|" + options.getTemperature() + "|" + options.getMaxTokens();
+        return sha256(sha256(normalize(content)) + "|" + sha256(prompt) + "|" + model);
+    }
+
+    /**
+     * 查询文案，先查内存再查数据库，数据库命中后放入内存
+     * @param key 缓存 key
+     * @return 文案，未命中或已关闭时为空
+     */
+    public Optional<String> get(String key) {
+        if (!props.isEnabled()) {
+            return Optional.empty();
+        }
+        String summary = summaries.getIfPresent(key);
+        if (summary != null) {
+            memoryHits.increment();
+            return Optional.of(summary);
+        }
+        try {
+            Optional<String> saved = repository.findById(key)
+                    .filter(entry -> entry.getCreateTime() == null || !entry.getCreateTime().before(expiredBefore()))
+                    .map(SummaryCacheEntry::getSummary);
+            if (saved.isPresent()) {
+                summaries.put(key, saved.get());
+                databaseHits.increment();
+                return saved;
+            }
+        } catch (DataAccessException e) {
+            log.warn("查询文案缓存失败：{}", e.getMessage());
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * 保存文案
+     * @param key 缓存 key
+     * @param model 生成文案的模型
+     * @param summary 文案
+     */
+    public void put(String key, String model, String summary) {
+        if (!props.isEnabled()) {
+            return;
+        }
+        summaries.put(key, summary);
+        SummaryCacheEntry entry = new SummaryCacheEntry();
+        entry.setCacheKey(key);
+        entry.setModel(model);
+        entry.setSummary(summary);
+        entry.setCreateTime(new Date());
+        try {
+            repository.save(entry);
+        } catch (DataAccessException e) {
+            log.warn("保存文案缓存失败：{}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定期清理数据库中过期的文案
+     */
+    @Scheduled(initialDelay = 300_000, fixedDelayString = "${app.summary.cache.cleanup-interval:PT6H}")
+    public void cleanUpExpired() {
+        if (!props.isEnabled()) {
+            return;
+        }
+        try {
+            int deleted = repository.deleteCreatedBefore(expiredBefore());
+            if (deleted > 0) {
+                log.info("清理过期文案缓存：{} 条", deleted);
+            }
+        } catch (DataAccessException e) {
+            log.warn("清理文案缓存失败：{}", e.getMessage());
+        }
+    }
+
+    private Date expiredBefore() {
+        return new Date(System.currentTimeMillis() - props.getTtl().toMillis());
+    }
+
+    /**
+     * 规范化正文：统一换行，合并连续空白，去掉行尾空格及多余空行，排版差异不影响命中
+     */
+    static String normalize(String content) {
+        String text = content.replace("\r\n", "\n").replace('\r', '\n');
+        text = HORIZONTAL_SPACES.matcher(text).replaceAll(" ");
+        text = TRAILING_SPACES.matcher(text).replaceAll("\n");
+        text = BLANK_LINES.matcher(text).replaceAll("\n\n");
+        return text.strip();
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
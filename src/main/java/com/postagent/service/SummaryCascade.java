@@ -0,0 +1,293 @@
+package com.postagent.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.postagent.common.TokenEstimator;
+import com.postagent.config.SummaryProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 分级生成文案
+ * 封面标题、装饰表情和正文分别生成：输出很短的子任务按提示词配置的级别交给便宜模型，
+ * 结果通过质量检查才使用，否则用文案模型重新生成；正文由文案模型生成，与子任务并行。
+ * 结果合并为与单次生成相同的 JSON（title、summary，另有 emoji），并输出每个阶段的耗时、token 及估算费用
+ */
+@Slf4j
+@Service
+public class SummaryCascade {
+
+    private static final int MIN_TITLE_LENGTH = 4;
+    private static final int MAX_TITLE_LENGTH = 20;
+    private static final int MAX_EMOJI_LENGTH = 8;
+
+    private final ChatClient cheapChatClient;
+    private final ChatClient expensiveChatClient;
+    private final ChunkedSummarizer chunkedSummarizer;
+    private final PromptService promptService;
+    private final SummaryProperties.Cascade props;
+    private final MeterRegistry meterRegistry;
+
+    public SummaryCascade(@Qualifier("cheapChatClient") ChatClient cheapChatClient,
+                          @Qualifier("routingChatClient") ChatClient expensiveChatClient,
+                          ChunkedSummarizer chunkedSummarizer, PromptService promptService,
+                          SummaryProperties summaryProperties, MeterRegistry meterRegistry) {
+        this.cheapChatClient = cheapChatClient;
+        this.expensiveChatClient = expensiveChatClient;
+        this.chunkedSummarizer = chunkedSummarizer;
+        this.promptService = promptService;
+        this.props = summaryProperties.getCascade();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public boolean isEnabled() {
+        return props.isEnabled();
+    }
+
+    /**
+     * 参与缓存 key 的提示词及便宜模型配置，任何一个提示词、模型级别或便宜模型的后端、模型及 token 上限变化时缓存失效
+     */
+    public String cacheSignature() {
+        List<String> parts = new ArrayList<>();
+        parts.add("cheap:" + props.getCheapBackend() + ":" + props.getCheapModel()
+                + ":" + props.getCheapMaxTokens() + ":" + props.getCheapInputTokens());
+        for (String name : List.of(PromptService.COVER_TITLE_PROMPT, PromptService.DECOR_EMOJI_PROMPT, PromptService.BODY_COPY_PROMPT)) {
+            parts.add(promptService.getModelTier(name) + ":" + promptService.getCascadePrompt(name));
+        }
+        return String.join("\n", parts);
+    }
+
+    /**
+     * 生成文案
+     * @param documents 预处理后的正文
+     * @param savedTokens 正文预处理节省的 token 估算
+     * @param onDelta 正文流式输出的片段
+     * @param onTitle 标题通过质量检查时回调，此时正文可能仍在生成
+     * @return 与单次生成格式相同的 JSON
+     */
+    public String summarize(List<String> documents, int savedTokens, Consumer<String> onDelta,
+                            Consumer<List<String>> onTitle) {
+        List<StageReport> reports = Collections.synchronizedList(new ArrayList<>());
+        String head = head(documents);
+        CompletableFuture<List<String>> titles = async(() -> runShortTask("title", PromptService.COVER_TITLE_PROMPT, head,
+                SummaryCascade::parseTitles, reports));
+        titles.thenAccept(onTitle);
+        CompletableFuture<String> emoji = async(() -> runShortTask("emoji", PromptService.DECOR_EMOJI_PROMPT, head,
+                SummaryCascade::parseEmoji, reports));
+
+        long start = System.nanoTime();
+        String bodyPrompt = promptService.getCascadePrompt(PromptService.BODY_COPY_PROMPT);
+        String body = chunkedSummarizer.summarize(bodyPrompt, documents, savedTokens, onDelta);
+        String input = String.join("\n\n", documents);
+        reports.add(new StageReport("body", SummaryProperties.ModelTier.EXPENSIVE, millisSince(start),
+                TokenEstimator.estimate(input), TokenEstimator.estimate(body), true, true));
+        if (!StringUtils.hasText(body)) {
+            throw new IllegalArgumentException("AI output is empty");
+        }
+
+        JSONObject result = new JSONObject(true);
+        try {
+            result.put("title", titles.join());
+            String decor = emoji.join();
+            if (decor != null) {
+                result.put("emoji", decor);
+            }
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : e;
+        }
+        result.put("summary", body.strip());
+        report(reports);
+        return result.toJSONString();
+    }
+
+    /**
+     * 只重新生成标题，用于单次生成的标题不符合格式时
+     * @throws IllegalArgumentException 文案模型生成的标题也不通过质量检查
+     */
+    public List<String> regenerateTitles(List<String> documents) {
+        List<StageReport> reports = new ArrayList<>();
+        List<String> titles = runShortTask("title", PromptService.COVER_TITLE_PROMPT, head(documents),
+                SummaryCascade::parseTitles, reports);
+        report(reports);
+        return titles;
+    }
+
+    /**
+     * 只重新生成正文，用于单次生成的正文缺失或被截断时
+     * @return 正文，没有内容时为空
+     */
+    public String regenerateBody(List<String> documents, int savedTokens) {
+        long start = System.nanoTime();
+        String bodyPrompt = promptService.getCascadePrompt(PromptService.BODY_COPY_PROMPT);
+        String body = chunkedSummarizer.summarize(bodyPrompt, documents, savedTokens, delta -> {
+        });
+        report(List.of(new StageReport("body", SummaryProperties.ModelTier.EXPENSIVE, millisSince(start),
+                TokenEstimator.estimate(String.join("\n\n", documents)), TokenEstimator.estimate(body), true,
+                StringUtils.hasText(body))));
+        return StringUtils.hasText(body) ? body.strip() : null;
+    }
+
+    /**
+     * 执行短输出子任务：按提示词配置的级别选择模型，便宜模型的结果不通过质量检查时改用文案模型
+     * @param parser 解析并检查结果，不通过时返回 null
+     * @return 解析结果，文案模型的结果也不通过时：标题抛出异常，表情返回 null
+     */
+    private <T> T runShortTask(String stage, String promptName, String input, Function<String, T> parser,
+                               List<StageReport> reports) {
+        String prompt = promptService.getCascadePrompt(promptName);
+        if (promptService.getModelTier(promptName) == SummaryProperties.ModelTier.CHEAP) {
+            T cheap = runStage(stage, SummaryProperties.ModelTier.CHEAP, cheapChatClient, prompt, input, parser, reports);
+            if (cheap != null) {
+                return cheap;
+            }
+            log.info("便宜模型生成的{}未通过质量检查，改用文案模型", stage);
+        }
+        T result = runStage(stage, SummaryProperties.ModelTier.EXPENSIVE, expensiveChatClient, prompt, input, parser, reports);
+        if (result == null && "title".equals(stage)) {
+            throw new IllegalArgumentException("AI output title is invalid");
+        }
+        return result;
+    }
+
+    private <T> T runStage(String stage, SummaryProperties.ModelTier tier, ChatClient client, String prompt, String input,
+                           Function<String, T> parser, List<StageReport> reports) {
+        long start = System.nanoTime();
+        T parsed = null;
+        String output = null;
+        Usage usage = null;
+        try {
+            ChatResponse response = client.prompt().system(prompt).user(input).call().chatResponse();
+            if (response != null && response.getResult() != null) {
+                output = response.getResult().getOutput().getText();
+                usage = response.getMetadata().getUsage();
+            }
+            parsed = output == null ? null : parser.apply(output.strip());
+        } catch (RuntimeException e) {
+            // 便宜模型失败时改用文案模型，文案模型失败时向上抛出
+            if (tier == SummaryProperties.ModelTier.EXPENSIVE) {
+                throw e;
+            }
+            log.warn("便宜模型生成{}失败：{}", stage, e.getMessage());
+        }
+        boolean hasUsage = usage != null && usage.getPromptTokens() != null && usage.getPromptTokens() > 0;
+        reports.add(new StageReport(stage, tier, millisSince(start),
+                hasUsage ? usage.getPromptTokens() : TokenEstimator.estimate(prompt) + TokenEstimator.estimate(input),
+                hasUsage && usage.getCompletionTokens() != null ? usage.getCompletionTokens() : TokenEstimator.estimate(output),
+                !hasUsage, parsed != null));
+        return parsed;
+    }
+
+    /**
+     * 便宜模型只需要正文开头部分
+     */
+    private String head(List<String> documents) {
+        StringBuilder head = new StringBuilder();
+        int remaining = props.getCheapInputTokens();
+        for (String block : String.join("\n\n", documents).split("\n\n")) {
+            int tokens = TokenEstimator.estimate(block) + 1;
+            if (tokens > remaining) {
+                break;
+            }
+            head.append(block).append("\n\n");
+            remaining -= tokens;
+        }
+        return head.isEmpty() ? String.join("\n\n", documents) : head.toString().strip();
+    }
+
+    /**
+     * 标题质量检查：JSON 字符串数组，至少一个标题，每个标题长度合适
+     */
+    static List<String> parseTitles(String output) {
+        int start = output.indexOf('[');
+        int end = output.lastIndexOf(']');
+        if (start < 0 || end <= start) {
+            return null;
+        }
+        try {
+            JSONArray array = JSON.parseArray(output.substring(start, end + 1));
+            List<String> titles = new ArrayList<>();
+            for (int i = 0; i < array.size(); i++) {
+                String title = array.getString(i);
+                int length = title == null ? 0 : title.strip().codePointCount(0, title.strip().length());
+                if (length >= MIN_TITLE_LENGTH && length <= MAX_TITLE_LENGTH) {
+                    titles.add(title.strip());
+                }
+            }
+            return titles.isEmpty() ? null : titles;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 表情质量检查：只有一个 emoji，不含文字
+     */
+    static String parseEmoji(String output) {
+        String emoji = output.replaceAll("[\\s\"'`]", "");
+        if (emoji.isEmpty() || emoji.length() > MAX_EMOJI_LENGTH) {
+            return null;
+        }
+        boolean hasSymbol = emoji.codePoints().anyMatch(cp -> Character.getType(cp) == Character.OTHER_SYMBOL);
+        boolean hasText = emoji.codePoints().anyMatch(Character::isLetterOrDigit);
+        return hasSymbol && !hasText ? emoji : null;
+    }
+
+    private static <T> CompletableFuture<T> async(Callable<T> task) {
+        return Mono.fromCallable(task).subscribeOn(Schedulers.boundedElastic()).toFuture();
+    }
+
+    /**
+     * 输出各阶段的耗时、token 及估算费用，并记录到指标
+     */
+    private void report(List<StageReport> reports) {
+        double total = 0;
+        List<String> lines = new ArrayList<>();
+        for (StageReport report : List.copyOf(reports)) {
+            SummaryProperties.Price price = props.getPrice(report.tier());
+            double cost = (report.inputTokens() * price.getInput() + report.outputTokens() * price.getOutput()) / 1000;
+            total += cost;
+            lines.add(String.format("%s[%s] %d ms，%s%d+%d tokens，约 %.4f 元%s", report.stage(),
+                    report.tier().name().toLowerCase(), report.millis(), report.estimated() ? "约 " : "",
+                    report.inputTokens(), report.outputTokens(), cost, report.accepted() ? "" : "（未通过）"));
+            Timer.builder("summary.cascade.stage")
+                    .tags("stage", report.stage(), "tier", report.tier().name().toLowerCase(),
+                            "accepted", String.valueOf(report.accepted()))
+                    .register(meterRegistry)
+                    .record(report.millis(), TimeUnit.MILLISECONDS);
+        }
+        log.info("分级生成完成，估算费用 {} 元：\n{}", String.format("%.4f", total), String.join("\n", lines));
+    }
+
+    private static long millisSince(long start) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * 一个阶段的执行情况
+     * @param estimated token 数是否为估算值（流式调用或模型没有返回 usage）
+     * @param accepted 结果是否通过质量检查
+     */
+    private record StageReport(String stage, SummaryProperties.ModelTier tier, long millis, int inputTokens,
+                               int outputTokens, boolean estimated, boolean accepted) {
+    }
+}
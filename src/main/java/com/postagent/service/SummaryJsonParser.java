@@ -0,0 +1,295 @@
+package com.postagent.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 文案 JSON 的流式解析
+ * 随模型输出的片段逐字符解析顶层对象，每个字段的值完整后立即按 schema 检查：
+ * title 为非空字符串数组，完整后立即回调，封面可以在正文生成期间开始渲染；summary 为非空字符串；emoji 可选。
+ * 能修正的格式问题（标题是字符串、正文是字符串数组等）直接修正，无法修正或被截断的字段记录为缺失，
+ * 由调用方只重新生成这个字段。对象之前的说明文字、代码块标记及对象之后的内容都会被忽略
+ */
+@Slf4j
+public class SummaryJsonParser {
+
+    public static final String TITLE = "title";
+    public static final String SUMMARY = "summary";
+    public static final String EMOJI = "emoji";
+
+    private static final int MAX_EMOJI_LENGTH = 8;
+
+    private enum State {
+        BEFORE_OBJECT, EXPECT_KEY, IN_KEY, EXPECT_COLON, EXPECT_VALUE, IN_VALUE, AFTER_VALUE, DONE
+    }
+
+    private final Consumer<List<String>> onTitle;
+    private final StringBuilder key = new StringBuilder();
+    private final StringBuilder value = new StringBuilder();
+    private final Map<String, Object> fields = new HashMap<>();
+    private final List<String> violations = new ArrayList<>();
+    private State state = State.BEFORE_OBJECT;
+    private boolean inString;
+    private boolean escaped;
+    private int depth;
+
+    /**
+     * @param onTitle title 字段完整且检查通过时回调，只回调一次
+     */
+    public SummaryJsonParser(Consumer<List<String>> onTitle) {
+        this.onTitle = onTitle;
+    }
+
+    /**
+     * 解析一个片段
+     */
+    public void accept(String delta) {
+        if (delta == null) {
+            return;
+        }
+        for (int i = 0; i < delta.length() && state != State.DONE; i++) {
+            accept(delta.charAt(i));
+        }
+    }
+
+    private void accept(char c) {
+        switch (state) {
+            case BEFORE_OBJECT -> {
+                if (c == '{') {
+                    state = State.EXPECT_KEY;
+                }
+            }
+            case EXPECT_KEY -> {
+                if (c == '"') {
+                    key.setLength(0);
+                    escaped = false;
+                    state = State.IN_KEY;
+                } else if (c == '}') {
+                    state = State.DONE;
+                }
+            }
+            case IN_KEY -> {
+                if (escaped) {
+                    key.append(c);
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    state = State.EXPECT_COLON;
+                } else {
+                    key.append(c);
+                }
+            }
+            case EXPECT_COLON -> {
+                if (c == ':') {
+                    state = State.EXPECT_VALUE;
+                }
+            }
+            case EXPECT_VALUE -> {
+                if (!Character.isWhitespace(c)) {
+                    value.setLength(0);
+                    inString = false;
+                    escaped = false;
+                    depth = 0;
+                    state = State.IN_VALUE;
+                    acceptValue(c);
+                }
+            }
+            case IN_VALUE -> acceptValue(c);
+            case AFTER_VALUE -> {
+                if (c == ',') {
+                    state = State.EXPECT_KEY;
+                } else if (c == '}') {
+                    state = State.DONE;
+                }
+            }
+            case DONE -> {
+            }
+        }
+    }
+
+    /**
+     * 累积字段值，字符串、数组或对象闭合，或者基本类型遇到分隔符时结束
+     */
+    private void acceptValue(char c) {
+        if (inString) {
+            value.append(c);
+            if (escaped) {
+                escaped = false;
+            } else if (c == '\\') {
+                escaped = true;
+            } else if (c == '"') {
+                inString = false;
+                if (depth == 0) {
+                    completeValue();
+                }
+            }
+            return;
+        }
+        switch (c) {
+            case '"' -> {
+                inString = true;
+                value.append(c);
+            }
+            case '[', '{' -> {
+                depth++;
+                value.append(c);
+            }
+            case ']', '}' -> {
+                if (depth == 0) {
+                    // 基本类型后直接结束对象
+                    completeValue();
+                    state = State.DONE;
+                    return;
+                }
+                depth--;
+                value.append(c);
+                if (depth == 0) {
+                    completeValue();
+                }
+            }
+            case ',' -> {
+                if (depth == 0) {
+                    completeValue();
+                    state = State.EXPECT_KEY;
+                } else {
+                    value.append(c);
+                }
+            }
+            default -> value.append(c);
+        }
+    }
+
+    private void completeValue() {
+        String name = key.toString();
+        String raw = value.toString().strip();
+        state = State.AFTER_VALUE;
+        Object parsed;
+        try {
+            parsed = JSON.parse(raw);
+        } catch (RuntimeException e) {
+            violations.add(name + " 不是合法的 JSON：" + abbreviate(raw));
+            return;
+        }
+        switch (name) {
+            case TITLE -> {
+                List<String> titles = toTitles(parsed);
+                if (titles.isEmpty()) {
+                    violations.add("title 不是非空字符串数组：" + abbreviate(raw));
+                } else if (!fields.containsKey(TITLE)) {
+                    fields.put(TITLE, titles);
+                    onTitle.accept(titles);
+                }
+            }
+            case SUMMARY -> {
+                String summary = toSummary(parsed);
+                if (StringUtils.hasText(summary)) {
+                    fields.put(SUMMARY, summary);
+                } else {
+                    violations.add("summary 不是非空字符串：" + abbreviate(raw));
+                }
+            }
+            case EMOJI -> {
+                // 可选字段，不合法时丢弃
+                if (parsed instanceof String emoji && StringUtils.hasText(emoji) && emoji.strip().length() <= MAX_EMOJI_LENGTH) {
+                    fields.put(EMOJI, emoji.strip());
+                }
+            }
+            default -> log.debug("忽略文案中的字段：{}", name);
+        }
+    }
+
+    /**
+     * 标题修正：单个字符串视为只有一个标题，其他类型的元素转为字符串，去掉空标题
+     */
+    private static List<String> toTitles(Object parsed) {
+        List<String> titles = new ArrayList<>();
+        if (parsed instanceof String title) {
+            if (StringUtils.hasText(title)) {
+                titles.add(title.strip());
+            }
+        } else if (parsed instanceof JSONArray array) {
+            for (Object item : array) {
+                if (item != null && StringUtils.hasText(item.toString()) && !(item instanceof JSONObject)) {
+                    titles.add(item.toString().strip());
+                }
+            }
+        }
+        return titles;
+    }
+
+    /**
+     * 正文修正：字符串数组按段落拼接
+     */
+    private static String toSummary(Object parsed) {
+        if (parsed instanceof String summary) {
+            return summary.strip();
+        }
+        if (parsed instanceof JSONArray array && array.stream().allMatch(item -> item instanceof String)) {
+            return String.join("\n\n", array.toJavaList(String.class)).strip();
+        }
+        return null;
+    }
+
+    /**
+     * 结束解析
+     * @return 检查通过的字段及缺失字段
+     */
+    public Result finish() {
+        if (state == State.BEFORE_OBJECT) {
+            violations.add("输出中没有 JSON 对象");
+        } else if (state == State.IN_KEY || state == State.EXPECT_COLON || state == State.EXPECT_VALUE
+                || state == State.IN_VALUE) {
+            violations.add("输出被截断，字段 " + key + " 不完整");
+        } else if (state != State.DONE) {
+            violations.add("输出被截断，JSON 对象没有结束");
+        }
+        @SuppressWarnings("unchecked")
+        List<String> titles = (List<String>) fields.get(TITLE);
+        return new Result(titles, (String) fields.get(SUMMARY), (String) fields.get(EMOJI), List.copyOf(violations));
+    }
+
+    private static String abbreviate(String raw) {
+        return raw.length() <= 50 ? raw : raw.substring(0, 50) + "...";
+    }
+
+    /**
+     * 解析结果
+     * @param titles 标题，缺失时为 null
+     * @param summary 正文，缺失时为 null
+     * @param emoji 装饰表情，可选
+     * @param violations 不符合 schema 的问题
+     */
+    public record Result(List<String> titles, String summary, String emoji, List<String> violations) {
+
+        public Result withTitles(List<String> titles) {
+            return new Result(titles, summary, emoji, violations);
+        }
+
+        public Result withSummary(String summary) {
+            return new Result(titles, summary, emoji, violations);
+        }
+
+        /**
+         * 与模型直接输出相同格式的 JSON
+         */
+        public String toJson() {
+            JSONObject json = new JSONObject(true);
+            json.put(TITLE, titles);
+            if (emoji != null) {
+                json.put(EMOJI, emoji);
+            }
+            json.put(SUMMARY, summary);
+            return json.toJSONString();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.postagent.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 文案生成的实时推送
+ * 总结节点按任务id发布模型流式输出的片段，订阅者通过 SSE 收到 delta 事件，生成结束时收到 done 事件（完整文案）
+ * 或 error 事件。订阅时先补发已生成的内容，任务开始前订阅会等待下一次生成；结束后的一段时间内订阅直接返回完整文案。
+ * 发布方只把事件放入每个订阅者的队列，网络写入在推送线程池中进行，慢连接不会阻塞模型输出
+ */
+@Slf4j
+@Service
+public class SummaryStreamHub {
+
+    private static final Duration RETENTION = Duration.ofMinutes(10);
+    /**
+     * 单个订阅者最多积压的事件数
+     */
+    private static final int MAX_PENDING = 1_024;
+
+    private final Cache<String, Channel> channels = Caffeine.newBuilder()
+            .expireAfterAccess(RETENTION)
+            .maximumSize(1_000)
+            .build();
+    /**
+     * 推送线程池，SseEmitter.send 会阻塞在慢连接上，不能在模型输出线程或锁内调用
+     */
+    private final ExecutorService sender;
+
+    public SummaryStreamHub() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("summary-sse-");
+        threadFactory.setDaemon(true);
+        this.sender = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * 订阅文案生成
+     * @param key 任务id
+     * @param timeout 连接超时时间
+     */
+    public SseEmitter subscribe(String key, Duration timeout) {
+        return subscribe(key, new SseEmitter(timeout.toMillis()));
+    }
+
+    SseEmitter subscribe(String key, SseEmitter emitter) {
+        channels.get(key, k -> new Channel()).subscribe(emitter);
+        return emitter;
+    }
+
+    /**
+     * 开始新一次生成，清空之前的内容
+     */
+    public void start(String key) {
+        channels.get(key, k -> new Channel()).start();
+    }
+
+    /**
+     * 发布生成的片段
+     */
+    public void append(String key, String delta) {
+        Channel channel = channels.getIfPresent(key);
+        if (channel != null && delta != null && !delta.isEmpty()) {
+            channel.append(delta);
+        }
+    }
+
+    /**
+     * 生成完成
+     * @param content 完整文案
+     */
+    public void complete(String key, String content) {
+        Channel channel = channels.getIfPresent(key);
+        if (channel != null) {
+            channel.finish("done", content);
+        }
+    }
+
+    /**
+     * 生成失败
+     */
+    public void fail(String key, String message) {
+        Channel channel = channels.getIfPresent(key);
+        if (channel != null) {
+            channel.finish("error", message);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        sender.shutdown();
+    }
+
+    /**
+     * 一个任务的生成状态及订阅者。状态变更及事件入队在同一把锁内完成，保证每个订阅者收到的事件顺序；
+     * 锁内不做网络写入，发送由每个订阅者自己的队列在推送线程池中依次完成
+     */
+    private class Channel {
+        private final StringBuilder content = new StringBuilder();
+        private final List<Subscriber> subscribers = new ArrayList<>();
+        private String finalEvent;
+        private String finalData;
+
+        synchronized void subscribe(SseEmitter emitter) {
+            Subscriber subscriber = new Subscriber(emitter);
+            emitter.onCompletion(() -> remove(subscriber));
+            emitter.onTimeout(() -> remove(subscriber));
+            emitter.onError(e -> remove(subscriber));
+            if (finalEvent != null) {
+                subscriber.offer(new Event(finalEvent, finalData, true));
+                return;
+            }
+            if (!content.isEmpty()) {
+                subscriber.offer(new Event("delta", content.toString(), false));
+            }
+            subscribers.add(subscriber);
+        }
+
+        synchronized void start() {
+            content.setLength(0);
+            finalEvent = null;
+            finalData = null;
+        }
+
+        synchronized void append(String delta) {
+            content.append(delta);
+            Event event = new Event("delta", delta, false);
+            subscribers.removeIf(subscriber -> !subscriber.offer(event));
+        }
+
+        synchronized void finish(String event, String data) {
+            finalEvent = event;
+            finalData = data == null ? "" : data;
+            Event last = new Event(event, finalData, true);
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(last);
+            }
+            subscribers.clear();
+        }
+
+        private synchronized void remove(Subscriber subscriber) {
+            subscriber.close();
+            subscribers.remove(subscriber);
+        }
+    }
+
+    /**
+     * 一个订阅者的待发送事件，同一时间只有一个推送线程在发送，消费过慢超过上限时断开
+     */
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Queue<Event> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile boolean overflowed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * 事件入队并安排发送，不阻塞
+         * @return 订阅者已断开或积压超过上限时为 false
+         */
+        boolean offer(Event event) {
+            if (closed) {
+                return false;
+            }
+            if (size.incrementAndGet() > MAX_PENDING) {
+                overflowed = true;
+                closed = true;
+            } else {
+                pending.add(event);
+            }
+            schedule();
+            return !closed;
+        }
+
+        void close() {
+            closed = true;
+        }
+
+        private void schedule() {
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                closed = true;
+            }
+        }
+
+        private void drain() {
+            do {
+                if (overflowed) {
+                    pending.clear();
+                    log.debug("订阅者积压超过 {} 个事件，断开连接", MAX_PENDING);
+                    emitter.completeWithError(new IllegalStateException("订阅者消费过慢"));
+                    return;
+                }
+                Event event;
+                while ((event = pending.poll()) != null) {
+                    size.decrementAndGet();
+                    if (!send(event)) {
+                        closed = true;
+                        pending.clear();
+                        break;
+                    }
+                    if (event.last()) {
+                        closed = true;
+                        emitter.complete();
+                    }
+                }
+                draining.set(false);
+            } while ((!pending.isEmpty() || overflowed) && draining.compareAndSet(false, true));
+        }
+
+        private boolean send(Event event) {
+            try {
+                emitter.send(SseEmitter.event().name(event.name()).data(event.data()));
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("推送文案失败，订阅者已断开：{}", e.getMessage());
+                emitter.completeWithError(e);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @param last 是否为最后一个事件，发送后结束连接
+     */
+    private record Event(String name, String data, boolean last) {
+    }
+}
@@ -15,10 +15,12 @@ create table if not exists post_task_result
 (
     id               bigint auto_increment primary key comment '任务结果ID',
     task_id          bigint comment '任务ID',
+    data_id          bigint       not null comment '采集的帖子ID',
     status           varchar(255) comment '任务状态',
     output_directory varchar(255) comment '文件输出目录',
     description      varchar(255) comment '任务描述',
-    create_time      datetime default current_timestamp
+    create_time      datetime default current_timestamp,
+    index idx_data_id (data_id)
 );
 
 create table if not exists user_info
@@ -31,4 +33,13 @@ create table if not exists user_info
     avatar      varchar(255) comment '头像',
     create_time datetime  default current_timestamp comment '创建时间',
     update_time timestamp default current_timestamp on update current_timestamp comment '更新时间'
-);
\ No newline at end of file
+);
+
+create table if not exists summary_cache
+(
+    cache_key   varchar(64) primary key comment '正文、提示词及模型参数的哈希',
+    model       varchar(255) comment '生成文案的模型',
+    summary     mediumtext comment '生成的文案',
+    create_time datetime default current_timestamp comment '创建时间',
+    index idx_create_time (create_time)
+);
@@ -0,0 +1,103 @@
+package com.postagent.collector;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotPostScannerTest {
+
+    private final HotPostScanner scanner = new HotPostScanner("test", 4);
+
+    @AfterEach
+    void shutdown() {
+        scanner.shutdown();
+    }
+
+    @Test
+    void scanReturnsHighestRankedMatchEvenIfLaterOnesFinishFirst() {
+        // 排名靠前的帖子返回得更慢
+        Optional<Long> result = scanner.scan(List.of(1L, 2L, 3L, 4L), id -> {
+            sleep((5 - id) * 20);
+            return id;
+        }, id -> id >= 2);
+
+        assertEquals(Optional.of(2L), result);
+    }
+
+    @Test
+    void scanFallsBackToLastFallbackCandidate() {
+        Optional<Long> result = scanner.scan(List.of(1L, 2L, 3L, 4L, 5L), id -> id, id -> false, id -> id % 2 == 0);
+
+        assertEquals(Optional.of(4L), result);
+    }
+
+    @Test
+    void reservedMatchesAreNotUsedAsFallback() {
+        // 偶数为达标帖子，且都已被其他工作流预留
+        Set<Long> reserved = ConcurrentHashMap.newKeySet();
+        reserved.addAll(List.of(2L, 4L));
+        Predicate<Long> qualified = id -> id % 2 == 0;
+
+        Optional<Long> result = scanner.scan(List.of(1L, 2L, 3L, 4L), id -> id,
+                id -> qualified.test(id) && reserved.add(id), id -> !qualified.test(id));
+        Optional<Long> allReserved = scanner.scan(List.of(2L, 4L), id -> id,
+                id -> qualified.test(id) && reserved.add(id), id -> !qualified.test(id));
+
+        assertEquals(Optional.of(3L), result);
+        assertTrue(allReserved.isEmpty());
+    }
+
+    @Test
+    void scanIsEmptyWithoutMatchOrFallback() {
+        Optional<Long> result = scanner.scan(List.of(1L, 2L, 3L), id -> id, id -> false);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void scanSkipsNullAndFailedCandidates() {
+        Optional<Long> result = scanner.scan(List.of(1L, 2L, 3L), id -> {
+            if (id == 1L) {
+                throw new IllegalStateException("boom");
+            }
+            return id == 2L ? null : id;
+        }, id -> true);
+
+        assertEquals(Optional.of(3L), result);
+    }
+
+    @Test
+    void scanRethrowsLastFailureWhenNothingMatches() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> scanner.scan(List.of(1L, 2L),
+                id -> {
+                    throw new IllegalStateException("failed " + id);
+                }, id -> true));
+
+        assertEquals("failed 2", e.getMessage());
+    }
+
+    @Test
+    void fetchAllSkipsMissingItems() {
+        Map<Long, Long> result = scanner.fetchAll(List.of(1L, 2L, 3L), id -> id == 2L ? null : id * 10);
+
+        assertEquals(Map.of(1L, 10L, 3L, 30L), result);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
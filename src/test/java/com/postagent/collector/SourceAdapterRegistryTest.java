@@ -0,0 +1,99 @@
+package com.postagent.collector;
+
+import com.postagent.config.DownloadProperties;
+import com.postagent.model.HotPost;
+import com.postagent.nodes.DataCollectorNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 使用本地桩数据源验证适配器注册及采集节点的数据源选择
+ */
+class SourceAdapterRegistryTest {
+
+    private static final HotPost POST = new HotPost(42L, 1, 128, "Stub post", "https://example.com/post");
+
+    @Test
+    void getAdapterIgnoresCaseAndWhitespace() {
+        StubAdapter stub = new StubAdapter("Stub", Optional.of(POST));
+        SourceAdapterRegistry registry = new SourceAdapterRegistry(List.of(stub));
+
+        assertSame(stub, registry.getAdapter("stub"));
+        assertSame(stub, registry.getAdapter("  STUB "));
+    }
+
+    @Test
+    void blankOriginUsesDefaultAdapter() {
+        StubAdapter defaultAdapter = new StubAdapter(SourceAdapterRegistry.DEFAULT_ORIGIN, Optional.of(POST));
+        StubAdapter other = new StubAdapter("Stub", Optional.empty());
+        SourceAdapterRegistry registry = new SourceAdapterRegistry(List.of(other, defaultAdapter));
+
+        assertSame(defaultAdapter, registry.getAdapter(null));
+        assertSame(defaultAdapter, registry.getAdapter(" "));
+    }
+
+    @Test
+    void blankOriginSelectsDefaultOriginDownloadEngine() {
+        DownloadProperties props = new DownloadProperties();
+        props.getEngines().put(SourceAdapterRegistry.DEFAULT_ORIGIN, DownloadProperties.Engine.JAVA);
+
+        assertEquals(DownloadProperties.Engine.JAVA, props.getEngine(SourceAdapterRegistry.resolveOrigin(null)));
+        assertEquals(DownloadProperties.Engine.JAVA, props.getEngine(SourceAdapterRegistry.resolveOrigin(" hackernews ")));
+        assertEquals(DownloadProperties.Engine.PYTHON, props.getEngine(SourceAdapterRegistry.resolveOrigin("Stub")));
+    }
+
+    @Test
+    void unknownOriginIsRejected() {
+        SourceAdapterRegistry registry = new SourceAdapterRegistry(List.of(new StubAdapter("Stub", Optional.empty())));
+
+        assertThrows(IllegalArgumentException.class, () -> registry.getAdapter("Reddit"));
+    }
+
+    @Test
+    void duplicateOriginIsRejected() {
+        List<SourceAdapter> adapters = List.of(new StubAdapter("Stub", Optional.empty()),
+                new StubAdapter("STUB", Optional.empty()));
+
+        assertThrows(IllegalStateException.class, () -> new SourceAdapterRegistry(adapters));
+    }
+
+    @Test
+    void dataCollectorNodeCollectsFromSelectedAdapter() {
+        SourceAdapterRegistry registry = new SourceAdapterRegistry(List.of(
+                new StubAdapter(SourceAdapterRegistry.DEFAULT_ORIGIN, Optional.empty()),
+                new StubAdapter("Stub", Optional.of(POST))));
+        DataCollectorNode node = new DataCollectorNode(registry);
+
+        Map<String, String> result = node.parseCollectionResult("stub");
+
+        assertEquals(POST.url(), result.get("url"));
+        assertEquals(POST.title(), result.get("title"));
+        assertEquals("42", result.get("postId"));
+    }
+
+    @Test
+    void dataCollectorNodeFailsWhenAdapterHasNoPost() {
+        SourceAdapterRegistry registry = new SourceAdapterRegistry(List.of(new StubAdapter("Stub", Optional.empty())));
+        DataCollectorNode node = new DataCollectorNode(registry);
+
+        assertThrows(NullPointerException.class, () -> node.parseCollectionResult("Stub"));
+    }
+
+    /**
+     * 返回固定结果的数据源
+     */
+    private record StubAdapter(String origin, Optional<HotPost> post) implements SourceAdapter {
+
+        @Override
+        public Optional<HotPost> collect() {
+            return post;
+        }
+    }
+}
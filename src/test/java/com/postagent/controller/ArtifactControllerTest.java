@@ -0,0 +1,121 @@
+package com.postagent.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 产物下载的 Range 解析、If-Range 校验及 ZIP 写入
+ */
+class ArtifactControllerTest {
+
+    private static final long LENGTH = 1000;
+
+    @Test
+    void parseRangeSupportsClosedOpenAndSuffixRanges() {
+        assertArrayEquals(new long[]{0, 99}, ArtifactController.parseRange("bytes=0-99", LENGTH));
+        assertArrayEquals(new long[]{500, 999}, ArtifactController.parseRange("bytes=500-", LENGTH));
+        assertArrayEquals(new long[]{900, 999}, ArtifactController.parseRange("bytes=-100", LENGTH));
+        assertArrayEquals(new long[]{0, 999}, ArtifactController.parseRange("bytes=-5000", LENGTH));
+    }
+
+    @Test
+    void parseRangeClampsEndToFileLength() {
+        assertArrayEquals(new long[]{990, 999}, ArtifactController.parseRange("bytes=990-5000", LENGTH));
+        assertArrayEquals(new long[]{999, 999}, ArtifactController.parseRange("bytes=999-999", LENGTH));
+    }
+
+    @Test
+    void parseRangeIgnoresUnsupportedOrInvalidHeaders() {
+        assertNull(ArtifactController.parseRange("items=0-10", LENGTH));
+        assertNull(ArtifactController.parseRange("bytes=0-10,20-30", LENGTH));
+        assertNull(ArtifactController.parseRange("bytes=10", LENGTH));
+        assertNull(ArtifactController.parseRange("bytes=a-b", LENGTH));
+        // 结束位置小于起始位置时忽略 Range，返回 200 及完整文件
+        assertNull(ArtifactController.parseRange("bytes=500-100", LENGTH));
+        assertNull(ArtifactController.parseRange("bytes=2000-1500", LENGTH));
+    }
+
+    @Test
+    void parseRangeReportsUnsatisfiableRanges() {
+        assertEquals(0, ArtifactController.parseRange("bytes=1000-", LENGTH).length);
+        assertEquals(0, ArtifactController.parseRange("bytes=1000-2000", LENGTH).length);
+        assertEquals(0, ArtifactController.parseRange("bytes=-0", LENGTH).length);
+        assertEquals(0, ArtifactController.parseRange("bytes=-10", 0).length);
+    }
+
+    @Test
+    void ifRangeMatchesEtagOrLastModifiedSecond() {
+        String etag = "\"3e8-18f\"";
+        long lastModified = 1_700_000_000_123L;
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(Instant.ofEpochMilli(lastModified).atOffset(ZoneOffset.UTC));
+
+        assertTrue(ArtifactController.ifRangeMatches(null, etag, lastModified));
+        assertTrue(ArtifactController.ifRangeMatches(etag, etag, lastModified));
+        assertFalse(ArtifactController.ifRangeMatches("\"other\"", etag, lastModified));
+        assertTrue(ArtifactController.ifRangeMatches(date, etag, lastModified));
+        assertFalse(ArtifactController.ifRangeMatches(date, etag, lastModified + 1000));
+        assertFalse(ArtifactController.ifRangeMatches("not a date", etag, lastModified));
+    }
+
+    @Test
+    void writeZipStoresCompressedFormatsWithSizeAndCrc() throws IOException {
+        Path dir = Files.createTempDirectory("artifact-");
+        try {
+            byte[] image = new byte[4096];
+            for (int i = 0; i < image.length; i++) {
+                image[i] = (byte) (i * 31);
+            }
+            Path png = Files.write(dir.resolve("cover.png"), image);
+            Path markdown = Files.writeString(dir.resolve("summary.md"), "# 标题\n\n正文".repeat(100));
+            Files.setLastModifiedTime(png, FileTime.fromMillis(1_700_000_000_000L));
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ArtifactController.writeZip(List.of(png, markdown), out);
+
+            try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()), StandardCharsets.UTF_8)) {
+                ZipEntry entry = zip.getNextEntry();
+                assertEquals("cover.png", entry.getName());
+                assertEquals(ZipEntry.STORED, entry.getMethod());
+                assertEquals(image.length, entry.getSize());
+                CRC32 crc = new CRC32();
+                crc.update(image);
+                assertEquals(crc.getValue(), entry.getCrc());
+                assertArrayEquals(image, zip.readAllBytes());
+
+                entry = zip.getNextEntry();
+                assertEquals("summary.md", entry.getName());
+                assertEquals(ZipEntry.DEFLATED, entry.getMethod());
+                assertArrayEquals(Files.readAllBytes(markdown), zip.readAllBytes());
+                assertNull(zip.getNextEntry());
+            }
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.postagent.extractor;
+
+import com.postagent.config.DownloadProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 使用本地 HTTP 服务验证 Java 引擎下载页面时跟随重定向
+ */
+class ArticleExtractorDownloadTest {
+
+    private static final String HTML = "<html><head><title>Moved</title></head><body><p>moved here</p></body></html>";
+
+    private final ArticleExtractor extractor = new ArticleExtractor(new DownloadProperties());
+    private HttpServer server;
+
+    @BeforeEach
+    void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/old", exchange -> {
+            exchange.getResponseHeaders().add("Location", "/new/");
+            exchange.sendResponseHeaders(301, -1);
+            exchange.close();
+        });
+        server.createContext("/new/", exchange -> {
+            byte[] body = HTML.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stop() {
+        server.stop(0);
+    }
+
+    @Test
+    void downloadFollowsRedirects() throws IOException {
+        FetchedPage page = extractor.download("http://127.0.0.1:" + server.getAddress().getPort() + "/old", null, null);
+
+        assertFalse(page.notModified());
+        assertEquals(HTML, new String(page.body(), StandardCharsets.UTF_8));
+        assertEquals("utf-8", page.charset().toLowerCase());
+        assertEquals("\"v1\"", page.etag());
+    }
+}
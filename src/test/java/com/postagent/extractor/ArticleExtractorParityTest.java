@@ -0,0 +1,243 @@
+package com.postagent.extractor;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.postagent.config.DownloadProperties;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 正文抽取引擎对比测试
+ * 使用 src/test/resources/extractor 中保存的页面：Java 引擎的结果必须满足 fixtures.json 中的预期；
+ * 本机安装了 downloadToMarkdown.py 的依赖时，再与 python 引擎的结果逐项对比
+ */
+class ArticleExtractorParityTest {
+
+    private static final String FIXTURE_DIR = "/extractor/";
+    private static final Path SCRIPT_DIR = Path.of("scripts");
+    /**
+     * 两个引擎的正文相似度下限，抽取算法不同，允许段落边界及表格格式的差异
+     */
+    private static final double MIN_SIMILARITY = 0.75;
+
+    private final ArticleExtractor extractor = new ArticleExtractor(new DownloadProperties());
+
+    @Test
+    void javaEngineMatchesFixtureExpectations() throws IOException {
+        List<String> failures = new ArrayList<>();
+        for (JSONObject fixture : fixtures()) {
+            String markdown = extractJava(fixture);
+            failures.addAll(checkExpectations("java", fixture, markdown));
+        }
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    @Test
+    void javaEngineMatchesPythonEngine() throws IOException, InterruptedException {
+        assumeTrue(pythonExtractorAvailable(), "未安装 downloadToMarkdown.py 的依赖，跳过对比");
+        List<String> failures = new ArrayList<>();
+        for (JSONObject fixture : fixtures()) {
+            String file = fixture.getString("file");
+            String java = extractJava(fixture);
+            String python = extractPython(fixture);
+            failures.addAll(checkExpectations("python", fixture, python));
+
+            Map<String, String> javaFrontMatter = frontMatter(java);
+            Map<String, String> pythonFrontMatter = frontMatter(python);
+            for (String key : List.of("title", "source", "saved_at")) {
+                if (!javaFrontMatter.get(key).equals(pythonFrontMatter.get(key))) {
+                    failures.add(file + " front matter " + key + " 不一致：java=" + javaFrontMatter.get(key)
+                            + "，python=" + pythonFrontMatter.get(key));
+                }
+            }
+            if (!firstLine(body(java)).equals(firstLine(body(python)))) {
+                failures.add(file + " 一级标题不一致：java=" + firstLine(body(java)) + "，python=" + firstLine(body(python)));
+            }
+            double similarity = similarity(body(java), body(python));
+            if (similarity < MIN_SIMILARITY) {
+                failures.add(String.format("%s 正文相似度 %.2f 低于 %.2f", file, similarity, MIN_SIMILARITY));
+            }
+        }
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    @Test
+    void similarityIgnoresMarkdownSyntaxAndWhitespace() {
+        assertEquals(1.0, similarity("## Title\n\n- item **one**", "Title item one"), 1e-9);
+        assertTrue(similarity("completely different text", "咖啡豆的风味") < 0.1);
+    }
+
+    private String extractJava(JSONObject fixture) throws IOException {
+        String html = readFixture(fixture.getString("file"));
+        String url = fixture.getString("url");
+        return extractor.extract(Jsoup.parse(html, url), url).markdown();
+    }
+
+    /**
+     * 每个引擎都必须满足的预期：标题、来源、发布时间、包含及排除的文本，不含链接和图片语法
+     */
+    private static List<String> checkExpectations(String engine, JSONObject fixture, String markdown) {
+        String file = engine + " " + fixture.getString("file");
+        List<String> failures = new ArrayList<>();
+        Map<String, String> frontMatter = frontMatter(markdown);
+        if (!fixture.getString("title").equals(frontMatter.get("title"))) {
+            failures.add(file + " 标题为 " + frontMatter.get("title"));
+        }
+        if (!fixture.getString("url").equals(frontMatter.get("source"))) {
+            failures.add(file + " 来源为 " + frontMatter.get("source"));
+        }
+        OffsetDateTime savedAt = OffsetDateTime.parse(frontMatter.get("saved_at"));
+        if (!savedAt.toInstant().equals(OffsetDateTime.parse(fixture.getString("publishedAt")).toInstant())) {
+            failures.add(file + " 发布时间为 " + savedAt);
+        }
+        String body = body(markdown);
+        if (!body.startsWith("# ")) {
+            failures.add(file + " 正文没有以一级标题开头");
+        }
+        for (String text : fixture.getJSONArray("contains").toJavaList(String.class)) {
+            if (!body.contains(text)) {
+                failures.add(file + " 缺少：" + text);
+            }
+        }
+        for (String text : fixture.getJSONArray("excludes").toJavaList(String.class)) {
+            if (body.contains(text)) {
+                failures.add(file + " 不应包含：" + text);
+            }
+        }
+        if (body.contains("](") || body.contains("<img")) {
+            failures.add(file + " 残留链接或图片语法");
+        }
+        return failures;
+    }
+
+    private static List<JSONObject> fixtures() throws IOException {
+        JSONArray fixtures = JSON.parseArray(readFixture("fixtures.json"));
+        List<JSONObject> result = new ArrayList<>();
+        for (int i = 0; i < fixtures.size(); i++) {
+            result.add(fixtures.getJSONObject(i));
+        }
+        return result;
+    }
+
+    private static String readFixture(String name) throws IOException {
+        try (InputStream in = ArticleExtractorParityTest.class.getResourceAsStream(FIXTURE_DIR + name)) {
+            if (in == null) {
+                throw new IOException("fixture not found: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, String> frontMatter(String markdown) {
+        Map<String, String> values = new HashMap<>();
+        String[] parts = markdown.split("---\n", 3);
+        for (String line : parts[1].split("\n")) {
+            int colon = line.indexOf(": ");
+            if (colon > 0) {
+                values.put(line.substring(0, colon), line.substring(colon + 2).replaceAll("^\"|\"$", ""));
+            }
+        }
+        return values;
+    }
+
+    private static String body(String markdown) {
+        return markdown.split("---\n", 3)[2].strip();
+    }
+
+    private static String firstLine(String text) {
+        int end = text.indexOf('\n');
+        return end < 0 ? text : text.substring(0, end);
+    }
+
+    /**
+     * 正文相似度：去掉 Markdown 语法和空白后按字符二元组计算 Dice 系数，中英文都适用
+     */
+    static double similarity(String a, String b) {
+        Map<String, Integer> left = bigrams(a);
+        Map<String, Integer> right = bigrams(b);
+        int total = left.values().stream().mapToInt(Integer::intValue).sum()
+                + right.values().stream().mapToInt(Integer::intValue).sum();
+        if (total == 0) {
+            return 1.0;
+        }
+        int common = 0;
+        for (Map.Entry<String, Integer> entry : left.entrySet()) {
+            common += Math.min(entry.getValue(), right.getOrDefault(entry.getKey(), 0));
+        }
+        return 2.0 * common / total;
+    }
+
+    private static Map<String, Integer> bigrams(String text) {
+        String normalized = text.replaceAll("[#*`>|_\\-]", " ")
+                .replaceAll("\\s+", "")
+                .toLowerCase();
+        Map<String, Integer> bigrams = new LinkedHashMap<>();
+        for (int i = 0; i + 2 <= normalized.length(); i++) {
+            bigrams.merge(normalized.substring(i, i + 2), 1, Integer::sum);
+        }
+        return bigrams;
+    }
+
+    private static String python() {
+        return System.getProperty("python.interpreter", "python3");
+    }
+
+    private static boolean pythonExtractorAvailable() {
+        try {
+            Process process = new ProcessBuilder(python(), "-c", "import trafilatura, bs4, dateutil")
+                    .redirectErrorStream(true)
+                    .start();
+            process.getInputStream().readAllBytes();
+            return process.waitFor(60, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 调用 downloadToMarkdown.html_to_markdown 抽取保存的页面
+     */
+    private static String extractPython(JSONObject fixture) throws IOException, InterruptedException {
+        Path html = Files.createTempFile("fixture-", ".html");
+        try {
+            Files.writeString(html, readFixture(fixture.getString("file")), StandardCharsets.UTF_8);
+            String code = "import sys\n"
+                    + "sys.path.insert(0, sys.argv[1])\n"
+                    + "from downloadToMarkdown import html_to_markdown\n"
+                    + "html = open(sys.argv[2], encoding='utf-8').read()\n"
+                    + "sys.stdout.buffer.write(html_to_markdown(html, sys.argv[3])['markdown'].encode('utf-8'))\n";
+            Process process = new ProcessBuilder(python(), "-c", code, SCRIPT_DIR.toAbsolutePath().toString(),
+                    html.toString(), fixture.getString("url"))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            String markdown = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            if (!process.waitFor(60, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                throw new IOException("python 抽取失败：" + fixture.getString("file"));
+            }
+            return markdown;
+        } finally {
+            Files.deleteIfExists(html);
+        }
+    }
+}
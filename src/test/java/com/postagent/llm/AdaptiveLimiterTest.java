@@ -0,0 +1,209 @@
+package com.postagent.llm;
+
+import com.postagent.config.LlmConcurrencyProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * AIMD 上限调整、过载下降间隔及排队
+ */
+class AdaptiveLimiterTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void successNearLimitIncreasesAdditively() throws Exception {
+        AdaptiveLimiter limiter = limiter(4, 1, 32);
+        fill(limiter, 4);
+
+        // 第一个样本只用于初始化平均延迟
+        cycle(limiter, 100, AdaptiveLimiter.Outcome.SUCCESS);
+        assertEquals(4.0, limiter.limit(), DELTA);
+        cycle(limiter, 100, AdaptiveLimiter.Outcome.SUCCESS);
+        assertEquals(4.25, limiter.limit(), DELTA);
+        for (int i = 0; i < 20; i++) {
+            cycle(limiter, 100, AdaptiveLimiter.Outcome.SUCCESS);
+        }
+        assertTrue(limiter.limit() > 7 && limiter.limit() < 9, "上限约每一轮请求加 1：" + limiter.limit());
+    }
+
+    @Test
+    void underusedLimitDoesNotGrow() throws Exception {
+        AdaptiveLimiter limiter = limiter(4, 1, 32);
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+            limiter.release(100, AdaptiveLimiter.Outcome.SUCCESS);
+        }
+
+        assertEquals(4.0, limiter.limit(), DELTA);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void limitIsCappedAtMaximum() throws Exception {
+        AdaptiveLimiter limiter = limiter(5, 1, 5);
+        fill(limiter, 5);
+        for (int i = 0; i < 10; i++) {
+            cycle(limiter, 100, AdaptiveLimiter.Outcome.SUCCESS);
+        }
+
+        assertEquals(5.0, limiter.limit(), DELTA);
+    }
+
+    @Test
+    void slowResponseDecreasesSlightly() throws Exception {
+        AdaptiveLimiter limiter = limiter(10, 1, 32);
+        limiter.acquire();
+        limiter.release(100, AdaptiveLimiter.Outcome.SUCCESS);
+        limiter.acquire();
+        // 容差为 2 倍平均延迟
+        limiter.release(300, AdaptiveLimiter.Outcome.SUCCESS);
+
+        assertEquals(9.0, limiter.limit(), DELTA);
+    }
+
+    @Test
+    void overloadBacksOffOncePerInterval() throws Exception {
+        AdaptiveLimiter limiter = limiter(16, 1, 32);
+        fill(limiter, 3);
+
+        limiter.release(-1, AdaptiveLimiter.Outcome.OVERLOAD);
+        limiter.release(-1, AdaptiveLimiter.Outcome.OVERLOAD);
+        assertEquals(8.0, limiter.limit(), DELTA);
+
+        // 最短间隔 1 秒后再次下降
+        TimeUnit.MILLISECONDS.sleep(1_100);
+        limiter.release(-1, AdaptiveLimiter.Outcome.OVERLOAD);
+        assertEquals(4.0, limiter.limit(), DELTA);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void backoffIntervalFollowsAverageLatency() throws Exception {
+        AdaptiveLimiter limiter = limiter(16, 1, 32);
+        limiter.acquire();
+        limiter.release(1_500, AdaptiveLimiter.Outcome.SUCCESS);
+        fill(limiter, 2);
+
+        limiter.release(-1, AdaptiveLimiter.Outcome.OVERLOAD);
+        TimeUnit.MILLISECONDS.sleep(1_100);
+        // 平均延迟 1.5 秒，同一批请求的限流只下降一次
+        limiter.release(-1, AdaptiveLimiter.Outcome.OVERLOAD);
+
+        assertEquals(8.0, limiter.limit(), DELTA);
+    }
+
+    @Test
+    void overloadNeverGoesBelowMinimum() throws Exception {
+        AdaptiveLimiter limiter = limiter(2, 2, 32);
+        limiter.acquire();
+        limiter.release(-1, AdaptiveLimiter.Outcome.OVERLOAD);
+
+        assertEquals(2.0, limiter.limit(), DELTA);
+    }
+
+    @Test
+    void ignoredOutcomeOnlyReleases() throws Exception {
+        AdaptiveLimiter limiter = limiter(4, 1, 32);
+        fill(limiter, 4);
+        for (int i = 0; i < 4; i++) {
+            limiter.release(-1, AdaptiveLimiter.Outcome.IGNORE);
+        }
+
+        assertEquals(4.0, limiter.limit(), DELTA);
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void waitersAreQueuedRejectedAndTimedOut() throws Exception {
+        LlmConcurrencyProperties.Limits limits = limits(1, 1, 32);
+        limits.setQueueCapacity(1);
+        limits.setMaxWait(Duration.ofMillis(300));
+        AdaptiveLimiter limiter = new AdaptiveLimiter(limits, 0.5, 2.0);
+        limiter.acquire();
+
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try {
+                limiter.acquire();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        awaitWaiting(limiter, 1);
+        assertThrows(RejectedExecutionException.class, limiter::acquire);
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause().getCause());
+        assertEquals(0, limiter.waiting());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    void releaseWakesWaiter() throws Exception {
+        LlmConcurrencyProperties.Limits limits = limits(1, 1, 32);
+        limits.setMaxWait(Duration.ofSeconds(5));
+        AdaptiveLimiter limiter = new AdaptiveLimiter(limits, 0.5, 2.0);
+        limiter.acquire();
+
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            try {
+                limiter.acquire();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        awaitWaiting(limiter, 1);
+        assertFalse(waiter.isDone());
+        limiter.release(-1, AdaptiveLimiter.Outcome.IGNORE);
+
+        waiter.get(5, TimeUnit.SECONDS);
+        assertEquals(1, limiter.inFlight());
+        assertEquals(0, limiter.waiting());
+    }
+
+    private static AdaptiveLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveLimiter(limits(initial, min, max), 0.5, 2.0);
+    }
+
+    private static LlmConcurrencyProperties.Limits limits(int initial, int min, int max) {
+        LlmConcurrencyProperties.Limits limits = new LlmConcurrencyProperties.Limits();
+        limits.setInitialLimit(initial);
+        limits.setMinLimit(min);
+        limits.setMaxLimit(max);
+        return limits;
+    }
+
+    private static void fill(AdaptiveLimiter limiter, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            limiter.acquire();
+        }
+    }
+
+    /**
+     * 释放一个名额后立即补上，保持并发不变
+     */
+    private static void cycle(AdaptiveLimiter limiter, long latencyMillis, AdaptiveLimiter.Outcome outcome) throws Exception {
+        limiter.release(latencyMillis, outcome);
+        limiter.acquire();
+    }
+
+    private static void awaitWaiting(AdaptiveLimiter limiter, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.waiting() < expected && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertEquals(expected, limiter.waiting());
+    }
+}
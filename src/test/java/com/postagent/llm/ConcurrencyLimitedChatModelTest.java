@@ -0,0 +1,113 @@
+package com.postagent.llm;
+
+import com.postagent.config.LlmConcurrencyProperties;
+import com.postagent.config.LlmRouterProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.ai.retry.NonTransientAiException;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 按模型的并发限制：限流计入产生它的后端，路由模型与直接调用共用同一个上限
+ */
+class ConcurrencyLimitedChatModelTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final LlmConcurrencyProperties props = new LlmConcurrencyProperties();
+
+    @Test
+    void throttledCallBacksOffAndReleases() {
+        ConcurrencyLimitedChatModel model = limited("writing", new StubChatModel(new NonTransientAiException("429 - Throttling")));
+
+        assertThrows(NonTransientAiException.class, () -> model.call(new Prompt("hello")));
+
+        assertEquals(2.0, gauge("llm.concurrency.limit", "writing"));
+        assertEquals(0.0, gauge("llm.concurrency.inflight", "writing"));
+        assertEquals(1.0, registry.get("llm.concurrency.overloads").tag("model", "writing").counter().count());
+    }
+
+    @Test
+    void hedgedThrottleIsAttributedToFailingBackend() {
+        ConcurrencyLimitedChatModel dashscope = limited("writing", new StubChatModel(new NonTransientAiException("429 - Throttling")));
+        ConcurrencyLimitedChatModel ollama = limited("ollama", new StubChatModel(null));
+        LlmRouterProperties router = new LlmRouterProperties();
+        router.setPrimary("dashscope");
+        Map<String, ChatModel> models = new LinkedHashMap<>();
+        models.put("dashscope", dashscope);
+        models.put("ollama", ollama);
+        RoutingChatModel routing = new RoutingChatModel(models, router, registry);
+
+        // 首选后端被限流，备用后端返回结果，调用方看到的是成功
+        assertEquals("ok", routing.call(new Prompt("hello")).getResult().getOutput().getText());
+
+        assertEquals(2.0, gauge("llm.concurrency.limit", "writing"));
+        assertEquals(4.0, gauge("llm.concurrency.limit", "ollama"));
+    }
+
+    @Test
+    void streamReleasesPermitOnCompletion() {
+        ConcurrencyLimitedChatModel model = limited("ollama", new StubChatModel(null));
+
+        List<ChatResponse> chunks = model.stream(new Prompt("hello")).collectList().block(Duration.ofSeconds(5));
+
+        assertEquals(2, chunks.size());
+        assertEquals(0.0, gauge("llm.concurrency.inflight", "ollama"));
+        assertEquals("stub-model", model.getDefaultOptions().getModel());
+    }
+
+    private ConcurrencyLimitedChatModel limited(String name, ChatModel delegate) {
+        return new ConcurrencyLimitedChatModel(name, delegate, props, registry);
+    }
+
+    private double gauge(String name, String model) {
+        return registry.get(name).tag("model", model).gauge().value();
+    }
+
+    /**
+     * 立即返回或抛出指定异常的模型
+     */
+    private static class StubChatModel implements ChatModel {
+        private final RuntimeException failure;
+
+        StubChatModel(RuntimeException failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            if (failure != null) {
+                throw failure;
+            }
+            return response("ok");
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return failure != null ? Flux.error(failure) : Flux.just(response("o"), response("k"));
+        }
+
+        @Override
+        public ChatOptions getDefaultOptions() {
+            return ChatOptions.builder().model("stub-model").build();
+        }
+
+        private static ChatResponse response(String text) {
+            return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.postagent.llm;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyWindowTest {
+
+    @Test
+    void emptyWindowHasNoLatencyOrErrors() {
+        LatencyWindow window = new LatencyWindow(10);
+
+        assertEquals(0, window.count());
+        assertEquals(0, window.percentile(0.5));
+        assertEquals(0.0, window.errorRate());
+    }
+
+    @Test
+    void percentilesUseSuccessfulSamplesOnly() {
+        LatencyWindow window = new LatencyWindow(10);
+        for (long latency = 1; latency <= 8; latency++) {
+            window.record(latency * 100, false);
+        }
+        window.record(10_000, true);
+        window.record(20_000, true);
+
+        assertEquals(10, window.count());
+        assertEquals(400, window.percentile(0.5));
+        assertEquals(800, window.percentile(0.99));
+        assertEquals(100, window.percentile(0.0));
+        assertEquals(0.2, window.errorRate(), 1e-9);
+    }
+
+    @Test
+    void oldestSamplesAreEvicted() {
+        LatencyWindow window = new LatencyWindow(3);
+        window.record(1_000, true);
+        window.record(1_000, true);
+        window.record(1_000, true);
+        window.record(10, false);
+        window.record(20, false);
+        window.record(30, false);
+
+        assertEquals(3, window.count());
+        assertEquals(0.0, window.errorRate());
+        assertEquals(20, window.percentile(0.5));
+        assertEquals(30, window.percentile(0.99));
+    }
+
+    @Test
+    void allFailedSamplesHaveNoLatency() {
+        LatencyWindow window = new LatencyWindow(4);
+        window.record(500, true);
+        window.record(700, true);
+
+        assertEquals(0, window.percentile(0.99));
+        assertEquals(1.0, window.errorRate());
+    }
+
+    @Test
+    void sizeIsAtLeastOne() {
+        LatencyWindow window = new LatencyWindow(0);
+        window.record(5, false);
+        window.record(7, false);
+
+        assertEquals(1, window.count());
+        assertEquals(7, window.percentile(0.5));
+    }
+}
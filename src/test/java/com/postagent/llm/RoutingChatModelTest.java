@@ -0,0 +1,276 @@
+package com.postagent.llm;
+
+import com.postagent.config.LlmRouterProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.ChatOptions;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 使用本地桩模型验证路由：首选后端、备用请求、失败切换、取消及参数传递
+ */
+class RoutingChatModelTest {
+
+    private static final Duration SLOW = Duration.ofSeconds(3);
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final LlmRouterProperties props = new LlmRouterProperties();
+
+    @Test
+    void fastPrimaryAnswersWithoutHedge() {
+        StubChatModel primary = new StubChatModel("primary", Duration.ZERO, null);
+        StubChatModel secondary = new StubChatModel("secondary", Duration.ZERO, null);
+        RoutingChatModel router = router(primary, secondary, Duration.ofSeconds(2));
+
+        assertEquals("primary", text(router.call(prompt())));
+        assertEquals(1, primary.calls.get());
+        assertEquals(0, secondary.calls.get());
+        assertEquals(0.0, registry.get("llm.router.hedges").counter().count());
+        assertEquals(0, router.fallbackResponses());
+        assertEquals("primary-model", router.getDefaultOptions().getModel());
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndCancelledLoserRecordsElapsedTime() {
+        StubChatModel primary = new StubChatModel("primary", SLOW, null);
+        StubChatModel secondary = new StubChatModel("secondary", Duration.ZERO, null);
+        RoutingChatModel router = router(primary, secondary, Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        assertEquals("secondary", text(router.call(prompt())));
+
+        assertTrue(millisSince(start) < SLOW.toMillis(), "应由备用后端返回，而不是等待首选后端");
+        assertEquals(1.0, registry.get("llm.router.hedges").counter().count());
+        assertEquals(1, router.fallbackResponses());
+        // 首选后端被取消，按已等待的时间记录，不少于延迟目标
+        assertTrue(await(() -> latency("primary", "call")) >= 200);
+        assertEquals(0.0, errorRate("primary", "call"));
+    }
+
+    @Test
+    void failedPrimaryTriggersHedgeImmediately() {
+        StubChatModel primary = new StubChatModel("primary", Duration.ZERO, new IllegalStateException("primary down"));
+        StubChatModel secondary = new StubChatModel("secondary", Duration.ZERO, null);
+        RoutingChatModel router = router(primary, secondary, Duration.ofSeconds(30));
+
+        long start = System.nanoTime();
+        assertEquals("secondary", text(router.call(prompt())));
+
+        assertTrue(millisSince(start) < 10_000, "首选后端失败后应立即发送备用请求");
+        assertEquals(1.0, errorRate("primary", "call"));
+        assertEquals(1, router.fallbackResponses());
+    }
+
+    @Test
+    void bothBackendsFailing() {
+        StubChatModel primary = new StubChatModel("primary", Duration.ZERO, new IllegalStateException("primary down"));
+        StubChatModel secondary = new StubChatModel("secondary", Duration.ZERO, new IllegalStateException("secondary down"));
+        RoutingChatModel router = router(primary, secondary, Duration.ofSeconds(30));
+
+        assertThrows(RuntimeException.class, () -> router.call(prompt()));
+        assertEquals(1, primary.calls.get());
+        assertEquals(1, secondary.calls.get());
+        assertEquals(0, router.fallbackResponses());
+    }
+
+    @Test
+    void degradedPrimaryIsBypassed() {
+        props.setHedgeEnabled(false);
+        props.setMinSamples(2);
+        StubChatModel primary = new StubChatModel("primary", Duration.ZERO, new IllegalStateException("primary down"));
+        StubChatModel secondary = new StubChatModel("secondary", Duration.ZERO, null);
+        RoutingChatModel router = router(primary, secondary, Duration.ofSeconds(30));
+
+        assertThrows(IllegalStateException.class, () -> router.call(prompt()));
+        assertThrows(IllegalStateException.class, () -> router.call(prompt()));
+        assertEquals("secondary", text(router.call(prompt())));
+
+        assertEquals(2, primary.calls.get());
+        assertEquals(1, router.fallbackResponses());
+    }
+
+    @Test
+    void slowFirstChunkIsHedgedAndPrimaryStreamCancelled() {
+        StubChatModel primary = new StubChatModel("primary", SLOW, null);
+        StubChatModel secondary = new StubChatModel("secondary", Duration.ZERO, null);
+        RoutingChatModel router = router(primary, secondary, Duration.ofMillis(200));
+
+        List<ChatResponse> chunks = router.stream(prompt()).collectList().block();
+
+        assertEquals(List.of("secondary-1", "secondary-2"), chunks.stream().map(RoutingChatModelTest::text).toList());
+        assertTrue(primary.cancelled.get());
+        assertTrue(await(() -> latency("primary", "first_chunk")) >= 200);
+        assertEquals(1, router.fallbackResponses());
+    }
+
+    @Test
+    void streamErrorAfterFirstChunkIsNotHedged() {
+        StubChatModel primary = new StubChatModel("primary", Duration.ZERO, null);
+        primary.failAfterFirstChunk = true;
+        StubChatModel secondary = new StubChatModel("secondary", Duration.ZERO, null);
+        RoutingChatModel router = router(primary, secondary, Duration.ofSeconds(30));
+
+        assertThrows(RuntimeException.class, () -> router.stream(prompt()).collectList().block());
+        assertEquals(0, secondary.calls.get());
+    }
+
+    @Test
+    void callerOptionsAreMergedIntoBackendDefaults() {
+        StubChatModel primary = new StubChatModel("primary", Duration.ZERO, null);
+        StubChatModel secondary = new StubChatModel("secondary", Duration.ZERO, null);
+        RoutingChatModel router = router(primary, secondary, Duration.ofSeconds(2));
+
+        // ChatClient 把默认参数复制到请求中，未修改的参数不传给后端
+        router.call(new Prompt("hello", router.getDefaultOptions().copy()));
+        assertNull(primary.lastOptions.get());
+
+        router.call(new Prompt("hello", ChatOptions.builder()
+                .model("primary-model")
+                .temperature(0.1)
+                .maxTokens(256)
+                .build()));
+        ChatOptions forwarded = primary.lastOptions.get();
+        assertEquals(0.1, forwarded.getTemperature());
+        assertEquals(256, forwarded.getMaxTokens());
+        // 模型名称由各后端自己的默认参数决定
+        assertNull(forwarded.getModel());
+    }
+
+    private RoutingChatModel router(StubChatModel primary, StubChatModel secondary, Duration slo) {
+        props.setPrimary("primary");
+        for (String name : List.of("primary", "secondary")) {
+            LlmRouterProperties.Backend backend = new LlmRouterProperties.Backend();
+            backend.setSlo(slo);
+            backend.setFirstChunkSlo(slo);
+            props.getBackends().put(name, backend);
+        }
+        // 备用后端放在前面，验证按配置的首选后端排序
+        Map<String, ChatModel> models = new LinkedHashMap<>();
+        models.put("secondary", secondary);
+        models.put("primary", primary);
+        return new RoutingChatModel(models, props, registry);
+    }
+
+    private double latency(String backend, String mode) {
+        return registry.get("llm.router.latency")
+                .tags("backend", backend, "quantile", "p50", "mode", mode)
+                .gauge()
+                .value();
+    }
+
+    private double errorRate(String backend, String mode) {
+        return registry.get("llm.router.error.rate")
+                .tags("backend", backend, "mode", mode)
+                .gauge()
+                .value();
+    }
+
+    /**
+     * 被取消的一方在另一个线程上记录，等待记录完成
+     */
+    private static double await(DoubleSupplier value) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        double current = value.getAsDouble();
+        while (current == 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            current = value.getAsDouble();
+        }
+        return current;
+    }
+
+    private static Prompt prompt() {
+        return new Prompt("hello");
+    }
+
+    private static String text(ChatResponse response) {
+        return response.getResult().getOutput().getText();
+    }
+
+    private static long millisSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static ChatResponse response(String text) {
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(text))));
+    }
+
+    /**
+     * 固定延迟后返回名称或失败的模型，记录调用次数、收到的参数及是否被取消
+     */
+    private static class StubChatModel implements ChatModel {
+        private final String name;
+        private final Duration delay;
+        private final RuntimeException failure;
+        private final AtomicInteger calls = new AtomicInteger();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicReference<ChatOptions> lastOptions = new AtomicReference<>();
+        private volatile boolean failAfterFirstChunk;
+
+        StubChatModel(String name, Duration delay, RuntimeException failure) {
+            this.name = name;
+            this.delay = delay;
+            this.failure = failure;
+        }
+
+        @Override
+        public ChatResponse call(Prompt prompt) {
+            calls.incrementAndGet();
+            lastOptions.set(prompt.getOptions());
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(name + " interrupted", e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return response(name);
+        }
+
+        @Override
+        public Flux<ChatResponse> stream(Prompt prompt) {
+            return Flux.defer(() -> {
+                calls.incrementAndGet();
+                lastOptions.set(prompt.getOptions());
+                Flux<ChatResponse> chunks = failure != null
+                        ? Flux.error(failure)
+                        : failAfterFirstChunk
+                        ? Flux.concat(Mono.just(response(name + "-1")), Mono.error(new IllegalStateException(name + " broken")))
+                        : Flux.just(response(name + "-1"), response(name + "-2"));
+                return Mono.delay(delay).thenMany(chunks);
+            }).doOnCancel(() -> cancelled.set(true));
+        }
+
+        @Override
+        public ChatOptions getDefaultOptions() {
+            return ChatOptions.builder().model(name + "-model").temperature(0.7).maxTokens(1024).build();
+        }
+    }
+}
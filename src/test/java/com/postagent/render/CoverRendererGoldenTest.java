@@ -0,0 +1,238 @@
+package com.postagent.render;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.postagent.config.RenderProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Java2D 封面与浏览器封面的像素对比测试
+ * 参考图片由 scripts/render_golden_covers.py 按 covers.json 的用例用线上模板渲染，保存在
+ * src/test/resources/render/golden；字体不存在时跳过对比，参考图片缺失时测试失败。
+ * 两种渲染的抗锯齿及字形栅格化不同，按像素容差比较，差异图片输出到 target/golden-diff
+ */
+class CoverRendererGoldenTest {
+
+    private static final String GOLDEN_DIR = "/render/golden/";
+    private static final Path DIFF_DIR = Path.of("target", "golden-diff");
+    /**
+     * 单个像素任一通道的差值超过该值时记为不同，吸收抗锯齿边缘的差异
+     */
+    private static final int PIXEL_THRESHOLD = 48;
+    /**
+     * 不同像素的占比上限
+     */
+    private static final double MAX_DIFF_RATIO = 0.02;
+    /**
+     * 全图每个通道的平均差值上限
+     */
+    private static final double MAX_MEAN_DIFF = 4.0;
+
+    private final RenderProperties props = new RenderProperties();
+    private final RenderExecutor renderExecutor = new RenderExecutor(props);
+    private final CoverRenderer renderer = new CoverRenderer(new FontCache(props), props, renderExecutor);
+
+    @AfterEach
+    void shutdown() {
+        renderExecutor.shutdown();
+    }
+
+    @Test
+    void javaCoversMatchChromiumReferences() throws IOException {
+        Font font = new FontCache(props).getFont(FontCache.BOLD, 88f).orElse(null);
+        assumeTrue(font != null, "字体目录中没有 " + FontCache.BOLD + "，跳过对比");
+        List<String> failures = new ArrayList<>();
+        for (JSONObject cover : covers()) {
+            String name = cover.getString("name");
+            BufferedImage expected = readGolden(name + ".png");
+            if (expected == null) {
+                failures.add(name + " 没有参考图片，运行 scripts/render_golden_covers.py 生成并提交");
+                continue;
+            }
+            String title = cover.getString("title");
+            assertTrue(renderer.canRender(title, null), name + " 的标题不能用 Java2D 渲染");
+            BufferedImage actual = renderer.draw(title, underline(cover), font);
+            Diff diff = Diff.of(expected, actual);
+            if (!diff.withinTolerance()) {
+                failures.add(String.format("%s 不同像素占比 %.4f，平均差值 %.2f", name, diff.ratio(), diff.mean()));
+                writeDiff(name, expected, actual);
+            }
+        }
+        assertTrue(failures.isEmpty(), String.join("\n", failures));
+    }
+
+    /**
+     * 背景渐变按 CSS linear-gradient(135deg, #FFF8F0 0%, #E8DCC0 50%, #D4A574 100%) 计算，不依赖字体
+     */
+    @Test
+    void backgroundMatchesCssGradient() {
+        BufferedImage image = renderer.draw(" ", Set.of(), new Font(Font.DIALOG, Font.BOLD, 88));
+
+        assertColor(new Color(0xFFF8F0), image.getRGB(0, 0));
+        assertColor(new Color(0xE8DCC0), image.getRGB(540, 720));
+        assertColor(new Color(0xD4A574), image.getRGB(1079, 1439));
+        // 渐变线垂直于 135° 方向，同一条反对角线上颜色相同
+        assertColor(new Color(image.getRGB(540, 720)), image.getRGB(540 + 300, 720 - 300));
+    }
+
+    @Test
+    void underlineIsDrawnBelowTitle() {
+        Font font = new Font(Font.DIALOG, Font.BOLD, 88);
+        BufferedImage plain = renderer.draw("标题", Set.of(), font);
+        BufferedImage underlined = renderer.draw("标题", CoverRenderer.parseUnderline("[0,1]"), font);
+        BufferedImage outOfRange = renderer.draw("标题", CoverRenderer.parseUnderline("[5,8]"), font);
+
+        assertTrue(Diff.of(plain, underlined).ratio() > 0, "没有绘制下划线");
+        assertEquals(0.0, Diff.of(plain, outOfRange).ratio());
+    }
+
+    @Test
+    void underlineRangeMatchesScriptFormat() {
+        assertEquals(List.of(0, 1, 2, 3), List.copyOf(CoverRenderer.parseUnderline("[0,3]")));
+        assertEquals(List.of(2, 3), List.copyOf(CoverRenderer.parseUnderline(" 2, 3 ")));
+        assertTrue(CoverRenderer.parseUnderline(null).isEmpty());
+        assertTrue(CoverRenderer.parseUnderline("[1]").isEmpty());
+        assertTrue(CoverRenderer.parseUnderline("[a,b]").isEmpty());
+    }
+
+    @Test
+    void diffToleratesAntialiasingButNotShiftedContent() {
+        BufferedImage base = renderer.draw(" ", Set.of(), new Font(Font.DIALOG, Font.BOLD, 88));
+        BufferedImage noisy = copy(base);
+        for (int x = 0; x < 200; x++) {
+            noisy.setRGB(x, 700, 0x000000);
+        }
+        BufferedImage block = copy(base);
+        for (int y = 400; y < 800; y++) {
+            for (int x = 100; x < 900; x++) {
+                block.setRGB(x, y, 0x5C4033);
+            }
+        }
+
+        assertEquals(0.0, Diff.of(base, base).ratio());
+        assertTrue(Diff.of(base, noisy).withinTolerance());
+        assertFalse(Diff.of(base, block).withinTolerance());
+    }
+
+    private static void assertColor(Color expected, int rgb) {
+        Color actual = new Color(rgb);
+        int delta = Math.max(Math.abs(expected.getRed() - actual.getRed()),
+                Math.max(Math.abs(expected.getGreen() - actual.getGreen()), Math.abs(expected.getBlue() - actual.getBlue())));
+        assertTrue(delta <= 3, "颜色应为 " + expected + "，实际为 " + actual);
+    }
+
+    private static Set<Integer> underline(JSONObject cover) {
+        JSONArray range = cover.getJSONArray("underline");
+        Set<Integer> indices = new LinkedHashSet<>();
+        if (range != null) {
+            for (int i = range.getIntValue(0); i <= range.getIntValue(1); i++) {
+                indices.add(i);
+            }
+        }
+        return indices;
+    }
+
+    private static List<JSONObject> covers() throws IOException {
+        try (InputStream in = CoverRendererGoldenTest.class.getResourceAsStream(GOLDEN_DIR + "covers.json")) {
+            if (in == null) {
+                throw new IOException("fixture not found: covers.json");
+            }
+            JSONArray covers = JSON.parseArray(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            List<JSONObject> result = new ArrayList<>();
+            for (int i = 0; i < covers.size(); i++) {
+                result.add(covers.getJSONObject(i));
+            }
+            return result;
+        }
+    }
+
+    private static BufferedImage readGolden(String name) throws IOException {
+        try (InputStream in = CoverRendererGoldenTest.class.getResourceAsStream(GOLDEN_DIR + name)) {
+            return in == null ? null : ImageIO.read(in);
+        }
+    }
+
+    private static BufferedImage copy(BufferedImage image) {
+        BufferedImage copy = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+        copy.getGraphics().drawImage(image, 0, 0, null);
+        return copy;
+    }
+
+    /**
+     * 输出参考图片、Java2D 图片及差异图片，差异像素标为红色
+     */
+    private static void writeDiff(String name, BufferedImage expected, BufferedImage actual) throws IOException {
+        Files.createDirectories(DIFF_DIR);
+        BufferedImage diff = copy(actual);
+        for (int y = 0; y < Math.min(expected.getHeight(), actual.getHeight()); y++) {
+            for (int x = 0; x < Math.min(expected.getWidth(), actual.getWidth()); x++) {
+                if (Diff.channelDelta(expected.getRGB(x, y), actual.getRGB(x, y)) > PIXEL_THRESHOLD) {
+                    diff.setRGB(x, y, 0xFF0000);
+                }
+            }
+        }
+        ImageIO.write(expected, "png", DIFF_DIR.resolve(name + "-expected.png").toFile());
+        ImageIO.write(actual, "png", DIFF_DIR.resolve(name + "-actual.png").toFile());
+        ImageIO.write(diff, "png", DIFF_DIR.resolve(name + "-diff.png").toFile());
+    }
+
+    /**
+     * 像素差异
+     * @param ratio 不同像素的占比，尺寸不同时为 1
+     * @param mean 每个通道的平均差值
+     */
+    private record Diff(double ratio, double mean) {
+
+        static Diff of(BufferedImage expected, BufferedImage actual) {
+            if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+                return new Diff(1.0, 255.0);
+            }
+            long different = 0;
+            long total = 0;
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    int a = expected.getRGB(x, y);
+                    int b = actual.getRGB(x, y);
+                    if (channelDelta(a, b) > PIXEL_THRESHOLD) {
+                        different++;
+                    }
+                    total += Math.abs((a >> 16 & 0xFF) - (b >> 16 & 0xFF))
+                            + Math.abs((a >> 8 & 0xFF) - (b >> 8 & 0xFF))
+                            + Math.abs((a & 0xFF) - (b & 0xFF));
+                }
+            }
+            long pixels = (long) expected.getWidth() * expected.getHeight();
+            return new Diff((double) different / pixels, (double) total / (pixels * 3));
+        }
+
+        static int channelDelta(int a, int b) {
+            return Math.max(Math.abs((a >> 16 & 0xFF) - (b >> 16 & 0xFF)),
+                    Math.max(Math.abs((a >> 8 & 0xFF) - (b >> 8 & 0xFF)), Math.abs((a & 0xFF) - (b & 0xFF))));
+        }
+
+        boolean withinTolerance() {
+            return ratio <= MAX_DIFF_RATIO && mean <= MAX_MEAN_DIFF;
+        }
+    }
+}
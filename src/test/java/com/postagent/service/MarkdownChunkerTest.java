@@ -0,0 +1,119 @@
+package com.postagent.service;
+
+import com.postagent.common.TokenEstimator;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Markdown 分段：章节合并、超长章节切分、代码块及预算上限
+ */
+class MarkdownChunkerTest {
+
+    private static final int BUDGET = 200;
+
+    private final MarkdownChunker chunker = new MarkdownChunker(BUDGET);
+
+    @Test
+    void shortDocumentIsOneChunk() {
+        String markdown = "# 标题\n\n第一段。\n\n## 小节\n\n第二段。\n";
+
+        assertEquals(List.of(markdown.strip()), chunker.split(markdown));
+    }
+
+    @Test
+    void budgetHasLowerBound() {
+        String markdown = "# 标题\n\n" + "字".repeat(150);
+
+        assertEquals(1, new MarkdownChunker(10).split(markdown).size());
+    }
+
+    @Test
+    void sectionsAreMergedUntilBudgetAndSplitAtHeadings() {
+        String markdown = "## 一\n\n" + "甲".repeat(80) + "\n\n## 二\n\n" + "乙".repeat(80)
+                + "\n\n## 三\n\n" + "丙".repeat(80) + "\n";
+
+        List<String> chunks = chunker.split(markdown);
+
+        assertEquals(2, chunks.size());
+        assertTrue(chunks.get(0).startsWith("## 一"));
+        assertTrue(chunks.get(0).contains("## 二"));
+        assertTrue(chunks.get(1).startsWith("## 三"));
+        assertWithinBudget(chunks);
+    }
+
+    @Test
+    void oversizedSectionContinuesUnderItsHeading() {
+        StringBuilder markdown = new StringBuilder("## 背景\n\n");
+        for (int i = 0; i < 6; i++) {
+            markdown.append("第").append(i).append("段").append("内容".repeat(40)).append("。\n\n");
+        }
+
+        List<String> chunks = chunker.split(markdown.toString());
+
+        assertTrue(chunks.size() > 1);
+        assertTrue(chunks.get(0).startsWith("## 背景\n"));
+        for (String chunk : chunks.subList(1, chunks.size())) {
+            assertTrue(chunk.startsWith("## 背景（续）"), chunk);
+        }
+        assertWithinBudget(chunks);
+        for (int i = 0; i < 6; i++) {
+            String paragraph = "第" + i + "段";
+            assertEquals(1, chunks.stream().filter(chunk -> chunk.contains(paragraph)).count(), paragraph);
+        }
+    }
+
+    @Test
+    void longParagraphIsSplitAtSentencesThenByBudget() {
+        String sentences = "这是一个句子。".repeat(100);
+        String unbroken = "无".repeat(500);
+
+        List<String> bySentence = chunker.split(sentences);
+        List<String> byBudget = chunker.split(unbroken);
+
+        assertWithinBudget(bySentence);
+        for (String chunk : bySentence) {
+            assertTrue(chunk.endsWith("。"), chunk);
+        }
+        assertWithinBudget(byBudget);
+        assertEquals(unbroken, String.join("", byBudget));
+    }
+
+    @Test
+    void hashInsideCodeFenceIsNotHeading() {
+        String code = "```python\n# 注释不是标题\nprint('hi')\n```";
+        String markdown = "## 代码\n\n" + "说明".repeat(60) + "\n\n" + code + "\n\n" + "结尾".repeat(60) + "\n";
+
+        List<String> chunks = chunker.split(markdown);
+
+        for (String chunk : chunks) {
+            assertFalse(chunk.startsWith("# 注释"), chunk);
+        }
+        assertEquals(1, chunks.stream().filter(chunk -> chunk.contains(code)).count());
+    }
+
+    @Test
+    void surrogatePairsAreNotSplit() {
+        String emoji = "😀".repeat(300);
+
+        List<String> chunks = chunker.split(emoji);
+
+        assertTrue(chunks.size() > 1);
+        for (String chunk : chunks) {
+            assertFalse(Character.isLowSurrogate(chunk.charAt(0)), "分段以半个代理对开头");
+            assertFalse(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)), "分段以半个代理对结尾");
+        }
+        assertEquals(emoji, String.join("", chunks));
+    }
+
+    private static void assertWithinBudget(List<String> chunks) {
+        for (String chunk : chunks) {
+            int tokens = TokenEstimator.estimate(chunk);
+            assertTrue(tokens <= BUDGET, "分段 " + tokens + " token 超过预算：" + chunk);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.postagent.service;
+
+import com.postagent.common.TokenEstimator;
+import com.postagent.config.SummaryProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 正文预处理的预算截断：超过剩余预算的段落截取到预算以内，而不是整段丢弃
+ */
+class MarkdownCompactorTest {
+
+    private static final int BUDGET = 100;
+
+    private final MarkdownCompactor compactor = new MarkdownCompactor(properties());
+
+    @Test
+    void documentWithinBudgetIsKept() {
+        List<String> documents = List.of("# 标题\n\n第一段。\n\n第二段。");
+
+        assertEquals(documents, compactor.compact(documents, "model").documents());
+    }
+
+    @Test
+    void oversizedFirstParagraphIsTruncatedAtSentence() {
+        String sentence = "这是一句很长的正文内容用于测试截断。";
+        String document = sentence.repeat(20);
+
+        List<String> documents = compactor.compact(List.of(document), "model").documents();
+
+        assertEquals(1, documents.size());
+        assertTrue(documents.get(0).startsWith(sentence));
+        assertTrue(documents.get(0).endsWith("。"));
+        assertTrue(TokenEstimator.estimate(documents.get(0)) <= BUDGET);
+    }
+
+    @Test
+    void paragraphWithoutSentenceEndIsCutAtBudget() {
+        String document = "## 小节\n\n" + "字".repeat(300);
+
+        List<String> documents = compactor.compact(List.of(document), "model").documents();
+
+        assertEquals(1, documents.size());
+        assertTrue(documents.get(0).startsWith("## 小节\n\n字"));
+        assertTrue(TokenEstimator.estimate(documents.get(0)) <= BUDGET);
+    }
+
+    @Test
+    void laterDocumentIsTruncatedFirst() {
+        String first = "甲".repeat(60);
+        String second = "乙".repeat(60);
+
+        List<String> documents = compactor.compact(List.of(first, second), "model").documents();
+
+        assertEquals(2, documents.size());
+        assertEquals(first, documents.get(0));
+        assertFalse(documents.get(1).isEmpty());
+        assertTrue(TokenEstimator.estimate(String.join("", documents)) <= BUDGET);
+    }
+
+    private static SummaryProperties properties() {
+        SummaryProperties properties = new SummaryProperties();
+        properties.getCompact().setDefaultBudget(BUDGET);
+        return properties;
+    }
+}
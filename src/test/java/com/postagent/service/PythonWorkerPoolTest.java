@@ -0,0 +1,126 @@
+package com.postagent.service;
+
+import com.postagent.config.PythonProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 常驻工作进程的输出转发：脚本执行期间按行收到输出，而不是结束后一次性返回
+ * 本机没有 python 时跳过
+ */
+class PythonWorkerPoolTest {
+
+    /**
+     * 先输出一行，等待测试收到这一行后创建的标记文件，再输出第二行并以退出码 3 结束；
+     * 输出在脚本结束后才返回时，脚本会一直等待直到超时
+     */
+    private static final String STREAMING_SCRIPT = """
+            import os, sys, time
+            print("第一行", flush=True)
+            deadline = time.time() + 10
+            while not os.path.exists(sys.argv[1]) and time.time() < deadline:
+                time.sleep(0.02)
+            sys.stdout.write("没有换行的结尾")
+            sys.exit(3 if os.path.exists(sys.argv[1]) else 4)
+            """;
+
+    @TempDir
+    Path scriptDir;
+
+    private PythonWorkerPool pool;
+
+    @BeforeEach
+    void start() throws IOException {
+        assumeTrue(pythonAvailable(), "本机没有 python，跳过");
+        Files.copy(Path.of("scripts", "worker.py"), scriptDir.resolve("worker.py"));
+        Files.writeString(scriptDir.resolve("streaming.py"), STREAMING_SCRIPT);
+        PythonProperties props = new PythonProperties();
+        props.setInterpreter(Path.of(python()));
+        props.setScriptDir(scriptDir);
+        pool = new PythonWorkerPool(props);
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void outputIsForwardedWhileScriptRuns() throws IOException {
+        Path marker = scriptDir.resolve("marker");
+        List<String> output = Collections.synchronizedList(new ArrayList<>());
+
+        int exitCode = pool.execute("streaming.py", List.of(marker.toString()), Duration.ofSeconds(30), text -> {
+            output.add(text);
+            if (text.startsWith("第一行")) {
+                Files.createFile(marker);
+            }
+        });
+
+        assertEquals(3, exitCode);
+        assertEquals(List.of("第一行\n", "没有换行的结尾"), output);
+    }
+
+    @Test
+    void outputFailureIsReportedAndWorkerIsReused() throws IOException {
+        Path marker = scriptDir.resolve("marker");
+        Files.createFile(marker);
+
+        IOException e = assertThrows(IOException.class, () -> pool.execute("streaming.py", List.of(marker.toString()),
+                Duration.ofSeconds(30), text -> {
+                    throw new IOException("disk full");
+                }));
+        List<String> output = Collections.synchronizedList(new ArrayList<>());
+        int exitCode = pool.execute("streaming.py", List.of(marker.toString()), Duration.ofSeconds(30), output::add);
+
+        assertTrue(e.getMessage().contains("disk full"), e.getMessage());
+        assertTrue(!(e instanceof PythonWorkerPool.PythonWorkerException), "输出失败不应退回单次执行");
+        assertEquals(3, exitCode);
+        assertEquals("第一行\n没有换行的结尾", String.join("", output));
+    }
+
+    @Test
+    void missingScriptReturnsExitCode() throws IOException {
+        List<String> output = new ArrayList<>();
+
+        int exitCode = pool.execute("missing.py", List.of(), Duration.ofSeconds(30), output::add);
+
+        assertEquals(2, exitCode);
+        assertEquals(List.of("Script not found: missing.py\n"), output);
+    }
+
+    private static String python() {
+        return System.getProperty("python.interpreter", "python3");
+    }
+
+    private static boolean pythonAvailable() {
+        try {
+            Process process = new ProcessBuilder(python(), "--version").redirectErrorStream(true).start();
+            process.getInputStream().readAllBytes();
+            return process.waitFor(30, TimeUnit.SECONDS) && process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
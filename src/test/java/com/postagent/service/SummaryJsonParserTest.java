@@ -0,0 +1,148 @@
+package com.postagent.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 文案 JSON 流式解析：任意分片、对象前后的说明文字、截断、字段修正及标题回调
+ */
+class SummaryJsonParserTest {
+
+    private static final String OUTPUT = "{\"title\": [\"周末去哪儿\", \"城市漫步\"], \"emoji\": \"🌿\", "
+            + "\"summary\": \"第一段，含有 {花括号} 和 \\\"引号\\\"。\\n第二段\"}";
+
+    private final List<List<String>> titleCallbacks = new ArrayList<>();
+
+    @Test
+    void completeOutputInOneChunk() {
+        SummaryJsonParser.Result result = parse(OUTPUT);
+
+        assertEquals(List.of("周末去哪儿", "城市漫步"), result.titles());
+        assertEquals("第一段，含有 {花括号} 和 \"引号\"。\n第二段", result.summary());
+        assertEquals("🌿", result.emoji());
+        assertEquals(List.of(), result.violations());
+        assertEquals(List.of(result.titles()), titleCallbacks);
+    }
+
+    @Test
+    void splitChunksGiveSameResult() {
+        SummaryJsonParser.Result whole = parse(OUTPUT);
+
+        for (int size : new int[]{1, 2, 3, 7, 13}) {
+            titleCallbacks.clear();
+            SummaryJsonParser parser = new SummaryJsonParser(titleCallbacks::add);
+            for (int i = 0; i < OUTPUT.length(); i += size) {
+                parser.accept(OUTPUT.substring(i, Math.min(OUTPUT.length(), i + size)));
+            }
+            SummaryJsonParser.Result result = parser.finish();
+
+            assertEquals(whole, result, "分片长度 " + size);
+            assertEquals(1, titleCallbacks.size(), "分片长度 " + size);
+        }
+    }
+
+    @Test
+    void titleCallbackFiresBeforeSummaryArrives() {
+        SummaryJsonParser parser = new SummaryJsonParser(titleCallbacks::add);
+        parser.accept("{\"title\": [\"标题\"");
+        assertTrue(titleCallbacks.isEmpty());
+        // 数组闭合即回调，不等待后面的字段
+        parser.accept("], \"summary\": \"正文还在生成");
+        assertEquals(List.of(List.of("标题")), titleCallbacks);
+
+        parser.accept("\"}");
+        assertEquals(1, titleCallbacks.size());
+    }
+
+    @Test
+    void preambleAndCodeFenceAreIgnored() {
+        String output = "好的，以下是生成的文案：\n```json\n" + OUTPUT + "\n```\n希望你喜欢！{\"title\": [\"多余\"]}";
+
+        SummaryJsonParser.Result result = parse(output);
+
+        assertEquals(List.of("周末去哪儿", "城市漫步"), result.titles());
+        assertEquals(List.of(), result.violations());
+        assertEquals(1, titleCallbacks.size());
+    }
+
+    @Test
+    void truncatedValueKeepsCompletedFields() {
+        SummaryJsonParser.Result result = parse("{\"title\": [\"周末去哪儿\"], \"summary\": \"第一段写到一半");
+
+        assertEquals(List.of("周末去哪儿"), result.titles());
+        assertNull(result.summary());
+        assertEquals(List.of("输出被截断，字段 summary 不完整"), result.violations());
+    }
+
+    @Test
+    void truncatedBeforeClosingBrace() {
+        SummaryJsonParser.Result result = parse("{\"title\": [\"周末去哪儿\"], \"summary\": \"完整的正文\"");
+
+        assertEquals(List.of("周末去哪儿"), result.titles());
+        assertEquals("完整的正文", result.summary());
+        assertEquals(List.of("输出被截断，JSON 对象没有结束"), result.violations());
+    }
+
+    @Test
+    void outputWithoutObject() {
+        SummaryJsonParser.Result result = parse("抱歉，我无法完成这个请求。");
+
+        assertNull(result.titles());
+        assertNull(result.summary());
+        assertEquals(List.of("输出中没有 JSON 对象"), result.violations());
+        assertTrue(titleCallbacks.isEmpty());
+    }
+
+    @Test
+    void fixableShapesAreCorrected() {
+        SummaryJsonParser.Result result = parse("{\"title\": \" 单个标题 \", \"summary\": [\"第一段\", \"第二段\"]}");
+
+        assertEquals(List.of("单个标题"), result.titles());
+        assertEquals("第一段\n\n第二段", result.summary());
+        assertEquals(List.of(), result.violations());
+    }
+
+    @Test
+    void invalidFieldsAreReported() {
+        SummaryJsonParser.Result result = parse("{\"title\": [], \"summary\": 42, \"emoji\": \"这不是一个表情而是一句话\"}");
+
+        assertNull(result.titles());
+        assertNull(result.summary());
+        // emoji 可选，不合法时直接丢弃
+        assertNull(result.emoji());
+        assertEquals(2, result.violations().size());
+        assertTrue(result.violations().get(0).startsWith("title 不是非空字符串数组"));
+        assertTrue(result.violations().get(1).startsWith("summary 不是非空字符串"));
+        assertTrue(titleCallbacks.isEmpty());
+    }
+
+    @Test
+    void unknownFieldsAreSkipped() {
+        SummaryJsonParser.Result result = parse("{\"tags\": {\"a\": [1, 2]}, \"title\": [\"标题\"], \"summary\": \"正文\", \"score\": 9}");
+
+        assertEquals(List.of("标题"), result.titles());
+        assertEquals("正文", result.summary());
+        assertEquals(List.of(), result.violations());
+    }
+
+    @Test
+    void resultSerializesInModelOrder() {
+        SummaryJsonParser.Result result = parse("{\"summary\": \"正文\", \"emoji\": \"🌿\", \"title\": [\"标题\"]}");
+
+        assertEquals("{\"title\":[\"标题\"],\"emoji\":\"🌿\",\"summary\":\"正文\"}", result.toJson());
+        assertEquals("{\"title\":[\"标题\"],\"summary\":\"正文\"}",
+                new SummaryJsonParser.Result(List.of("标题"), "正文", null, List.of()).toJson());
+    }
+
+    private SummaryJsonParser.Result parse(String output) {
+        SummaryJsonParser parser = new SummaryJsonParser(titleCallbacks::add);
+        parser.accept(output);
+        return parser.finish();
+    }
+}
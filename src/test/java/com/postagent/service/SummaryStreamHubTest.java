@@ -0,0 +1,168 @@
+package com.postagent.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 文案推送：事件顺序、补发及慢订阅者不阻塞发布方
+ */
+class SummaryStreamHubTest {
+
+    private final SummaryStreamHub hub = new SummaryStreamHub();
+
+    @AfterEach
+    void close() {
+        hub.close();
+    }
+
+    @Test
+    void slowSubscriberDoesNotBlockPublisher() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter(null);
+        hub.start("1");
+        hub.subscribe("1", slow);
+        hub.subscribe("1", fast);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            hub.append("1", "d" + i);
+        }
+        hub.complete("1", "full");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 1_000, "发布被阻塞了 " + elapsedMillis + " ms");
+        assertTrue(fast.awaitCompletion());
+        assertEquals(101, fast.events().size());
+        assertEquals(event("delta", "d0"), fast.events().get(0));
+        assertEquals(event("delta", "d99"), fast.events().get(99));
+        assertEquals(event("done", "full"), fast.events().get(100));
+
+        release.countDown();
+        assertTrue(slow.awaitCompletion());
+        assertEquals(fast.events(), slow.events());
+    }
+
+    @Test
+    void subscriberJoiningMidwayReceivesGeneratedContentFirst() throws InterruptedException {
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        hub.start("2");
+        hub.append("2", "ab");
+        hub.append("2", "cd");
+        hub.subscribe("2", emitter);
+        hub.append("2", "ef");
+        hub.fail("2", "boom");
+
+        assertTrue(emitter.awaitCompletion());
+        assertEquals(List.of(event("delta", "abcd"), event("delta", "ef"), event("error", "boom")), emitter.events());
+    }
+
+    @Test
+    void subscriberAfterFinishReceivesFinalEventOnly() throws InterruptedException {
+        hub.start("3");
+        hub.append("3", "partial");
+        hub.complete("3", "full");
+        RecordingEmitter emitter = new RecordingEmitter(null);
+        hub.subscribe("3", emitter);
+
+        assertTrue(emitter.awaitCompletion());
+        assertEquals(List.of(event("done", "full")), emitter.events());
+    }
+
+    @Test
+    void failedSubscriberIsDropped() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch failed = new CountDownLatch(1);
+        SseEmitter broken = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                attempts.incrementAndGet();
+                throw new IOException("Broken pipe");
+            }
+
+            @Override
+            public void completeWithError(Throwable ex) {
+                failed.countDown();
+            }
+        };
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        hub.start("4");
+        hub.subscribe("4", broken);
+        hub.subscribe("4", healthy);
+        hub.append("4", "a");
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        hub.append("4", "b");
+        hub.complete("4", "ab");
+
+        assertTrue(healthy.awaitCompletion());
+        assertEquals(1, attempts.get());
+        assertEquals(3, healthy.events().size());
+    }
+
+    private static String event(String name, String data) {
+        return "event:" + name + "\ndata:" + data + "\n\n";
+    }
+
+    /**
+     * 记录收到的事件，指定 release 时每次发送都等待其放行，模拟慢连接
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        private final CountDownLatch release;
+        private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType data : builder.build()) {
+                text.append(data.getData());
+            }
+            events.add(text.toString());
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completed.countDown();
+        }
+
+        boolean awaitCompletion() throws InterruptedException {
+            return completed.await(5, TimeUnit.SECONDS);
+        }
+
+        List<String> events() {
+            synchronized (events) {
+                return List.copyOf(events);
+            }
+        }
+    }
+}